@@ -0,0 +1,62 @@
+package com.github.drkube.mcpserver.agent;
+
+import com.github.drkube.mcpserver.service.ChangeJournal;
+import io.quarkiverse.mcp.server.McpLog;
+import io.quarkiverse.mcp.server.Tool;
+import io.quarkiverse.mcp.server.ToolArg;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+public class ChangeAgent {
+
+    @Inject
+    ChangeJournal journal;
+
+    @Tool(name = "changesSince", description = "Return only what changed in the cluster (pods, deployments, statefulsets, daemonsets, jobs, nodes) since a cursor: added, modified and deleted objects with field-level diffs, plus a new cursor. Call without cursor first to get a baseline cursor.")
+    @RunOnVirtualThread
+    public String changesSince(
+            @ToolArg(description = "Cursor returned by a previous call (omit to start tracking)", required = false) String cursor,
+            @ToolArg(description = "Comma separated kinds to include, e.g. Pod,Deployment (default all)", required = false) String kinds,
+            @ToolArg(description = "Namespace filter (default all namespaces)", required = false) String namespace,
+            @ToolArg(description = "Maximum number of changes to return (default 100)", required = false) Integer limit,
+            McpLog log) {
+
+        log.info("Invoking ChangeAgent - changesSince - cursor %s kinds %s namespace %s", cursor, kinds, namespace);
+
+        try {
+            if (cursor == null || cursor.isBlank()) {
+                return "Tracking changes of " + journal.kinds() + ". Baseline cursor: " + journal.cursor();
+            }
+
+            Set<String> kindFilter = kinds == null || kinds.isBlank() ? null
+                    : Arrays.stream(kinds.split(",")).map(String::trim).collect(Collectors.toSet());
+            ChangeJournal.Delta delta = journal.since(cursor, kindFilter, namespace, limit == null ? 100 : Math.max(1, limit));
+
+            StringBuilder sb = new StringBuilder();
+            if (delta.changes().isEmpty()) {
+                sb.append("No changes since cursor ").append(cursor).append(".\n");
+            } else {
+                sb.append(delta.changes().size()).append(" changes:\n");
+                delta.changes().forEach(c -> sb.append("- ").append(c.format()).append('\n'));
+            }
+            if (!delta.truncatedKinds().isEmpty()) {
+                sb.append("WARNING: older changes for ").append(delta.truncatedKinds())
+                        .append(" were dropped from the journal; re-read their current state.\n");
+            }
+            if (delta.more()) {
+                sb.append("More changes available: call again with the new cursor.\n");
+            }
+            return sb.append("Next cursor: ").append(delta.cursor()).toString();
+
+        } catch (Exception e) {
+            log.error("Error reading change journal: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+}
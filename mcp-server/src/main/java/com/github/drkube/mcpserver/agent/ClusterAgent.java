@@ -1,7 +1,9 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.ControlPlaneProbe;
+import com.github.drkube.mcpserver.service.MetadataLister;
+import com.github.drkube.mcpserver.service.SchedulingSimulator;
 import io.fabric8.kubernetes.api.model.Namespace;
-import io.fabric8.kubernetes.api.model.Node;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.VersionInfo;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -11,8 +13,10 @@ import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -25,24 +29,29 @@ public class ClusterAgent {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    MetadataLister lister;
+
+    @Inject
+    ControlPlaneProbe controlPlane;
+
     @Tool(name = "getClusterInfo", description = "Show general information about the Kubernetes cluster.")
     @RunOnVirtualThread
     public String getClusterInfo(McpLog log) {
         log.info("Invoking ClusterAgent - getClusterInfo");
         try {
             VersionInfo version = client.getKubernetesVersion();
-            List<Node> nodes = client.nodes().list().getItems();
-            List<Namespace> namespaces = client.namespaces().list().getItems();
+            // Servono solo conteggi: metadata per i nodi, colonna Status della Table per i namespace
+            int nodeCount = lister.listMetadata("/api/v1/nodes").size();
+            MetadataLister.Table namespaces = lister.listTable("/api/v1/namespaces");
+            int statusColumn = namespaces.column("Status");
 
             String clusterVersion = version != null
                     ? version.getMajor() + "." + version.getMinor()
                     : "unknown";
-            int nodeCount = nodes != null ? nodes.size() : 0;
-            long activeNamespaces = namespaces != null
-                    ? namespaces.stream()
-                    .filter(ns -> "Active".equalsIgnoreCase(ns.getStatus().getPhase()))
-                    .count()
-                    : 0;
+            long activeNamespaces = namespaces.rows().stream()
+                    .filter(row -> statusColumn >= 0 && "Active".equalsIgnoreCase(String.valueOf(row.get(statusColumn))))
+                    .count();
 
             return String.format(
                     "Cluster version: %s%nNodes: %d%nActive namespaces: %d",
@@ -54,45 +63,20 @@ public class ClusterAgent {
         }
     }
 
-    @Tool(name = "checkControlPlaneHealth", description = "Check the status of the control plane.")
+    @Tool(name = "checkControlPlaneHealth", description = "Check the status of the control plane: API server /readyz and /livez checks (etcd, informers, post-start hooks), scheduler and controller-manager leader leases, and recent health history. Works on managed clusters without visible control-plane nodes.")
     @RunOnVirtualThread
     public String checkControlPlaneHealth(McpLog log) {
         log.info("Invoking ClusterAgent - checkControlPlaneHealth");
 
         try {
-            // Controlliamo se l'API server risponde correttamente
-            VersionInfo version = client.getKubernetesVersion();
-            if (version == null) {
-                return "Control plane unreachable (cannot fetch version).";
-            }
-
-            // Heuristica: verifichiamo se ci sono nodi 'control-plane'
-            List<Node> controlPlaneNodes = client.nodes().list().getItems().stream()
-                    .filter(n -> n.getMetadata().getLabels() != null &&
-                            n.getMetadata().getLabels().containsKey("node-role.kubernetes.io/control-plane"))
-                    .collect(Collectors.toList());
-
-            if (controlPlaneNodes.isEmpty()) {
-                return "No control-plane nodes found.";
-            }
-
-            // Verifica condizioni di salute dei nodi di controllo
-            Map<String, String> nodeStatuses = controlPlaneNodes.stream()
-                    .collect(Collectors.toMap(
-                            n -> n.getMetadata().getName(),
-                            n -> n.getStatus().getConditions().stream()
-                                    .filter(c -> "Ready".equals(c.getType()))
-                                    .findFirst()
-                                    .map(c -> c.getStatus())
-                                    .orElse("Unknown")
-                    ));
-
-            boolean allHealthy = nodeStatuses.values().stream()
-                    .allMatch(s -> "True".equalsIgnoreCase(s));
-
-            return String.format(
-                    "Control plane nodes: %s%nAll healthy: %s",
-                    nodeStatuses, allHealthy ? "YES" : "NO");
+            ControlPlaneProbe.Result result = controlPlane.current();
+            StringBuilder sb = new StringBuilder("Control plane healthy: ").append(result.healthy() ? "YES" : "NO")
+                    .append(" (probed at ").append(result.at()).append(" in ").append(result.millis()).append(" ms)\n");
+            sb.append(result.readyz().format()).append('\n');
+            sb.append(result.livez().format()).append('\n');
+            result.leases().forEach(l -> sb.append(l.format()).append('\n'));
+            sb.append(controlPlane.historySummary(5));
+            return sb.toString();
 
         } catch (Exception e) {
             log.error("Error checking control plane health: %s", e.getMessage());
@@ -128,7 +112,8 @@ public class ClusterAgent {
         }
     }
 
-    @Tool(name = "detectSchedulingIssues", description = "Analyze any scheduling issues.")
+    @Tool(name = "detectSchedulingIssues", description = "Analyze pending pods and explain, per pod, why no node can run them "
+            + "(insufficient resources, untolerated taints, node selector/affinity, volume binding and zone constraints).")
     @RunOnVirtualThread
     public String detectSchedulingIssues(McpLog log) {
         log.info("Invoking ClusterAgent - detectSchedulingIssues");
@@ -140,22 +125,38 @@ public class ClusterAgent {
             }
 
             List<Pod> pendingPods = pods.stream()
-                    .filter(p -> p.getStatus() != null && "Pending".equalsIgnoreCase(p.getStatus().getPhase()))
+                    .filter(SchedulingSimulator::isPending)
                     .collect(Collectors.toList());
 
             if (pendingPods.isEmpty()) {
                 return "No scheduling issues detected (no pending pods).";
             }
 
-            String pendingSummary = pendingPods.stream()
-                    .map(p -> String.format("%s/%s (%s)",
-                            p.getMetadata().getNamespace(),
-                            p.getMetadata().getName(),
-                            p.getStatus().getReason() != null ? p.getStatus().getReason() : "Pending"))
+            long start = System.nanoTime();
+            SchedulingSimulator simulator = new SchedulingSimulator(
+                    client.nodes().list().getItems(),
+                    pods,
+                    client.persistentVolumeClaims().inAnyNamespace().list().getItems(),
+                    client.persistentVolumes().list().getItems(),
+                    client.storage().v1().storageClasses().list().getItems());
+
+            // Raggruppo i pod con la stessa spiegazione (tipicamente repliche dello stesso workload)
+            Map<String, List<String>> byExplanation = pendingPods.parallelStream()
+                    .map(simulator::explain)
+                    .collect(Collectors.groupingBy(SchedulingSimulator.PodFit::explanation, LinkedHashMap::new,
+                            Collectors.mapping(SchedulingSimulator.PodFit::pod, Collectors.toList())));
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            String pendingSummary = byExplanation.entrySet().stream()
+                    .map(e -> String.format("%s%n  pods (%d): %s%s",
+                            e.getKey(),
+                            e.getValue().size(),
+                            String.join(", ", e.getValue().subList(0, Math.min(5, e.getValue().size()))),
+                            e.getValue().size() > 5 ? ", ..." : ""))
                     .collect(Collectors.joining("\n"));
 
-            return String.format("Detected %d pending pods:%n%s",
-                    pendingPods.size(), pendingSummary);
+            return String.format("Detected %d pending pods (simulated in %d ms):%n%s",
+                    pendingPods.size(), elapsedMs, pendingSummary);
 
         } catch (Exception e) {
             log.error("Error detecting scheduling issues: %s", e.getMessage());
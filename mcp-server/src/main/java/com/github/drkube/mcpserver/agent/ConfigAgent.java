@@ -1,11 +1,11 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.ConfigReferenceValidator;
+import com.github.drkube.mcpserver.service.Paging;
+import com.github.drkube.mcpserver.service.RbacIndex;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
-import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
-import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
 import io.quarkiverse.mcp.server.McpLog;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
@@ -22,6 +22,9 @@ public class ConfigAgent {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    RbacIndex rbac;
+
     @Tool(name = "getConfigMap", description = "Retrieve a ConfigMap and display the contained keys")
     @RunOnVirtualThread
     public String getConfigMap(
@@ -66,59 +69,107 @@ public class ConfigAgent {
         }
     }
 
-    @Tool(name = "checkRBACPermissions", description = "Verify the RBAC permissions of a ServiceAccount")
+    @Tool(name = "findBrokenConfigReferences", description = "Find pods referencing missing ConfigMaps/Secrets or missing keys "
+            + "(env valueFrom, envFrom, configMap/secret/projected volumes, imagePullSecrets) in a namespace or in the whole cluster")
+    @RunOnVirtualThread
+    public String findBrokenConfigReferences(
+            @ToolArg(description = "Namespace (omit for the whole cluster)", required = false) String namespace,
+            McpLog log) {
+
+        log.info("Invoking ConfigAgent - findBrokenConfigReferences - namespace %s", namespace);
+
+        try {
+            boolean allNamespaces = namespace == null || namespace.isBlank();
+            ConfigReferenceValidator validator = new ConfigReferenceValidator();
+            List<ConfigReferenceValidator.BrokenReference> broken = new ArrayList<>();
+            int[] pods = new int[1];
+
+            // Un solo passaggio a pagine: prima l'indice delle chiavi, poi le spec dei pod
+            if (allNamespaces) {
+                Paging.forEach(o -> client.configMaps().inAnyNamespace().list(o), validator::addConfigMap);
+                Paging.forEach(o -> client.secrets().inAnyNamespace().list(o), validator::addSecret);
+                Paging.forEach(o -> client.pods().inAnyNamespace().list(o), pod -> {
+                    pods[0]++;
+                    broken.addAll(validator.validate(pod));
+                });
+            } else {
+                Paging.forEach(o -> client.configMaps().inNamespace(namespace).list(o), validator::addConfigMap);
+                Paging.forEach(o -> client.secrets().inNamespace(namespace).list(o), validator::addSecret);
+                Paging.forEach(o -> client.pods().inNamespace(namespace).list(o), pod -> {
+                    pods[0]++;
+                    broken.addAll(validator.validate(pod));
+                });
+            }
+
+            String scope = allNamespaces ? "the cluster" : "namespace '" + namespace + "'";
+            if (broken.isEmpty()) {
+                return String.format("No broken ConfigMap/Secret references in %s (%d pods, %d objects checked).",
+                        scope, pods[0], validator.indexedObjects());
+            }
+
+            // Raggruppo per namespace e problema: le repliche di un workload condividono lo stesso errore
+            Map<String, Set<String>> podsByProblem = new TreeMap<>();
+            Map<String, String> usageByProblem = new HashMap<>();
+            for (ConfigReferenceValidator.BrokenReference ref : broken) {
+                String problem = ref.namespace() + ": " + ref.problem();
+                podsByProblem.computeIfAbsent(problem, k -> new TreeSet<>()).add(ref.pod());
+                usageByProblem.putIfAbsent(problem, ref.usedBy());
+            }
+
+            return podsByProblem.entrySet().stream()
+                    .map(e -> String.format("%s (used by %s) -> %d pods: %s%s",
+                            e.getKey(),
+                            usageByProblem.get(e.getKey()),
+                            e.getValue().size(),
+                            e.getValue().stream().limit(5).collect(Collectors.joining(", ")),
+                            e.getValue().size() > 5 ? ", ..." : ""))
+                    .collect(Collectors.joining("\n", String.format(
+                            "Broken references in %s (%d pods checked):%n", scope, pods[0]), ""));
+
+        } catch (Exception e) {
+            log.error("Error validating config references: %s", e.getMessage());
+            return "Error validating config references: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "checkRBACPermissions", description = "Verify the RBAC permissions of a ServiceAccount "
+            + "(resource as in kubectl auth can-i, e.g. pods, pods/log, deployments.apps)")
     @RunOnVirtualThread
     public String checkRBACPermissions(
             @ToolArg(description = "Namespace") String namespace,
             @ToolArg(description = "Service account name") String saName,
             @ToolArg(description = "Verb to check") String verb,
             @ToolArg(description = "Resource to check") String resource,
+            @ToolArg(description = "Name of a specific object (optional, for rules restricted with resourceNames)", required = false) String resourceName,
             McpLog log) {
 
-        log.info("Invoking ConfigAgent - checkRBACPermissions - namespace %s saName %s verb %s resource %s",
-                namespace, saName, verb, resource);
+        log.info("Invoking ConfigAgent - checkRBACPermissions - namespace %s saName %s verb %s resource %s resourceName %s",
+                namespace, saName, verb, resource, resourceName);
 
         try {
-            // Creazione contesto per SelfSubjectAccessReview
-            ResourceDefinitionContext ctx = new ResourceDefinitionContext.Builder()
-                    .withGroup("authorization.k8s.io")
-                    .withVersion("v1")
-                    .withKind("SelfSubjectAccessReview")
-                    .withPlural("selfsubjectaccessreviews")
-                    .build();
-
-            // Corpo della richiesta come mappa
-            Map<String, Object> reviewMap = Map.of(
-                    "apiVersion", "authorization.k8s.io/v1",
-                    "kind", "SelfSubjectAccessReview",
-                    "spec", Map.of(
-                            "resourceAttributes", Map.of(
-                                    "namespace", namespace,
-                                    "verb", verb,
-                                    "resource", resource
-                            )
-                    )
-            );
-
-            // Avvolgo la mappa in GenericKubernetesResource
-            GenericKubernetesResource reviewResource = new GenericKubernetesResource();
-            reviewResource.setAdditionalProperties(reviewMap);
-
-            // Creo la risorsa nel cluster
-            GenericKubernetesResource result = client.genericKubernetesResources(ctx).create(reviewResource);
-
-            // Leggo lo status dalla risorsa creata
-            Map<String, Object> status = (Map<String, Object>) result.getAdditionalProperties().get("status");
-            Boolean allowed = status != null ? (Boolean) status.get("allowed") : null;
-
-            if (Boolean.TRUE.equals(allowed)) {
-                return String.format("✅ ServiceAccount '%s' in namespace '%s' is allowed to %s %s",
-                        saName, namespace, verb, resource);
-            } else {
-                String reason = status != null && status.get("reason") != null ? status.get("reason").toString() : "unknown";
-                return String.format("❌ ServiceAccount '%s' in namespace '%s' is NOT allowed to %s %s (reason: %s)",
-                        saName, namespace, verb, resource, reason);
+            // Valutazione locale sull'indice RBAC: nessuna AccessReview verso l'API server
+            List<String> identity = RbacIndex.serviceAccountIdentity(namespace, saName);
+            RbacIndex.Request request = RbacIndex.Request.parse(verb, resource, resourceName);
+            List<RbacIndex.Grant> grants = rbac.allowing(identity, request, namespace);
+            String target = resource + (request.name() != null ? " '" + request.name() + "'" : "");
+
+            if (!grants.isEmpty()) {
+                String grantedBy = grants.stream()
+                        .map(g -> g.binding() + " -> " + g.role())
+                        .collect(Collectors.joining(", "));
+                return String.format("✅ ServiceAccount '%s' in namespace '%s' is allowed to %s %s (granted by %s)",
+                        saName, namespace, verb, target, grantedBy);
+            }
+            Map<RbacIndex.Grant, Set<String>> limited = rbac.limitedTo(identity, request, namespace);
+            if (!limited.isEmpty()) {
+                String onlyNamed = limited.entrySet().stream()
+                        .map(e -> e.getKey().binding() + " -> " + e.getKey().role() + " only for " + e.getValue())
+                        .collect(Collectors.joining(", "));
+                return String.format("❌ ServiceAccount '%s' in namespace '%s' is NOT allowed to %s %s: only on specific objects (%s)",
+                        saName, namespace, verb, target, onlyNamed);
             }
+            return String.format("❌ ServiceAccount '%s' in namespace '%s' is NOT allowed to %s %s (no matching RoleBinding/ClusterRoleBinding)",
+                    saName, namespace, verb, target);
 
         } catch (Exception e) {
             log.error("Error checking RBAC permissions: %s", e.getMessage());
@@ -126,4 +177,51 @@ public class ConfigAgent {
         }
     }
 
+    @Tool(name = "whoCan", description = "List the users, groups and ServiceAccounts allowed to perform a verb on a resource")
+    @RunOnVirtualThread
+    public String whoCan(
+            @ToolArg(description = "Verb to check") String verb,
+            @ToolArg(description = "Resource to check (e.g. secrets, pods/exec, deployments.apps)") String resource,
+            @ToolArg(description = "Namespace (omit for cluster-wide permissions only)", required = false) String namespace,
+            @ToolArg(description = "Name of a specific object (optional, for rules restricted with resourceNames)", required = false) String resourceName,
+            McpLog log) {
+
+        log.info("Invoking ConfigAgent - whoCan - verb %s resource %s namespace %s resourceName %s", verb, resource, namespace, resourceName);
+
+        try {
+            RbacIndex.Request request = RbacIndex.Request.parse(verb, resource, resourceName);
+            Map<String, List<RbacIndex.Grant>> subjects = rbac.whoCan(request, namespace);
+            Map<String, Map<RbacIndex.Grant, Set<String>>> onlyNamed = rbac.whoCanOnlyNamed(request, namespace);
+            String target = resource + (request.name() != null ? " '" + request.name() + "'" : "")
+                    + (namespace != null ? " in namespace '" + namespace + "'" : " cluster-wide");
+            if (subjects.isEmpty() && onlyNamed.isEmpty()) {
+                return "Nobody is allowed to " + verb + " " + target;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            if (!subjects.isEmpty()) {
+                sb.append(subjects.entrySet().stream()
+                        .map(e -> e.getKey() + " via " + e.getValue().stream()
+                                .map(RbacIndex.Grant::binding)
+                                .collect(Collectors.joining(", ")))
+                        .collect(Collectors.joining("\n", "Subjects allowed to " + verb + " " + target + ":\n", "")));
+            } else {
+                sb.append("Nobody is allowed to ").append(verb).append(' ').append(target);
+            }
+            if (!onlyNamed.isEmpty()) {
+                // regole con resourceNames: valgono solo per quegli oggetti, non per list/watch
+                sb.append(onlyNamed.entrySet().stream()
+                        .map(e -> e.getKey() + " via " + e.getValue().entrySet().stream()
+                                .map(g -> g.getKey().binding() + " only for " + g.getValue())
+                                .collect(Collectors.joining(", ")))
+                        .collect(Collectors.joining("\n", "\nRestricted to specific objects (resourceNames):\n", "")));
+            }
+            return sb.toString();
+
+        } catch (Exception e) {
+            log.error("Error resolving RBAC subjects: %s", e.getMessage());
+            return "Error resolving RBAC subjects: " + e.getMessage();
+        }
+    }
+
 }
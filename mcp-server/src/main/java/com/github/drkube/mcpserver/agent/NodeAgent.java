@@ -1,8 +1,11 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.MetadataLister;
+import com.github.drkube.mcpserver.service.NodeLeaseMonitor;
+import com.github.drkube.mcpserver.service.NodeSnapshot;
 import io.fabric8.kubernetes.api.model.Node;
 import io.fabric8.kubernetes.api.model.NodeCondition;
-import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
@@ -13,6 +16,7 @@ import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -23,6 +27,12 @@ public class NodeAgent {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    MetadataLister lister;
+
+    @Inject
+    NodeLeaseMonitor leases;
+
     @Tool(name = "getNodeStatus", description = "Check the status of a node (Ready/NotReady, hardware conditions).")
     @RunOnVirtualThread
     public String getNodeStatus(
@@ -52,10 +62,13 @@ public class NodeAgent {
                     .map(NodeCondition::getStatus)
                     .orElse("Unknown");
 
-            return String.format("Node %s is %s (%s)",
+            // il lease si accorge di un kubelet fermo prima che la condizione Ready cambi
+            NodeLeaseMonitor.Heartbeat heartbeat = leases.heartbeat(nodeName);
+            return String.format("Node %s is %s (%s)%s",
                     nodeName,
                     "True".equalsIgnoreCase(readyStatus) ? "Ready" : "NotReady",
-                    statusSummary);
+                    statusSummary,
+                    heartbeat == null ? "" : "\nHeartbeat: " + heartbeat.format());
 
         } catch (Exception e) {
             log.error("Error retrieving node status: %s", e.getMessage());
@@ -114,17 +127,14 @@ public class NodeAgent {
         log.info("Invoking NodeAgent - listPodsOnNode - nodeName %s", nodeName);
 
         try {
-            List<Pod> pods = client.pods().inAnyNamespace()
-                    .withField("spec.nodeName", nodeName)
-                    .list()
-                    .getItems();
+            List<ObjectMeta> pods = lister.listMetadata("/api/v1/pods", "spec.nodeName=" + nodeName);
 
             if (pods.isEmpty()) {
                 return "No pods scheduled on node " + nodeName;
             }
 
             String podList = pods.stream()
-                    .map(p -> String.format("%s/%s", p.getMetadata().getNamespace(), p.getMetadata().getName()))
+                    .map(p -> String.format("%s/%s", p.getNamespace(), p.getName()))
                     .collect(Collectors.joining("\n"));
 
             return String.format("Pods on node %s:\n%s", nodeName, podList);
@@ -170,4 +180,84 @@ public class NodeAgent {
             return "Error: " + e.getMessage();
         }
     }
+
+    @Tool(name = "getNodesSnapshot", description = "Health snapshot of all nodes in one call: readiness, pressure, CPU/memory usage vs allocatable, pod count and the top-K pods by CPU and memory on each node.")
+    @RunOnVirtualThread
+    public String getNodesSnapshot(
+            @ToolArg(description = "Only nodes with problems (NotReady, pressure, cordoned, >90% usage)", required = false) Boolean problemsOnly,
+            @ToolArg(description = "Sort by cpu, memory, pods or name (default name)", required = false) String sortBy,
+            @ToolArg(description = "Maximum number of nodes to return (default 50)", required = false) Integer limit,
+            @ToolArg(description = "Top pods per node to report (default 3)", required = false) Integer topK,
+            McpLog log) {
+
+        log.info("Invoking NodeAgent - getNodesSnapshot - problemsOnly %s sortBy %s limit %s topK %s", problemsOnly, sortBy, limit, topK);
+
+        try {
+            long start = System.nanoTime();
+            NodeSnapshot snapshot = NodeSnapshot.capture(client, topK == null ? 3 : Math.max(0, topK));
+            List<Integer> selected = snapshot.select(Boolean.TRUE.equals(problemsOnly), sortBy, limit == null ? 50 : Math.max(1, limit));
+
+            if (selected.isEmpty()) {
+                return Boolean.TRUE.equals(problemsOnly)
+                        ? "All " + snapshot.size() + " nodes look healthy."
+                        : "No nodes found.";
+            }
+
+            StringBuilder sb = new StringBuilder(String.format("Nodes snapshot (%d of %d nodes, built in %d ms)%s:%n",
+                    selected.size(), snapshot.size(), (System.nanoTime() - start) / 1_000_000,
+                    snapshot.metricsAvailable() ? "" : " - metrics not available, usage omitted"));
+            selected.forEach(i -> sb.append("- ").append(snapshot.format(i)).append('\n'));
+            return sb.toString();
+
+        } catch (Exception e) {
+            log.error("Error building nodes snapshot: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "listSuspectNodes", description = "List nodes whose kubelet heartbeat (node lease in kube-node-lease) is overdue, oldest first, with the last renew age. Detects stopped kubelets or partitioned nodes tens of seconds before their Ready condition changes.")
+    @RunOnVirtualThread
+    public String listSuspectNodes(
+            @ToolArg(description = "Minimum heartbeat age in seconds (default: a few missed renewals)", required = false) Integer minAgeSeconds,
+            @ToolArg(description = "Maximum number of nodes to return (default 50)", required = false) Integer limit,
+            McpLog log) {
+
+        log.info("Invoking NodeAgent - listSuspectNodes - minAgeSeconds %s limit %s", minAgeSeconds, limit);
+
+        try {
+            if (!leases.synced()) {
+                return "Node lease monitor not synced yet: the initial lease list is still loading, retry shortly.";
+            }
+            List<NodeLeaseMonitor.Heartbeat> suspects = leases.suspects(
+                    minAgeSeconds == null ? 0 : minAgeSeconds * 1000L, limit == null ? 50 : Math.max(1, limit));
+            if (suspects.isEmpty()) {
+                return "All " + leases.trackedNodes() + " node heartbeats are on time.";
+            }
+
+            // stato Ready dalla Table dei nodi: una sola chiamata anche con migliaia di nodi
+            MetadataLister.Table nodes = lister.listTable("/api/v1/nodes");
+            int nameColumn = nodes.column("Name");
+            int statusColumn = nodes.column("Status");
+            Map<String, String> status = new HashMap<>();
+            if (nameColumn >= 0 && statusColumn >= 0) {
+                nodes.rows().forEach(row -> status.put(String.valueOf(row.get(nameColumn)), String.valueOf(row.get(statusColumn))));
+            }
+
+            StringBuilder sb = new StringBuilder(String.format("%d of %d nodes have an overdue heartbeat:%n",
+                    suspects.size(), leases.trackedNodes()));
+            for (NodeLeaseMonitor.Heartbeat heartbeat : suspects) {
+                String nodeStatus = status.getOrDefault(heartbeat.node(), "node not found");
+                sb.append("- ").append(heartbeat.format()).append(", status ").append(nodeStatus);
+                if (nodeStatus.startsWith("Ready")) {
+                    sb.append(" (condition not updated yet)");
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+
+        } catch (Exception e) {
+            log.error("Error listing suspect nodes: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
 }
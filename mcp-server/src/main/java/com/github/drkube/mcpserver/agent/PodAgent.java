@@ -1,9 +1,13 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.NodeLeaseMonitor;
+import com.github.drkube.mcpserver.service.RestartRateTracker;
+import com.github.drkube.mcpserver.service.ToolBudget;
+import com.github.drkube.mcpserver.service.ToolBudgets;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.LogWatch;
+import io.quarkiverse.mcp.server.Cancellation;
 import io.quarkiverse.mcp.server.McpLog;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
@@ -11,7 +15,11 @@ import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.List;
+import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -20,24 +28,54 @@ public class PodAgent {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    ToolBudgets budgets;
+
+    @Inject
+    RestartRateTracker restarts;
+
+    @Inject
+    NodeLeaseMonitor leases;
+
     @Tool(name="getPodLogs",description = "Retrieve the logs of a pod in the specified namespace")
     @RunOnVirtualThread
     public String getPodLogs(
             @ToolArg(description="Namespace") String namespace,
             @ToolArg(description="Pod name") String podName,
             @ToolArg(description="Lines of logs", required = false) Integer tailLines,
-            McpLog log) {
+            McpLog log,
+            Cancellation cancellation) {
 
         log.info("Invoking PodAgent - getPodLogs - namespace %s podName %s tailLines %s", namespace, podName, tailLines);
 
-        try (LogWatch logWatch = client.pods()
-                .inNamespace(namespace)
-                .withName(podName)
-                .tailingLines(tailLines != null ? tailLines : 100)
-                .watchLog();
-             BufferedReader reader = new BufferedReader(new InputStreamReader(logWatch.getOutput()))) {
+        // Lettura senza follow: lo stream finisce dopo le ultime righe anche se il container è in esecuzione
+        try (ToolBudget budget = budgets.start(cancellation);
+             InputStream logs = budget.track(client.pods()
+                     .inNamespace(namespace)
+                     .withName(podName)
+                     .tailingLines(tailLines != null ? tailLines : 100)
+                     .getLogInputStream());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(logs))) {
+
+            // Il watchdog chiude lo stream alla cancellazione o alla deadline: la readLine bloccata termina con IOException
+            StringJoiner lines = new StringJoiner("\n");
+            int read = 0;
+            String line;
+            try {
+                while (!budget.exhausted() && (line = reader.readLine()) != null) {
+                    lines.add(line);
+                    read++;
+                }
+            } catch (IOException e) {
+                if (!budget.exhausted()) {
+                    throw e;
+                }
+            }
 
-            return reader.lines().collect(Collectors.joining("\n"));
+            if (budget.exhausted()) {
+                lines.add(budget.incompleteNote(read + " lines"));
+            }
+            return lines.toString();
         } catch (Exception e) {
             log.error("Error retrieving pod logs: %s", e.getMessage());
             return "Error: " + e.getMessage();
@@ -131,11 +169,48 @@ public class PodAgent {
                     .map(c -> c.getStatus())
                     .orElse("Unknown");
 
-            return String.format("Pod %s is on node %s (Ready=%s)", podName, nodeName, readyCondition);
+            NodeLeaseMonitor.Heartbeat heartbeat = leases.heartbeat(nodeName);
+            return String.format("Pod %s is on node %s (Ready=%s)%s", podName, nodeName, readyCondition,
+                    heartbeat == null ? "" : ", heartbeat " + heartbeat.ageMillis() / 1000 + "s ago"
+                            + (leases.overdue(heartbeat) ? " - " + heartbeat.missedRenewals() + " renewals missed, node may be down" : ""));
 
         } catch (Exception e) {
             log.error("Error checking pod placement: %s", e.getMessage());
             return "Error: " + e.getMessage();
         }
     }
+
+    @Tool(name = "listCrashLoopingContainers", description = "List containers that are restarting right now, cluster-wide, ranked by recent restart rate (decayed, not cumulative), with the last termination reason and exit code.")
+    @RunOnVirtualThread
+    public String listCrashLoopingContainers(
+            @ToolArg(description = "Namespace filter (default all namespaces)", required = false) String namespace,
+            @ToolArg(description = "Minimum restarts per hour (default 1)", required = false) Double minRestartsPerHour,
+            @ToolArg(description = "Maximum number of containers (default 20)", required = false) Integer limit,
+            McpLog log) {
+
+        log.info("Invoking PodAgent - listCrashLoopingContainers - namespace %s minRestartsPerHour %s", namespace, minRestartsPerHour);
+
+        try {
+            if (!restarts.synced()) {
+                return "Restart tracker not synced yet: the initial pod list is still loading, retry shortly.";
+            }
+            List<RestartRateTracker.CrashLoop> loops = restarts.crashLooping(namespace,
+                    minRestartsPerHour == null ? 1 : minRestartsPerHour, limit == null ? 20 : Math.max(1, limit));
+
+            if (loops.isEmpty()) {
+                return "No crash-looping containers (" + restarts.trackedContainers() + " containers tracked).";
+            }
+
+            return loops.stream()
+                    .map(c -> String.format("%s/%s [%s]: ~%.1f restarts/h (total %d), last: %s exit %d%s",
+                            c.namespace(), c.pod(), c.container(), c.restartsPerHour(), c.restartCount(),
+                            c.lastReason() != null ? c.lastReason() : "n/a", c.lastExitCode(),
+                            c.backOff() ? ", in CrashLoopBackOff" : ""))
+                    .collect(Collectors.joining("\n", "Crash-looping containers:\n", ""));
+
+        } catch (Exception e) {
+            log.error("Error listing crash-looping containers: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
 }
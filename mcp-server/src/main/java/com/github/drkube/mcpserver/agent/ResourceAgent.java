@@ -1,9 +1,17 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.KubeletStats;
+import com.github.drkube.mcpserver.service.MetadataLister;
+import com.github.drkube.mcpserver.service.Quantities;
+import com.github.drkube.mcpserver.service.ToolBudget;
+import com.github.drkube.mcpserver.service.TopConsumers;
+import com.github.drkube.mcpserver.service.ToolBudgets;
+import com.github.drkube.mcpserver.service.TopK;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.quarkiverse.mcp.server.Cancellation;
 import io.quarkiverse.mcp.server.McpLog;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
@@ -11,6 +19,7 @@ import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -21,6 +30,15 @@ public class ResourceAgent {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    ToolBudgets budgets;
+
+    @Inject
+    KubeletStats kubeletStats;
+
+    @Inject
+    MetadataLister lister;
+
     @Tool(name = "getPodMetrics", description = "Retrieve CPU and memory metrics of a pod.")
     @RunOnVirtualThread
     public String getPodMetrics(
@@ -71,11 +89,12 @@ public class ResourceAgent {
     @RunOnVirtualThread
     public String analyzeNamespaceUsage(
             @ToolArg(description = "Namespace to analyze") String namespace,
-            McpLog log) {
+            McpLog log,
+            Cancellation cancellation) {
 
         log.info("Invoking ResourceAgent - analyzeNamespaceUsage - namespace %s", namespace);
 
-        try {
+        try (ToolBudget budget = budgets.start(cancellation)) {
             List<Pod> pods = client.pods().inNamespace(namespace).list().getItems();
             if (pods.isEmpty()) {
                 return "No pods found in namespace '" + namespace + "'";
@@ -90,8 +109,16 @@ public class ResourceAgent {
 
             double totalCpu = 0;
             double totalMem = 0;
+            int scanned = 0;
 
             for (Pod pod : pods) {
+                if (budget.exhausted()) {
+                    return String.format("Namespace '%s' partial usage: CPU %.2f cores, Memory %.2f Mi %s",
+                            namespace, totalCpu, totalMem,
+                            budget.incompleteNote(scanned + "/" + pods.size() + " pods"));
+                }
+                scanned++;
+
                 GenericKubernetesResource podMetrics = client.genericKubernetesResources(crdContext)
                         .inNamespace(namespace)
                         .withName(pod.getMetadata().getName())
@@ -118,11 +145,11 @@ public class ResourceAgent {
 
     @Tool(name = "checkClusterCapacity", description = "Check the overall cluster capacity.")
     @RunOnVirtualThread
-    public String checkClusterCapacity(McpLog log) {
+    public String checkClusterCapacity(McpLog log, Cancellation cancellation) {
 
         log.info("Invoking ResourceAgent - checkClusterCapacity");
 
-        try {
+        try (ToolBudget budget = budgets.start(cancellation)) {
             List<String> namespaces = client.namespaces().list().getItems().stream()
                     .map(ns -> ns.getMetadata().getName())
                     .collect(Collectors.toList());
@@ -136,10 +163,21 @@ public class ResourceAgent {
 
             double totalCpu = 0;
             double totalMem = 0;
+            int scannedNamespaces = 0;
+            int scannedPods = 0;
 
             for (String ns : namespaces) {
                 List<Pod> pods = client.pods().inNamespace(ns).list().getItems();
                 for (Pod pod : pods) {
+                    // Interrompo la scansione se il client ha cancellato o la deadline è scaduta
+                    if (budget.exhausted()) {
+                        return String.format("Cluster partial usage: CPU %.2f cores, Memory %.2f Mi %s",
+                                totalCpu, totalMem,
+                                budget.incompleteNote(scannedNamespaces + "/" + namespaces.size()
+                                        + " namespaces, " + scannedPods + " pods"));
+                    }
+                    scannedPods++;
+
                     GenericKubernetesResource podMetrics = client.genericKubernetesResources(crdContext)
                             .inNamespace(ns)
                             .withName(pod.getMetadata().getName())
@@ -155,6 +193,7 @@ public class ResourceAgent {
                         totalMem += parseMemory(usage.get("memory").toString());
                     }
                 }
+                scannedNamespaces++;
             }
 
             return String.format("Cluster total usage: CPU %.2f cores, Memory %.2f Mi", totalCpu, totalMem);
@@ -165,6 +204,127 @@ public class ResourceAgent {
         }
     }
 
+    @Tool(name = "topConsumers", description = "Cluster-wide top-K resource consumers: pods (or namespaces/workloads) ranked by CPU, memory, usage/request ratio or usage/limit ratio, with their requests and limits.")
+    @RunOnVirtualThread
+    public String topConsumers(
+            @ToolArg(description = "Ranking: cpu, memory, cpuRequestRatio, memoryRequestRatio, cpuLimitRatio, memoryLimitRatio (default memory)", required = false) String rankBy,
+            @ToolArg(description = "Grouping: none, namespace or workload (default none)", required = false) String groupBy,
+            @ToolArg(description = "Number of consumers to return (default 20)", required = false) Integer k,
+            McpLog log,
+            Cancellation cancellation) {
+
+        log.info("Invoking ResourceAgent - topConsumers - rankBy %s groupBy %s k %s", rankBy, groupBy, k);
+
+        try (ToolBudget budget = budgets.start(cancellation)) {
+            TopConsumers.Rank rank = TopConsumers.Rank.parse(rankBy);
+            TopConsumers.Result result = TopConsumers.rank(client, lister, rank, TopConsumers.Group.parse(groupBy),
+                    k == null ? 20 : Math.max(1, k), budget);
+
+            if (result.top().isEmpty()) {
+                return "No pod metrics available (Metrics Server missing or no running pods).";
+            }
+
+            StringBuilder sb = new StringBuilder(String.format("Top %d by %s (%d pods scanned%s):%n",
+                    result.top().size(), rankBy == null ? "memory" : rankBy, result.scanned(),
+                    result.skipped() > 0 ? ", " + result.skipped() + " skipped without request/limit" : ""));
+            int position = 1;
+            for (TopConsumers.Consumer consumer : result.top()) {
+                sb.append(position++).append(". ").append(consumer.format());
+                if (TopConsumers.isRatio(rank)) {
+                    sb.append(String.format(" → ratio %.2f", TopConsumers.ratio(rank, consumer)));
+                }
+                sb.append('\n');
+            }
+            if (result.incomplete() != null) {
+                sb.append(result.incomplete());
+            }
+            return sb.toString();
+
+        } catch (Exception e) {
+            log.error("Error ranking top consumers: %s", e.getMessage());
+            return "Error ranking top consumers: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getEphemeralStorageUsage", description = "Ephemeral-storage usage per pod (logs, emptyDir, writable layers) and node root/image filesystem usage, read from the kubelets. Use it for disk pressure and evictions.")
+    @RunOnVirtualThread
+    public String getEphemeralStorageUsage(
+            @ToolArg(description = "Namespace to restrict pods to (optional, default whole cluster)", required = false) String namespace,
+            @ToolArg(description = "Number of pods to return (default 20)", required = false) Integer k,
+            McpLog log,
+            Cancellation cancellation) {
+
+        log.info("Invoking ResourceAgent - getEphemeralStorageUsage - namespace %s k %s", namespace, k);
+
+        try (ToolBudget budget = budgets.start(cancellation)) {
+            KubeletStats.Scrape scrape = kubeletStats.scrape(budget);
+            StringBuilder sb = new StringBuilder("Node filesystems:\n");
+            for (KubeletStats.NodeStats node : scrape.nodes().values()) {
+                sb.append(String.format("%s: rootfs %s/%s (%.1f%%), imagefs %s/%s%n", node.node(),
+                        Quantities.formatBytes(node.fsUsed()), Quantities.formatBytes(node.fsCapacity()),
+                        node.fsCapacity() > 0 ? 100.0 * node.fsUsed() / node.fsCapacity() : 0,
+                        Quantities.formatBytes(node.imageFsUsed()), Quantities.formatBytes(node.imageFsCapacity())));
+            }
+
+            TopK<KubeletStats.PodStats> top = new TopK<>(k == null ? 20 : Math.max(1, k));
+            for (KubeletStats.PodStats pod : scrape.pods()) {
+                if (namespace == null || namespace.isBlank() || namespace.equals(pod.namespace())) {
+                    top.offer(pod.ephemeralUsed(), pod);
+                }
+            }
+            sb.append("Top pods by ephemeral storage:\n");
+            for (KubeletStats.PodStats pod : top.sortedDescending()) {
+                sb.append(pod.key()).append(" on ").append(pod.node()).append(": ")
+                        .append(Quantities.formatBytes(pod.ephemeralUsed())).append('\n');
+            }
+            return sb.append(scrape.failures()).toString();
+
+        } catch (Exception e) {
+            log.error("Error reading ephemeral storage usage: %s", e.getMessage());
+            return "Error reading ephemeral storage usage: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getNetworkThroughput", description = "Top pods by network throughput (receive and transmit bytes per second), computed from two kubelet samples.")
+    @RunOnVirtualThread
+    public String getNetworkThroughput(
+            @ToolArg(description = "Namespace to restrict to (optional, default whole cluster)", required = false) String namespace,
+            @ToolArg(description = "Number of pods to return (default 20)", required = false) Integer k,
+            @ToolArg(description = "Seconds between the two samples when no recent sample exists (default 5)", required = false) Integer sampleSeconds,
+            McpLog log,
+            Cancellation cancellation) {
+
+        log.info("Invoking ResourceAgent - getNetworkThroughput - namespace %s k %s", namespace, k);
+
+        try (ToolBudget budget = budgets.start(cancellation)) {
+            List<KubeletStats.Throughput> rates = kubeletStats.throughput(
+                    Duration.ofSeconds(sampleSeconds == null ? 5 : Math.max(1, sampleSeconds)), Duration.ofMinutes(5), budget);
+            TopK<KubeletStats.Throughput> top = new TopK<>(k == null ? 20 : Math.max(1, k));
+            for (KubeletStats.Throughput rate : rates) {
+                if (namespace == null || namespace.isBlank() || rate.pod().startsWith(namespace + "/")) {
+                    top.offer((long) rate.total(), rate);
+                }
+            }
+            if (top.size() == 0) {
+                return "No network statistics available from the kubelets.";
+            }
+            String result = top.sortedDescending().stream()
+                    .map(r -> String.format("%s on %s: rx %s, tx %s", r.pod(), r.node(), rate(r.rxPerSecond()), rate(r.txPerSecond())))
+                    .collect(Collectors.joining("\n"));
+            return budget.exhausted() ? result + "\n" + budget.incompleteNote("a partial kubelet scrape") : result;
+
+        } catch (Exception e) {
+            log.error("Error reading network throughput: %s", e.getMessage());
+            return "Error reading network throughput: " + e.getMessage();
+        }
+    }
+
+    private static String rate(double bytesPerSecond) {
+        return bytesPerSecond >= 1 << 20
+                ? String.format("%.1f MiB/s", bytesPerSecond / (1 << 20))
+                : String.format("%.1f KiB/s", bytesPerSecond / 1024);
+    }
+
     // Helper methods to parse CPU and memory strings
     private double parseCpu(String cpu) {
         if (cpu.endsWith("n")) return Double.parseDouble(cpu.replace("n","")) / 1_000_000_000;
@@ -1,8 +1,8 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.RbacIndex;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.Secret;
-import io.fabric8.kubernetes.api.model.ServiceAccount;
 import io.fabric8.kubernetes.api.model.extensions.Ingress;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.quarkiverse.mcp.server.McpLog;
@@ -17,6 +17,7 @@ import java.security.cert.X509Certificate;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -25,6 +26,9 @@ public class SecurityAgent {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    RbacIndex rbac;
+
     @Tool(name = "checkImageTags", description = "Check if any container images use the ':latest' tag in the specified namespace.")
     @RunOnVirtualThread
     public String checkImageTags(
@@ -131,25 +135,23 @@ public class SecurityAgent {
         }
     }
 
-    @Tool(name = "auditServiceAccounts", description = "Analyze ServiceAccounts with elevated privileges.")
+    @Tool(name = "auditServiceAccounts", description = "Analyze ServiceAccounts with elevated privileges "
+            + "(cluster-admin equivalents, cluster-wide secret access, escalate/bind/impersonate, pod exec, nodes/proxy).")
     @RunOnVirtualThread
     public String auditServiceAccounts(McpLog log) {
 
         log.info("Invoking SecurityAgent - auditServiceAccounts");
 
         try {
-            List<ServiceAccount> sas = client.serviceAccounts().inAnyNamespace().list().getItems();
-
-            List<String> riskySAs = sas.stream()
-                    .filter(sa -> sa.getMetadata().getName() != null &&
-                            (sa.getMetadata().getName().contains("admin") || sa.getMetadata().getName().contains("cluster-admin")))
-                    .map(sa -> sa.getMetadata().getNamespace() + "/" + sa.getMetadata().getName())
-                    .collect(Collectors.toList());
+            // Privilegi effettivi calcolati sull'indice RBAC, non sul nome del ServiceAccount
+            Map<String, List<String>> riskySAs = rbac.auditServiceAccounts();
 
             if (riskySAs.isEmpty()) {
                 return "No ServiceAccounts with unnecessary elevated privileges found.";
             } else {
-                return "ServiceAccounts with potential elevated privileges: " + riskySAs;
+                return "ServiceAccounts with elevated privileges:\n" + riskySAs.entrySet().stream()
+                        .map(e -> e.getKey() + ": " + String.join("; ", e.getValue()))
+                        .collect(Collectors.joining("\n"));
             }
 
         } catch (Exception e) {
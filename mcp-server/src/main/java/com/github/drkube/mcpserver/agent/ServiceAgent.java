@@ -1,5 +1,6 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.ConnectivityMatrix;
 import io.fabric8.kubernetes.api.model.Endpoints;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
@@ -11,12 +12,16 @@ import io.quarkiverse.mcp.server.ToolArg;
 import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.ByteArrayOutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -25,6 +30,12 @@ public class ServiceAgent {
     @Inject
     KubernetesClient client;
 
+    @ConfigProperty(name = "drkube.connectivity.parallelism", defaultValue = "8")
+    int connectivityParallelism;
+
+    @ConfigProperty(name = "drkube.connectivity.timeout", defaultValue = "10s")
+    Duration connectivityTimeout;
+
     @Tool(name = "checkServiceEndpoints", description = "Verify that a Service has active and reachable endpoints.")
     @RunOnVirtualThread
     public String checkServiceEndpoints(
@@ -178,4 +189,43 @@ public class ServiceAgent {
         }
     }
 
+
+    @Tool(name = "testConnectivityMatrix", description = "Test TCP reachability from all pods matching a label selector to the backends of several Services at once. Returns a source x target matrix with reachable/total endpoints and latency.")
+    @RunOnVirtualThread
+    public String testConnectivityMatrix(
+            @ToolArg(description = "Namespace of the source pods") String namespace,
+            @ToolArg(description = "Label selector of the source pods, e.g. app=web") String sourceSelector,
+            @ToolArg(description = "Comma separated targets: service, service:port or service.namespace:port") String targets,
+            @ToolArg(description = "Maximum number of source pods to test (default 10, at most 50)", required = false) Integer maxSources,
+            McpLog log) {
+
+        log.info("Invoking ServiceAgent - testConnectivityMatrix - namespace %s sourceSelector %s targets %s", namespace, sourceSelector, targets);
+
+        try {
+            Map<String, String> labels = Arrays.stream(sourceSelector.split(","))
+                    .map(s -> s.trim().split("=", 2))
+                    .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : ""));
+            List<Pod> sources = client.pods().inNamespace(namespace).withLabels(labels).list().getItems().stream()
+                    .filter(p -> "Running".equals(p.getStatus().getPhase()))
+                    // una sessione exec per pod sorgente: il tetto evita di aprirne centinaia con un selettore largo
+                    .limit(maxSources == null ? 10 : Math.min(50, Math.max(1, maxSources)))
+                    .collect(Collectors.toList());
+            if (sources.isEmpty()) {
+                return "No running pods match '" + sourceSelector + "' in namespace '" + namespace + "'";
+            }
+
+            List<ConnectivityMatrix.Target> resolved = ConnectivityMatrix.resolve(client, namespace,
+                    Arrays.stream(targets.split(",")).map(String::trim).filter(t -> !t.isEmpty()).toList());
+
+            long start = System.nanoTime();
+            var matrix = ConnectivityMatrix.probe(client, sources, resolved, connectivityParallelism, connectivityTimeout);
+            return ConnectivityMatrix.format(resolved, matrix)
+                    + String.format("(%d sources x %d endpoints in %d ms)", sources.size(),
+                    resolved.stream().mapToInt(t -> t.endpoints().size()).sum(), (System.nanoTime() - start) / 1_000_000);
+
+        } catch (Exception e) {
+            log.error("Error testing connectivity matrix: %s", e.getMessage());
+            return "Error testing connectivity matrix: " + e.getMessage();
+        }
+    }
 }
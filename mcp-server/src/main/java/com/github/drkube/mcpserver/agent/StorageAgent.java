@@ -1,9 +1,17 @@
 package com.github.drkube.mcpserver.agent;
 
+import com.github.drkube.mcpserver.service.KubeletStats;
+import com.github.drkube.mcpserver.service.MetadataLister;
+import com.github.drkube.mcpserver.service.Quantities;
+import com.github.drkube.mcpserver.service.StorageGraph;
+import com.github.drkube.mcpserver.service.ToolBudget;
+import com.github.drkube.mcpserver.service.ToolBudgets;
+import com.github.drkube.mcpserver.service.TopK;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.PersistentVolume;
-import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.quarkiverse.mcp.server.Cancellation;
 import io.quarkiverse.mcp.server.McpLog;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
@@ -11,15 +19,33 @@ import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class StorageAgent {
 
+    // nome di namespace valido (DNS-1123 label): finisce nel path della richiesta all'API server
+    private static final Pattern NAMESPACE = Pattern.compile("[a-z0-9]([-a-z0-9]{0,61}[a-z0-9])?");
+
     @Inject
     KubernetesClient client;
 
+    @Inject
+    MetadataLister lister;
+
+    @Inject
+    StorageGraph storage;
+
+    @Inject
+    KubeletStats kubeletStats;
+
+    @Inject
+    ToolBudgets budgets;
+
     @Tool(name = "listPVCs", description = "List all PersistentVolumeClaims in a namespace.")
     @RunOnVirtualThread
     public String listPVCs(
@@ -28,18 +54,20 @@ public class StorageAgent {
 
         log.info("Invoking StorageAgent - listPVCs - namespace %s", namespace);
 
+        if (namespace == null || !NAMESPACE.matcher(namespace).matches()) {
+            return "Invalid namespace '" + namespace + "': expected a DNS-1123 label";
+        }
+
         try {
-            List<PersistentVolumeClaim> pvcs = client.persistentVolumeClaims()
-                    .inNamespace(namespace)
-                    .list()
-                    .getItems();
+            List<ObjectMeta> pvcs = lister.listMetadata(
+                    "/api/v1/namespaces/" + namespace + "/persistentvolumeclaims");
 
             if (pvcs.isEmpty()) {
                 return "No PVCs found in namespace '" + namespace + "'";
             }
 
             List<String> pvcNames = pvcs.stream()
-                    .map(pvc -> pvc.getMetadata().getName())
+                    .map(ObjectMeta::getName)
                     .collect(Collectors.toList());
 
             return "PVCs in namespace '" + namespace + "': " + pvcNames;
@@ -100,4 +128,129 @@ public class StorageAgent {
             return "Error listing PVs: " + e.getMessage();
         }
     }
+
+    @Tool(name = "findStorageOrphans", description = "Find storage problems in one pass: Released/Failed/unclaimed PVs, PVs bound to missing PVCs or pinned to missing nodes, Pending/Lost PVCs, PVCs not mounted by any pod and pods referencing missing PVCs.")
+    @RunOnVirtualThread
+    public String findStorageOrphans(
+            @ToolArg(description = "Namespace to restrict the check to (optional, default whole cluster)", required = false) String namespace,
+            McpLog log) {
+
+        log.info("Invoking StorageAgent - findStorageOrphans - namespace %s", namespace);
+
+        try {
+            List<String> findings = storage.orphans(namespace == null || namespace.isBlank() ? null : namespace);
+            if (findings.isEmpty()) {
+                return "No orphaned or unbound storage found" + (namespace != null && !namespace.isBlank() ? " in namespace '" + namespace + "'" : "");
+            }
+            return findings.size() + " storage findings:\n" + String.join("\n", findings);
+
+        } catch (Exception e) {
+            log.error("Error finding storage orphans: %s", e.getMessage());
+            return "Error finding storage orphans: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getStorageCapacityByClass", description = "Total PV capacity (bound, available, released) and PVC requests grouped by StorageClass, with provisioner, reclaim policy and binding mode.")
+    @RunOnVirtualThread
+    public String getStorageCapacityByClass(McpLog log) {
+
+        log.info("Invoking StorageAgent - getStorageCapacityByClass");
+
+        try {
+            List<StorageGraph.ClassCapacity> classes = storage.capacityByClass();
+            if (classes.isEmpty()) {
+                return "No StorageClasses, PVs or PVCs found in the cluster.";
+            }
+            return classes.stream().map(StorageGraph.ClassCapacity::format).collect(Collectors.joining("\n"));
+
+        } catch (Exception e) {
+            log.error("Error computing storage capacity: %s", e.getMessage());
+            return "Error computing storage capacity: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "checkAccessModeConflicts", description = "Find PVCs mounted in a way their access modes do not allow: ReadWriteOnce volumes used from several nodes (Multi-Attach), ReadWriteOncePod used by several pods, modes not offered by the bound PV, ReadOnlyMany mounted read-write.")
+    @RunOnVirtualThread
+    public String checkAccessModeConflicts(
+            @ToolArg(description = "Namespace to restrict the check to (optional, default whole cluster)", required = false) String namespace,
+            McpLog log) {
+
+        log.info("Invoking StorageAgent - checkAccessModeConflicts - namespace %s", namespace);
+
+        try {
+            List<String> conflicts = storage.accessModeConflicts(namespace == null || namespace.isBlank() ? null : namespace);
+            if (conflicts.isEmpty()) {
+                return "No access mode conflicts found";
+            }
+            return String.join("\n", conflicts);
+
+        } catch (Exception e) {
+            log.error("Error checking access modes: %s", e.getMessage());
+            return "Error checking access modes: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getVolumeTopology", description = "Show the full chain for a volume: PVC, bound PV, StorageClass, and the pods (with their nodes) that mount it. Pass a namespace for a PVC name, omit it for a PV name.")
+    @RunOnVirtualThread
+    public String getVolumeTopology(
+            @ToolArg(description = "PVC name (with namespace) or PV name (without namespace)") String name,
+            @ToolArg(description = "Namespace of the PVC (omit when passing a PV name)", required = false) String namespace,
+            McpLog log) {
+
+        log.info("Invoking StorageAgent - getVolumeTopology - name %s namespace %s", name, namespace);
+
+        try {
+            boolean claim = namespace != null && !namespace.isBlank();
+            List<String> lines = storage.topology(claim ? namespace : null, name);
+            if (lines.isEmpty()) {
+                return claim ? "PVC '" + name + "' not found in namespace '" + namespace + "'" : "PV '" + name + "' not found";
+            }
+            return String.join("\n", lines);
+
+        } catch (Exception e) {
+            log.error("Error getting volume topology: %s", e.getMessage());
+            return "Error getting volume topology: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getPVCVolumeUsage", description = "Actual filesystem usage of mounted PVCs (used/capacity bytes and inodes) read from the kubelets, fullest first. Use it for disk-full questions.")
+    @RunOnVirtualThread
+    public String getPVCVolumeUsage(
+            @ToolArg(description = "Namespace to restrict to (optional, default whole cluster)", required = false) String namespace,
+            @ToolArg(description = "Only show volumes at least this full, in percent (default 0)", required = false) Integer minPercent,
+            @ToolArg(description = "Number of volumes to return (default 20)", required = false) Integer k,
+            McpLog log,
+            Cancellation cancellation) {
+
+        log.info("Invoking StorageAgent - getPVCVolumeUsage - namespace %s minPercent %s k %s", namespace, minPercent, k);
+
+        try (ToolBudget budget = budgets.start(cancellation)) {
+            KubeletStats.Scrape scrape = kubeletStats.scrape(budget);
+            TopK<String> top = new TopK<>(k == null ? 20 : Math.max(1, k));
+            Set<String> seen = new HashSet<>();
+            for (KubeletStats.PodStats pod : scrape.pods()) {
+                for (KubeletStats.VolumeStats volume : pod.volumes()) {
+                    // una PVC RWX montata da più pod compare una volta per pod
+                    if (volume.pvcName() == null || volume.capacity() == 0
+                            || (namespace != null && !namespace.isBlank() && !namespace.equals(volume.pvcNamespace()))
+                            || volume.usedPercent() < (minPercent == null ? 0 : minPercent)
+                            || !seen.add(volume.pvcNamespace() + "/" + volume.pvcName())) {
+                        continue;
+                    }
+                    top.offer((long) (volume.usedPercent() * 100), String.format("%s/%s: %.1f%% used (%s of %s, %s free), inodes %d/%d, mounted by %s on %s",
+                            volume.pvcNamespace(), volume.pvcName(), volume.usedPercent(),
+                            Quantities.formatBytes(volume.used()), Quantities.formatBytes(volume.capacity()),
+                            Quantities.formatBytes(volume.available()), volume.inodesUsed(), volume.inodes(), pod.key(), pod.node()));
+                }
+            }
+            if (top.size() == 0) {
+                return "No matching PVC volumes reported by the kubelets.\n" + scrape.failures();
+            }
+            return String.join("\n", top.sortedDescending()) + "\n" + scrape.failures();
+
+        } catch (Exception e) {
+            log.error("Error reading PVC volume usage: %s", e.getMessage());
+            return "Error reading PVC volume usage: " + e.getMessage();
+        }
+    }
 }
@@ -0,0 +1,210 @@
+package com.github.drkube.mcpserver.agent;
+
+import com.github.drkube.mcpserver.service.Paging;
+import com.github.drkube.mcpserver.service.WorkloadGraph;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.quarkiverse.mcp.server.McpLog;
+import io.quarkiverse.mcp.server.Tool;
+import io.quarkiverse.mcp.server.ToolArg;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+public class WorkloadAgent {
+
+    @Inject
+    KubernetesClient client;
+
+    @Inject
+    WorkloadGraph workloads;
+
+    @Tool(name = "getWorkloadStatus", description = "Health of a whole workload (Deployment, StatefulSet, DaemonSet, Job, CronJob, ReplicaSet) in one call: rollout status, replica readiness, ReplicaSet revisions, not-ready pods and aggregated container restarts.")
+    @RunOnVirtualThread
+    public String getWorkloadStatus(
+            @ToolArg(description = "Namespace of the workload") String namespace,
+            @ToolArg(description = "Kind: deployment, statefulset, daemonset, job, cronjob, replicaset") String kind,
+            @ToolArg(description = "Name of the workload") String name,
+            McpLog log) {
+
+        log.info("Invoking WorkloadAgent - getWorkloadStatus - namespace %s kind %s name %s", namespace, kind, name);
+
+        try {
+            WorkloadGraph.Node node = workloads.find(WorkloadGraph.parseKind(kind), namespace, name);
+            if (node == null) {
+                return kind + " '" + name + "' not found in namespace '" + namespace + "'";
+            }
+
+            StringBuilder sb = new StringBuilder(node.format()).append('\n');
+            List<WorkloadGraph.Node> chain = workloads.ancestors(node);
+            if (chain.size() > 1) {
+                sb.append("Owned by: ").append(chain.subList(1, chain.size()).stream()
+                        .map(WorkloadGraph.Node::ref).collect(Collectors.joining(" <- "))).append('\n');
+            }
+
+            List<WorkloadGraph.Node> intermediate = workloads.children(node).stream()
+                    .filter(c -> !"Pod".equals(c.kind()))
+                    .collect(Collectors.toList());
+            long inactive = intermediate.stream().filter(c -> c.desired() == 0 && c.ready() == 0).count();
+            for (WorkloadGraph.Node child : intermediate) {
+                if (child.desired() > 0 || child.ready() > 0 || "Job".equals(child.kind())) {
+                    sb.append("  ").append(child.format()).append('\n');
+                }
+            }
+            if (inactive > 0 && !"CronJob".equals(node.kind())) {
+                sb.append("  (").append(inactive).append(" older ").append(intermediate.get(0).kind()).append("s scaled to zero)\n");
+            }
+
+            List<WorkloadGraph.Node> pods = workloads.pods(node);
+            int ready = 0;
+            int restarts = 0;
+            List<WorkloadGraph.Node> unhealthy = new ArrayList<>();
+            for (WorkloadGraph.Node pod : pods) {
+                ready += pod.ready();
+                restarts += pod.restarts();
+                if (!pod.healthy()) {
+                    unhealthy.add(pod);
+                }
+            }
+            sb.append("Pods: ").append(ready).append('/').append(pods.size()).append(" ready, ")
+                    .append(restarts).append(" restarts in total\n");
+            unhealthy.stream().limit(10).forEach(p -> sb.append("  not ready: ").append(p.format()).append('\n'));
+            pods.stream()
+                    .filter(p -> p.restarts() > 0)
+                    .sorted(Comparator.comparingInt(WorkloadGraph.Node::restarts).reversed())
+                    .limit(5)
+                    .forEach(p -> sb.append("  restarts: ").append(p.name()).append(" ").append(p.restarts()).append('\n'));
+            return sb.toString();
+
+        } catch (Exception e) {
+            log.error("Error getting workload status: %s", e.getMessage());
+            return "Error getting workload status: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getWorkloadEvents", description = "Events of a workload and everything it owns (ReplicaSets, Jobs, pods), aggregated by reason and object kind, most recent first.")
+    @RunOnVirtualThread
+    public String getWorkloadEvents(
+            @ToolArg(description = "Namespace of the workload") String namespace,
+            @ToolArg(description = "Kind: deployment, statefulset, daemonset, job, cronjob, replicaset, pod") String kind,
+            @ToolArg(description = "Name of the workload") String name,
+            @ToolArg(description = "Maximum number of aggregated entries (default 20)", required = false) Integer limit,
+            McpLog log) {
+
+        log.info("Invoking WorkloadAgent - getWorkloadEvents - namespace %s kind %s name %s", namespace, kind, name);
+
+        try {
+            WorkloadGraph.Node node = workloads.find(WorkloadGraph.parseKind(kind), namespace, name);
+            if (node == null) {
+                return kind + " '" + name + "' not found in namespace '" + namespace + "'";
+            }
+            Set<String> uids = new HashSet<>();
+            uids.add(node.uid());
+            workloads.descendants(node).forEach(d -> uids.add(d.uid()));
+
+            // una sola lista degli eventi del namespace, filtrata sugli uid del sottoalbero
+            List<Event> events = new ArrayList<>();
+            Paging.forEach(o -> client.v1().events().inNamespace(namespace).list(o), e -> {
+                if (e.getInvolvedObject() != null && uids.contains(e.getInvolvedObject().getUid())) {
+                    events.add(e);
+                }
+            });
+            if (events.isEmpty()) {
+                return "No events found for " + node.ref() + " and its " + (uids.size() - 1) + " owned objects";
+            }
+
+            Map<String, int[]> counts = new LinkedHashMap<>();
+            Map<String, String> messages = new LinkedHashMap<>();
+            events.stream()
+                    .sorted(Comparator.comparing(WorkloadAgent::timestamp).reversed())
+                    .forEach(e -> {
+                        String key = e.getType() + " " + e.getReason() + " on " + e.getInvolvedObject().getKind();
+                        counts.computeIfAbsent(key, k -> new int[2]);
+                        counts.get(key)[0] += e.getCount() != null ? e.getCount() : 1;
+                        counts.get(key)[1]++;
+                        messages.putIfAbsent(key, e.getInvolvedObject().getName() + ": " + e.getMessage());
+                    });
+
+            StringBuilder sb = new StringBuilder("Events for ").append(node.ref()).append(" (")
+                    .append(uids.size() - 1).append(" owned objects):\n");
+            counts.entrySet().stream().limit(limit == null ? 20 : Math.max(1, limit)).forEach(entry -> sb
+                    .append("- ").append(entry.getKey()).append(" x").append(entry.getValue()[0])
+                    .append(" (").append(entry.getValue()[1]).append(" objects), latest ")
+                    .append(messages.get(entry.getKey())).append('\n'));
+            return sb.toString();
+
+        } catch (Exception e) {
+            log.error("Error getting workload events: %s", e.getMessage());
+            return "Error getting workload events: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "getPodOwnerChain", description = "Map a pod back to the workload that manages it, e.g. Pod <- ReplicaSet <- Deployment, with the status of each level.")
+    @RunOnVirtualThread
+    public String getPodOwnerChain(
+            @ToolArg(description = "Namespace of the pod") String namespace,
+            @ToolArg(description = "Pod name") String podName,
+            McpLog log) {
+
+        log.info("Invoking WorkloadAgent - getPodOwnerChain - namespace %s podName %s", namespace, podName);
+
+        try {
+            WorkloadGraph.Node pod = workloads.find("Pod", namespace, podName);
+            if (pod == null) {
+                return "Pod '" + podName + "' not found in namespace '" + namespace + "'";
+            }
+            List<WorkloadGraph.Node> chain = workloads.ancestors(pod);
+            if (chain.size() == 1) {
+                return pod.format() + "\nThe pod has no controller (bare pod).";
+            }
+            return chain.stream().map(WorkloadGraph.Node::format).collect(Collectors.joining("\n  <- "));
+
+        } catch (Exception e) {
+            log.error("Error getting pod owner chain: %s", e.getMessage());
+            return "Error getting pod owner chain: " + e.getMessage();
+        }
+    }
+
+    @Tool(name = "listUnhealthyWorkloads", description = "List top-level workloads (Deployments, StatefulSets, DaemonSets, Jobs, CronJobs) that are not fully rolled out or ready, or whose job failed.")
+    @RunOnVirtualThread
+    public String listUnhealthyWorkloads(
+            @ToolArg(description = "Namespace (optional, default all namespaces)", required = false) String namespace,
+            McpLog log) {
+
+        log.info("Invoking WorkloadAgent - listUnhealthyWorkloads - namespace %s", namespace);
+
+        try {
+            List<WorkloadGraph.Node> roots = workloads.roots(namespace == null || namespace.isBlank() ? null : namespace);
+            List<String> unhealthy = roots.stream()
+                    .filter(n -> !n.healthy())
+                    .sorted(Comparator.comparing(WorkloadGraph.Node::ref))
+                    .map(WorkloadGraph.Node::format)
+                    .collect(Collectors.toList());
+            if (unhealthy.isEmpty()) {
+                return "All " + roots.size() + " workloads are healthy";
+            }
+            return unhealthy.size() + " of " + roots.size() + " workloads unhealthy:\n" + String.join("\n", unhealthy);
+
+        } catch (Exception e) {
+            log.error("Error listing unhealthy workloads: %s", e.getMessage());
+            return "Error listing unhealthy workloads: " + e.getMessage();
+        }
+    }
+
+    private static String timestamp(Event e) {
+        if (e.getLastTimestamp() != null) {
+            return e.getLastTimestamp();
+        }
+        return e.getEventTime() != null && e.getEventTime().getTime() != null ? e.getEventTime().getTime() : "";
+    }
+}
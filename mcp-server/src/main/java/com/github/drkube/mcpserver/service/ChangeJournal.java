@@ -0,0 +1,343 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeCondition;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodSpec;
+import io.fabric8.kubernetes.api.model.Taint;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ChangeJournal — registro delle modifiche per tipo di risorsa alimentato dagli informer condivisi,
+ * per rispondere a "cosa è cambiato dal cursore X" senza rileggere e confrontare tutto lo stato.
+ * <p>
+ * Di ogni oggetto si tiene solo un'impronta dei campi interessanti (fase, readiness, restart,
+ * immagini, repliche, condizioni...): un update che non li tocca (heartbeat, managedFields, resync)
+ * non produce voci. Le voci stanno in un buffer circolare di capacità fissa per tipo, così un tipo
+ * rumoroso come Pod non spinge fuori le modifiche ai Node. Il cursore è il numero di sequenza
+ * globale dell'ultima voce letta; se nel frattempo il buffer di un tipo ha sovrascritto voci
+ * successive al cursore la risposta lo segnala.
+ * <p>
+ * Al riavvio degli informer (client sostituito) ogni oggetto torna come add: viene confrontato con
+ * l'impronta nota e registrato solo se è davvero cambiato. Gli oggetti spariti durante il cambio
+ * non ricevono un delete: dopo la nuova sync le loro impronte vengono scartate e registrate come
+ * DELETED, così la mappa delle impronte resta grande quanto il cluster.
+ * <p>
+ * Il numero di sequenza viene assegnato e la voce aggiunta al buffer sotto lo stesso lock: gli
+ * informer dei vari tipi scrivono da thread diversi, e un cursore non deve mai superare una voce
+ * non ancora visibile, altrimenti quella voce non arriverebbe più al client.
+ */
+@ApplicationScoped
+public class ChangeJournal {
+
+    public enum Type {ADDED, MODIFIED, DELETED}
+
+    /**
+     * Voce del journal: diff contiene "campo: vecchio → nuovo" per i soli campi cambiati.
+     */
+    public record Change(long seq, Instant at, String kind, String namespace, String name, Type type,
+                         String resourceVersion, List<String> diff) {
+
+        public String format() {
+            String object = kind + " " + (namespace != null ? namespace + "/" : "") + name;
+            return String.format("%s %s %s%s", at, type, object, diff.isEmpty() ? "" : " " + diff);
+        }
+    }
+
+    public record Delta(List<Change> changes, String cursor, List<String> truncatedKinds, boolean more) {
+    }
+
+    @Inject
+    InformerRegistry informers;
+
+    @ConfigProperty(name = "drkube.journal.capacity", defaultValue = "2000")
+    int capacity;
+
+    private final Object appendLock = new Object();
+    private long sequence; // protetto da appendLock
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final Map<String, Class<? extends HasMetadata>> types = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Map<String, String>>> fingerprints = new ConcurrentHashMap<>();
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private volatile Instant startedAt;
+
+    /**
+     * Buffer circolare a capacità fissa; written conta tutte le voci mai scritte, evictedSeq è la
+     * sequenza dell'ultima voce sovrascritta. Le sequenze sono globali, quindi in un buffer non sono
+     * consecutive: la perdita di voci si riconosce solo da evictedSeq.
+     */
+    private static final class Ring {
+        final Change[] buffer;
+        long written;
+        long evictedSeq;
+
+        Ring(int capacity) {
+            buffer = new Change[capacity];
+        }
+
+        synchronized void add(Change change) {
+            int index = (int) (written++ % buffer.length);
+            if (buffer[index] != null) {
+                evictedSeq = buffer[index].seq();
+            }
+            buffer[index] = change;
+        }
+
+        /**
+         * Voci con seq > cursor; truncated[0] diventa true se qualcuna è già stata sovrascritta.
+         */
+        synchronized List<Change> since(long cursor, boolean[] truncated) {
+            List<Change> result = new ArrayList<>();
+            long oldest = Math.max(0, written - buffer.length);
+            for (long i = oldest; i < written; i++) {
+                Change change = buffer[(int) (i % buffer.length)];
+                if (change.seq() > cursor) {
+                    result.add(change);
+                }
+            }
+            if (evictedSeq > cursor) {
+                truncated[0] = true;
+            }
+            return result;
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        if (startedAt != null) {
+            return;
+        }
+        startedAt = Instant.now();
+        watch(Pod.class, ChangeJournal::podFields);
+        watch(Deployment.class, d -> workloadFields(d.getSpec().getReplicas(), d.getStatus() != null ? d.getStatus().getReadyReplicas() : null,
+                d.getStatus() != null ? d.getStatus().getUpdatedReplicas() : null, d.getSpec().getTemplate().getSpec(),
+                d.getMetadata().getGeneration()));
+        watch(StatefulSet.class, s -> workloadFields(s.getSpec().getReplicas(), s.getStatus() != null ? s.getStatus().getReadyReplicas() : null,
+                s.getStatus() != null ? s.getStatus().getUpdatedReplicas() : null, s.getSpec().getTemplate().getSpec(),
+                s.getMetadata().getGeneration()));
+        watch(DaemonSet.class, d -> workloadFields(d.getStatus() != null ? d.getStatus().getDesiredNumberScheduled() : null,
+                d.getStatus() != null ? d.getStatus().getNumberReady() : null,
+                d.getStatus() != null ? d.getStatus().getUpdatedNumberScheduled() : null, d.getSpec().getTemplate().getSpec(),
+                d.getMetadata().getGeneration()));
+        watch(Job.class, ChangeJournal::jobFields);
+        watch(Node.class, ChangeJournal::nodeFields);
+    }
+
+    private <T extends HasMetadata> void watch(Class<T> type, Function<T, Map<String, String>> fields) {
+        String kind = type.getSimpleName();
+        rings.put(kind, new Ring(capacity));
+        types.put(kind, type);
+        fingerprints.put(kind, new ConcurrentHashMap<>());
+        informers.addHandler(type, InformerRegistry.handler(
+                obj -> upsert(kind, obj, fields.apply(obj)),
+                obj -> delete(kind, obj)));
+    }
+
+    private void upsert(String kind, HasMetadata obj, Map<String, String> current) {
+        Map<String, String> previous = fingerprints.get(kind).put(key(obj), current);
+        if (previous == null) {
+            // gli oggetti già presenti all'avvio del journal sono la baseline, non aggiunte
+            String created = obj.getMetadata().getCreationTimestamp();
+            if (created != null && Instant.parse(created).isBefore(startedAt)) {
+                return;
+            }
+            record(kind, obj, Type.ADDED, current.entrySet().stream()
+                    .map(e -> e.getKey() + ": " + e.getValue())
+                    .toList());
+            return;
+        }
+        List<String> diff = new ArrayList<>();
+        current.forEach((field, value) -> {
+            String old = previous.get(field);
+            if (!Objects.equals(old, value)) {
+                diff.add(field + ": " + old + " → " + value);
+            }
+        });
+        if (!diff.isEmpty()) {
+            record(kind, obj, Type.MODIFIED, diff);
+        }
+    }
+
+    private void delete(String kind, HasMetadata obj) {
+        fingerprints.get(kind).remove(key(obj));
+        record(kind, obj, Type.DELETED, List.of());
+    }
+
+    private static String key(HasMetadata obj) {
+        return Objects.toString(obj.getMetadata().getNamespace(), "") + "/" + obj.getMetadata().getName();
+    }
+
+    private void record(String kind, HasMetadata obj, Type type, List<String> diff) {
+        record(kind, obj.getMetadata().getNamespace(), obj.getMetadata().getName(), obj.getMetadata().getResourceVersion(),
+                type, diff);
+    }
+
+    private void record(String kind, String namespace, String name, String resourceVersion, Type type, List<String> diff) {
+        synchronized (appendLock) {
+            rings.get(kind).add(new Change(++sequence, Instant.now(), kind, namespace, name, type, resourceVersion, diff));
+        }
+    }
+
+    /**
+     * Sequenza dell'ultima voce scritta: tutte le voci fino a questa sono già nei buffer.
+     */
+    private long lastSequence() {
+        synchronized (appendLock) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Dopo il riavvio degli informer sul nuovo client (l'observer di {@link InformerRegistry} viene
+     * chiamato prima) scarta le impronte degli oggetti che non esistono più.
+     */
+    void onClientSwapped(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) KubernetesClientSwapped event) {
+        if (startedAt == null) {
+            return;
+        }
+        types.forEach((kind, type) -> prune(kind, type));
+    }
+
+    private <T extends HasMetadata> void prune(String kind, Class<T> type) {
+        if (!informers.hasSynced(type)) {
+            // store ancora parziale: meglio tenere qualche impronta in più che inventare cancellazioni
+            return;
+        }
+        Set<String> live = informers.list(type).stream().map(ChangeJournal::key).collect(Collectors.toSet());
+        Map<String, Map<String, String>> known = fingerprints.get(kind);
+        for (String key : List.copyOf(known.keySet())) {
+            if (!live.contains(key) && known.remove(key) != null) {
+                int slash = key.indexOf('/');
+                record(kind, slash > 0 ? key.substring(0, slash) : null, key.substring(slash + 1), null, Type.DELETED, List.of());
+            }
+        }
+    }
+
+    public Set<String> kinds() {
+        ensureStarted();
+        return rings.keySet();
+    }
+
+    /**
+     * Cursore che punta a "adesso": da usare come baseline.
+     */
+    public String cursor() {
+        ensureStarted();
+        return epoch + "." + lastSequence();
+    }
+
+    /**
+     * Modifiche successive al cursore, filtrate per tipo e namespace, in ordine di sequenza.
+     * Un cursore di un'altra istanza del server viene rifiutato con IllegalArgumentException.
+     */
+    public Delta since(String cursor, Set<String> kinds, String namespace, int limit) {
+        ensureStarted();
+        int dot = cursor.indexOf('.');
+        if (dot < 0 || !epoch.equals(cursor.substring(0, dot))) {
+            throw new IllegalArgumentException("cursor '" + cursor + "' is not valid for this server; call without a cursor to get a new baseline");
+        }
+        long from = Long.parseLong(cursor.substring(dot + 1));
+        // le voci scritte durante la lettura dei buffer potrebbero mancare in quelli già letti: oltre non si va
+        long upto = lastSequence();
+
+        List<Change> changes = new ArrayList<>();
+        List<String> truncated = new ArrayList<>();
+        rings.forEach((kind, ring) -> {
+            if (kinds != null && !kinds.contains(kind)) {
+                return;
+            }
+            boolean[] lost = new boolean[1];
+            ring.since(from, lost).stream()
+                    .filter(c -> c.seq() <= upto && (namespace == null || namespace.equals(c.namespace())))
+                    .forEach(changes::add);
+            if (lost[0]) {
+                truncated.add(kind);
+            }
+        });
+        changes.sort(Comparator.comparingLong(Change::seq));
+
+        boolean more = changes.size() > limit;
+        List<Change> page = more ? changes.subList(0, limit) : changes;
+        long next = page.isEmpty() ? Math.max(from, upto) : page.get(page.size() - 1).seq();
+        return new Delta(List.copyOf(page), epoch + "." + next, truncated, more);
+    }
+
+    // --- impronte dei campi interessanti --------------------------------------------------
+
+    private static Map<String, String> podFields(Pod pod) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("phase", pod.getStatus() != null ? pod.getStatus().getPhase() : null);
+        fields.put("node", pod.getSpec().getNodeName());
+        List<ContainerStatus> statuses = pod.getStatus() != null && pod.getStatus().getContainerStatuses() != null
+                ? pod.getStatus().getContainerStatuses() : List.of();
+        fields.put("ready", statuses.stream().filter(s -> Boolean.TRUE.equals(s.getReady())).count() + "/" + pod.getSpec().getContainers().size());
+        fields.put("restarts", String.valueOf(statuses.stream().mapToInt(s -> s.getRestartCount() != null ? s.getRestartCount() : 0).sum()));
+        fields.put("state", statuses.stream()
+                .filter(s -> s.getState() != null && (s.getState().getWaiting() != null || s.getState().getTerminated() != null))
+                .map(s -> s.getName() + "=" + (s.getState().getWaiting() != null
+                        ? s.getState().getWaiting().getReason() : s.getState().getTerminated().getReason()))
+                .collect(Collectors.joining(",")));
+        fields.put("images", images(pod.getSpec()));
+        return fields;
+    }
+
+    private static Map<String, String> workloadFields(Integer desired, Integer ready, Integer updated, PodSpec template, Long generation) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("replicas", String.valueOf(desired));
+        fields.put("ready", String.valueOf(ready != null ? ready : 0));
+        fields.put("updated", String.valueOf(updated != null ? updated : 0));
+        fields.put("images", images(template));
+        fields.put("generation", String.valueOf(generation));
+        return fields;
+    }
+
+    private static Map<String, String> jobFields(Job job) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("active", job.getStatus() != null ? String.valueOf(job.getStatus().getActive()) : null);
+        fields.put("succeeded", job.getStatus() != null ? String.valueOf(job.getStatus().getSucceeded()) : null);
+        fields.put("failed", job.getStatus() != null ? String.valueOf(job.getStatus().getFailed()) : null);
+        return fields;
+    }
+
+    private static Map<String, String> nodeFields(Node node) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        if (node.getStatus() != null && node.getStatus().getConditions() != null) {
+            for (NodeCondition condition : node.getStatus().getConditions()) {
+                fields.put(condition.getType(), condition.getStatus());
+            }
+        }
+        fields.put("unschedulable", String.valueOf(Boolean.TRUE.equals(node.getSpec().getUnschedulable())));
+        List<Taint> taints = node.getSpec().getTaints() != null ? node.getSpec().getTaints() : List.of();
+        fields.put("taints", taints.stream()
+                .map(t -> t.getKey() + (t.getValue() != null ? "=" + t.getValue() : "") + ":" + t.getEffect())
+                .collect(Collectors.joining(",")));
+        return fields;
+    }
+
+    private static String images(PodSpec spec) {
+        return spec.getContainers().stream().map(Container::getImage).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Endpoints;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.Namespaced;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.PersistentVolume;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceAccount;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.storage.StorageClass;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * ClusterSnapshot — fotografia su file di tutto lo stato letto dagli agent, per la diagnosi
+ * a posteriori e per il replay offline.
+ * <p>
+ * Formato: magic "DRKSNAP1", istante di cattura, indice delle sezioni (nome, offset, lunghezza,
+ * numero di oggetti) e poi una sezione per tipo di risorsa, ciascuna una KubernetesList JSON
+ * compressa con deflate. In lettura il file viene mappato in memoria e si decomprime solo la
+ * sezione richiesta. Dei Secret si salvano metadata e nomi delle chiavi, mai i valori.
+ */
+public final class ClusterSnapshot {
+
+    private static final byte[] MAGIC = "DRKSNAP1".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Tipi catturati, nell'ordine in cui vengono ricreati in replay (prima i namespace).
+     */
+    private static final List<Class<? extends HasMetadata>> TYPES = List.of(
+            Namespace.class, Node.class, StorageClass.class, PersistentVolume.class, PersistentVolumeClaim.class,
+            ConfigMap.class, Secret.class, ServiceAccount.class, Service.class, Endpoints.class, Ingress.class,
+            Deployment.class, ReplicaSet.class, StatefulSet.class, DaemonSet.class, Job.class, Pod.class, Event.class,
+            Role.class, ClusterRole.class, RoleBinding.class, ClusterRoleBinding.class);
+
+    public record Section(String name, long offset, int length, int items) {
+    }
+
+    private final MappedByteBuffer buffer;
+    private final long capturedAt;
+    private final Map<String, Section> sections;
+
+    private ClusterSnapshot(MappedByteBuffer buffer, long capturedAt, Map<String, Section> sections) {
+        this.buffer = buffer;
+        this.capturedAt = capturedAt;
+        this.sections = sections;
+    }
+
+    // --- cattura ---------------------------------------------------------------------------
+
+    /**
+     * Legge lo stato del cluster e lo scrive in file (prima su un temporaneo, poi rinominato).
+     */
+    public static Map<String, Section> capture(KubernetesClient client, Path file) throws IOException {
+        KubernetesSerialization serialization = client.getKubernetesSerialization();
+        Map<String, List<HasMetadata>> data = new LinkedHashMap<>();
+        for (Class<? extends HasMetadata> type : TYPES) {
+            data.put(type.getSimpleName(), list(client, type));
+        }
+        data.put("PodMetrics", optional(() -> new ArrayList<>(client.top().pods().metrics().getItems())));
+        data.put("NodeMetrics", optional(() -> new ArrayList<>(client.top().nodes().metrics().getItems())));
+        data.get("Secret").forEach(secret -> redact((Secret) secret));
+
+        List<String> names = new ArrayList<>(data.keySet());
+        List<byte[]> blobs = new ArrayList<>();
+        for (List<HasMetadata> items : data.values()) {
+            blobs.add(deflate(serialization.asJson(new KubernetesListBuilder().withItems(items).build())));
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.write(MAGIC);
+        header.writeLong(System.currentTimeMillis());
+        header.writeInt(names.size());
+        int tocSize = 0;
+        for (String name : names) {
+            tocSize += 2 + name.getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4;
+        }
+        long offset = MAGIC.length + 8 + 4 + tocSize;
+        Map<String, Section> written = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            Section section = new Section(names.get(i), offset, blobs.get(i).length, data.get(names.get(i)).size());
+            header.writeUTF(section.name());
+            header.writeLong(section.offset());
+            header.writeInt(section.length());
+            header.writeInt(section.items());
+            written.put(section.name(), section);
+            offset += section.length();
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            out.write(headerBytes.toByteArray());
+            for (byte[] blob : blobs) {
+                out.write(blob);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    private static List<HasMetadata> list(KubernetesClient client, Class<? extends HasMetadata> type) {
+        List<HasMetadata> items = new ArrayList<>();
+        if (Namespaced.class.isAssignableFrom(type)) {
+            Paging.forEach(o -> client.resources(type).inAnyNamespace().list(o), items::add);
+        } else {
+            Paging.forEach(o -> client.resources(type).list(o), items::add);
+        }
+        return items;
+    }
+
+    private static List<HasMetadata> optional(Supplier<List<HasMetadata>> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            // metrics-server assente: la sezione resta vuota
+            return List.of();
+        }
+    }
+
+    private static void redact(Secret secret) {
+        if (secret.getData() != null) {
+            secret.getData().replaceAll((key, value) -> "");
+        }
+        secret.setStringData(null);
+        if (secret.getMetadata().getAnnotations() != null) {
+            secret.getMetadata().getAnnotations().remove("kubectl.kubernetes.io/last-applied-configuration");
+        }
+    }
+
+    private static byte[] deflate(String json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED))) {
+            deflater.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    // --- lettura ---------------------------------------------------------------------------
+
+    public static ClusterSnapshot open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException(file + " is not a drkube snapshot");
+        }
+        long capturedAt = buffer.getLong();
+        int count = buffer.getInt();
+        Map<String, Section> sections = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            Section section = new Section(new String(name, StandardCharsets.UTF_8), buffer.getLong(), buffer.getInt(), buffer.getInt());
+            sections.put(section.name(), section);
+        }
+        return new ClusterSnapshot(buffer, capturedAt, sections);
+    }
+
+    public long capturedAt() {
+        return capturedAt;
+    }
+
+    public Map<String, Section> sections() {
+        return sections;
+    }
+
+    /**
+     * Decomprime e deserializza una sola sezione.
+     */
+    public List<HasMetadata> read(String section, KubernetesSerialization serialization) throws IOException {
+        Section s = sections.get(section);
+        if (s == null || s.items() == 0) {
+            return List.of();
+        }
+        ByteBuffer slice = buffer.slice((int) s.offset(), s.length());
+        Inflater inflater = new Inflater();
+        inflater.setInput(slice);
+        ByteArrayOutputStream json = new ByteArrayOutputStream(s.length() * 4);
+        byte[] chunk = new byte[64 * 1024];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IOException("truncated section " + section);
+                }
+                json.write(chunk, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupted section " + section, e);
+        } finally {
+            inflater.end();
+        }
+        return serialization.unmarshal(json.toString(StandardCharsets.UTF_8), KubernetesList.class).getItems();
+    }
+
+    /**
+     * Ricrea tutti gli oggetti della fotografia tramite il client dato (il mock server del replay).
+     */
+    public int replayInto(KubernetesClient target) throws IOException {
+        int created = 0;
+        for (String section : sections.keySet()) {
+            for (HasMetadata item : read(section, target.getKubernetesSerialization())) {
+                item.getMetadata().setResourceVersion(null);
+                target.resource(item).create();
+                created++;
+            }
+        }
+        return created;
+    }
+}
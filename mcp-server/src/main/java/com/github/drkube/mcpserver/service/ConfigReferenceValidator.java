@@ -0,0 +1,173 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.EnvFromSource;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.KeyToPath;
+import io.fabric8.kubernetes.api.model.LocalObjectReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.Volume;
+import io.fabric8.kubernetes.api.model.VolumeProjection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ConfigReferenceValidator — verifica in un solo passaggio i riferimenti dei pod a ConfigMap e Secret
+ * (env valueFrom, envFrom, volumi configMap/secret/projected, imagePullSecrets) contro un indice
+ * dei nomi delle chiavi esistenti.
+ * <p>
+ * Dei Secret si tengono solo i nomi delle chiavi: i valori vengono scartati appena letti.
+ */
+public final class ConfigReferenceValidator {
+
+    /**
+     * Riferimento rotto; key è null quando manca l'intero oggetto.
+     */
+    public record BrokenReference(String namespace, String pod, String kind, String name, String key,
+                                  String usedBy) {
+
+        public String problem() {
+            return key == null
+                    ? kind + " '" + name + "' not found"
+                    : kind + " '" + name + "' has no key '" + key + "'";
+        }
+    }
+
+    private final Map<String, Set<String>> configMapKeys = new HashMap<>();
+    private final Map<String, Set<String>> secretKeys = new HashMap<>();
+
+    public void addConfigMap(ConfigMap configMap) {
+        Set<String> keys = new HashSet<>();
+        if (configMap.getData() != null) {
+            keys.addAll(configMap.getData().keySet());
+        }
+        if (configMap.getBinaryData() != null) {
+            keys.addAll(configMap.getBinaryData().keySet());
+        }
+        configMapKeys.put(key(configMap.getMetadata().getNamespace(), configMap.getMetadata().getName()), keys);
+    }
+
+    public void addSecret(Secret secret) {
+        Set<String> keys = new HashSet<>();
+        if (secret.getData() != null) {
+            keys.addAll(secret.getData().keySet());
+        }
+        if (secret.getStringData() != null) {
+            keys.addAll(secret.getStringData().keySet());
+        }
+        secretKeys.put(key(secret.getMetadata().getNamespace(), secret.getMetadata().getName()), keys);
+    }
+
+    public int indexedObjects() {
+        return configMapKeys.size() + secretKeys.size();
+    }
+
+    public List<BrokenReference> validate(Pod pod) {
+        List<BrokenReference> broken = new ArrayList<>();
+        String namespace = pod.getMetadata().getNamespace();
+        String podName = pod.getMetadata().getName();
+
+        List<Container> containers = new ArrayList<>(pod.getSpec().getContainers());
+        if (pod.getSpec().getInitContainers() != null) {
+            containers.addAll(pod.getSpec().getInitContainers());
+        }
+
+        for (Container container : containers) {
+            if (container.getEnv() != null) {
+                for (EnvVar env : container.getEnv()) {
+                    if (env.getValueFrom() == null) {
+                        continue;
+                    }
+                    String usedBy = "container " + container.getName() + " env " + env.getName();
+                    var cmRef = env.getValueFrom().getConfigMapKeyRef();
+                    if (cmRef != null && !Boolean.TRUE.equals(cmRef.getOptional())) {
+                        check(broken, configMapKeys, "ConfigMap", namespace, podName, cmRef.getName(), cmRef.getKey(), usedBy);
+                    }
+                    var secretRef = env.getValueFrom().getSecretKeyRef();
+                    if (secretRef != null && !Boolean.TRUE.equals(secretRef.getOptional())) {
+                        check(broken, secretKeys, "Secret", namespace, podName, secretRef.getName(), secretRef.getKey(), usedBy);
+                    }
+                }
+            }
+            if (container.getEnvFrom() != null) {
+                for (EnvFromSource envFrom : container.getEnvFrom()) {
+                    String usedBy = "container " + container.getName() + " envFrom";
+                    if (envFrom.getConfigMapRef() != null && !Boolean.TRUE.equals(envFrom.getConfigMapRef().getOptional())) {
+                        check(broken, configMapKeys, "ConfigMap", namespace, podName, envFrom.getConfigMapRef().getName(), null, usedBy);
+                    }
+                    if (envFrom.getSecretRef() != null && !Boolean.TRUE.equals(envFrom.getSecretRef().getOptional())) {
+                        check(broken, secretKeys, "Secret", namespace, podName, envFrom.getSecretRef().getName(), null, usedBy);
+                    }
+                }
+            }
+        }
+
+        if (pod.getSpec().getVolumes() != null) {
+            for (Volume volume : pod.getSpec().getVolumes()) {
+                String usedBy = "volume " + volume.getName();
+                if (volume.getConfigMap() != null && !Boolean.TRUE.equals(volume.getConfigMap().getOptional())) {
+                    checkItems(broken, configMapKeys, "ConfigMap", namespace, podName,
+                            volume.getConfigMap().getName(), volume.getConfigMap().getItems(), usedBy);
+                }
+                if (volume.getSecret() != null && !Boolean.TRUE.equals(volume.getSecret().getOptional())) {
+                    checkItems(broken, secretKeys, "Secret", namespace, podName,
+                            volume.getSecret().getSecretName(), volume.getSecret().getItems(), usedBy);
+                }
+                if (volume.getProjected() != null && volume.getProjected().getSources() != null) {
+                    for (VolumeProjection source : volume.getProjected().getSources()) {
+                        if (source.getConfigMap() != null && !Boolean.TRUE.equals(source.getConfigMap().getOptional())) {
+                            checkItems(broken, configMapKeys, "ConfigMap", namespace, podName,
+                                    source.getConfigMap().getName(), source.getConfigMap().getItems(), "projected " + usedBy);
+                        }
+                        if (source.getSecret() != null && !Boolean.TRUE.equals(source.getSecret().getOptional())) {
+                            checkItems(broken, secretKeys, "Secret", namespace, podName,
+                                    source.getSecret().getName(), source.getSecret().getItems(), "projected " + usedBy);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (pod.getSpec().getImagePullSecrets() != null) {
+            for (LocalObjectReference pullSecret : pod.getSpec().getImagePullSecrets()) {
+                check(broken, secretKeys, "Secret", namespace, podName, pullSecret.getName(), null, "imagePullSecrets");
+            }
+        }
+        return broken;
+    }
+
+    private static void checkItems(List<BrokenReference> broken, Map<String, Set<String>> index, String kind,
+                                   String namespace, String pod, String name, List<KeyToPath> items, String usedBy) {
+        if (items == null || items.isEmpty()) {
+            check(broken, index, kind, namespace, pod, name, null, usedBy);
+            return;
+        }
+        for (KeyToPath item : items) {
+            check(broken, index, kind, namespace, pod, name, item.getKey(), usedBy);
+        }
+    }
+
+    private static void check(List<BrokenReference> broken, Map<String, Set<String>> index, String kind,
+                              String namespace, String pod, String name, String key, String usedBy) {
+        if (name == null) {
+            return;
+        }
+        Set<String> keys = index.get(key(namespace, name));
+        if (keys == null) {
+            broken.add(new BrokenReference(namespace, pod, kind, name, null, usedBy));
+        } else if (key != null && !keys.contains(key)) {
+            broken.add(new BrokenReference(namespace, pod, kind, name, key, usedBy));
+        }
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+}
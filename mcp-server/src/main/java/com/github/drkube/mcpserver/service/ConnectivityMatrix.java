@@ -0,0 +1,262 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.EndpointAddress;
+import io.fabric8.kubernetes.api.model.EndpointPort;
+import io.fabric8.kubernetes.api.model.EndpointSubset;
+import io.fabric8.kubernetes.api.model.Endpoints;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.ExecWatch;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * ConnectivityMatrix — prova la raggiungibilità da un insieme di pod sorgente verso i backend di
+ * più Service: i target vengono risolti tramite Endpoints in coppie ip:porta, poi per ogni pod
+ * sorgente si apre una sola sessione exec che prova tutti i target in parallelo con nc (o, se
+ * l'immagine non lo contiene, con /dev/tcp di bash). Le sessioni exec girano su virtual thread
+ * con un tetto di parallelismo.
+ * <p>
+ * Un pod in cui la prova non si può eseguire (niente sh, né nc né bash, exec rifiutata) non
+ * produce una riga di "unreachable": la riga riporta "probe unavailable" con il motivo.
+ */
+public final class ConnectivityMatrix {
+
+    /**
+     * Target richiesto: Service (eventualmente "nome.namespace") e porta opzionale.
+     */
+    public record Target(String label, List<String> endpoints) {
+    }
+
+    /**
+     * Esito di una cella: endpoint raggiunti sul totale e latenza massima in millisecondi (-1 se ignota);
+     * unavailable è il motivo per cui la prova non è stata eseguita, null se è stata eseguita.
+     */
+    public record Cell(int ok, int total, long maxMillis, List<String> failed, String unavailable) {
+
+        public String format() {
+            if (unavailable != null) {
+                return "probe unavailable: " + unavailable;
+            }
+            if (total == 0) {
+                return "no endpoints";
+            }
+            String latency = maxMillis >= 0 ? " " + maxMillis + "ms" : "";
+            if (ok == total) {
+                return "ok " + ok + "/" + total + latency;
+            }
+            return (ok == 0 ? "FAIL " : "PARTIAL ") + ok + "/" + total + " (unreachable " + failed + ")";
+        }
+    }
+
+    /**
+     * Esito dell'exec in un pod sorgente: per endpoint [1 se raggiunto, latenza in ms o -1], oppure
+     * il motivo per cui la prova non si è potuta eseguire.
+     */
+    private record Probe(Map<String, long[]> results, String unavailable) {
+    }
+
+    private static final String HEADER = "probe ";
+    private static final String UNAVAILABLE = "unavailable ";
+
+    private ConnectivityMatrix() {
+    }
+
+    /**
+     * Risolve "svc", "svc:port", "svc.ns:port" negli indirizzi ip:porta dei backend pronti.
+     */
+    public static List<Target> resolve(KubernetesClient client, String namespace, List<String> specs) {
+        List<Target> targets = new ArrayList<>();
+        for (String spec : specs) {
+            String name = spec;
+            String port = null;
+            int colon = spec.lastIndexOf(':');
+            if (colon > 0) {
+                name = spec.substring(0, colon);
+                port = spec.substring(colon + 1);
+            }
+            String ns = namespace;
+            int dot = name.indexOf('.');
+            if (dot > 0) {
+                ns = name.substring(dot + 1);
+                name = name.substring(0, dot);
+            }
+            List<String> endpoints = new ArrayList<>();
+            Endpoints eps = client.endpoints().inNamespace(ns).withName(name).get();
+            if (eps != null && eps.getSubsets() != null) {
+                for (EndpointSubset subset : eps.getSubsets()) {
+                    if (subset.getAddresses() == null || subset.getPorts() == null) {
+                        continue;
+                    }
+                    for (EndpointPort p : subset.getPorts()) {
+                        if (port != null && !port.equals(String.valueOf(p.getPort())) && !port.equals(p.getName())) {
+                            continue;
+                        }
+                        for (EndpointAddress address : subset.getAddresses()) {
+                            endpoints.add(address.getIp() + ":" + p.getPort());
+                        }
+                    }
+                }
+            }
+            targets.add(new Target(spec, endpoints));
+        }
+        return targets;
+    }
+
+    /**
+     * Esegue le prove; ritorna per ogni pod sorgente la riga della matrice (chiave = label del target).
+     */
+    public static Map<String, Map<String, Cell>> probe(KubernetesClient client, List<Pod> sources, List<Target> targets,
+                                                       int parallelism, Duration timeout) throws InterruptedException {
+        List<String> endpoints = targets.stream().flatMap(t -> t.endpoints().stream()).distinct().toList();
+        String script = script(endpoints, Math.max(1, timeout.toSeconds() / 2));
+
+        Semaphore slots = new Semaphore(parallelism);
+        Map<String, Future<Probe>> pending = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Pod pod : sources) {
+                pending.put(pod.getMetadata().getName(), executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return exec(client, pod, script, timeout);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+
+            Map<String, Map<String, Cell>> matrix = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<Probe>> entry : pending.entrySet()) {
+                Probe probe;
+                try {
+                    probe = entry.getValue().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    while (cause instanceof ExecutionException && cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    probe = new Probe(Map.of(), "exec failed: " + cause.getMessage());
+                }
+                Map<String, Cell> row = new LinkedHashMap<>();
+                for (Target target : targets) {
+                    row.put(target.label(), cell(target, probe));
+                }
+                matrix.put(entry.getKey(), row);
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * Script shell: la prima riga dice con cosa si prova ("probe nc", "probe tcp") o perché non si
+     * può ("unavailable ..."); poi una prova in background per target, una riga "ip:porta esito
+     * inizio fine" ciascuno. Senza nc si usa /dev/tcp di bash, limitato da timeout perché bash non
+     * ha un timeout di connessione. Su busybox date +%s%N può non essere supportato: in quel caso
+     * la latenza resta ignota.
+     */
+    private static String script(List<String> endpoints, long connectTimeoutSeconds) {
+        StringBuilder sb = new StringBuilder()
+                .append("if command -v nc >/dev/null 2>&1; then m=nc; ")
+                .append("elif command -v bash >/dev/null 2>&1 && command -v timeout >/dev/null 2>&1; then m=tcp; ")
+                .append("else echo '" + UNAVAILABLE + "neither nc nor bash with timeout in the container'; exit 0; fi; ")
+                .append("echo \"" + HEADER + "$m\"; ")
+                .append("connect() { if [ $m = nc ]; then nc -z -w $3 $1 $2; ")
+                .append("else timeout $3 bash -c \"exec 3<>/dev/tcp/$1/$2\"; fi; } ; ");
+        for (String endpoint : endpoints) {
+            int colon = endpoint.lastIndexOf(':');
+            sb.append(String.format("(s=$(date +%%s%%N); if connect %s %s %d >/dev/null 2>&1; then r=ok; else r=fail; fi; "
+                            + "echo \"%s $r $s $(date +%%s%%N)\") & ",
+                    endpoint.substring(0, colon), endpoint.substring(colon + 1), connectTimeoutSeconds, endpoint));
+        }
+        return sb.append("wait").toString();
+    }
+
+    private static Probe exec(KubernetesClient client, Pod pod, String script, Duration timeout) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Integer exitCode = null;
+        try (ExecWatch watch = client.pods().inNamespace(pod.getMetadata().getNamespace())
+                .withName(pod.getMetadata().getName())
+                .writingOutput(out)
+                .writingError(err)
+                .exec("sh", "-c", script)) {
+            exitCode = watch.exitCode().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // le righe già scritte restano valide, gli altri target risultano non raggiunti
+        }
+        String[] lines = out.toString().split("\n");
+        String first = lines[0].trim();
+        if (first.startsWith(UNAVAILABLE)) {
+            return new Probe(Map.of(), first.substring(UNAVAILABLE.length()));
+        }
+        if (!first.startsWith(HEADER)) {
+            // lo script non è partito: tipicamente un'immagine distroless senza sh
+            String stderr = err.toString().strip();
+            String reason = exitCode == null ? "no output within " + timeout.toSeconds() + "s"
+                    : "exec exited with code " + exitCode
+                    + (stderr.isEmpty() ? " (no sh in the container?)" : ": " + stderr.lines().findFirst().orElse(""));
+            return new Probe(Map.of(), reason);
+        }
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            String[] parts = lines[i].trim().split(" ");
+            if (parts.length < 2) {
+                continue;
+            }
+            long millis = -1;
+            if (parts.length == 4 && parts[2].chars().allMatch(Character::isDigit) && parts[3].chars().allMatch(Character::isDigit)) {
+                millis = (Long.parseLong(parts[3]) - Long.parseLong(parts[2])) / 1_000_000;
+            }
+            results.put(parts[0], new long[]{"ok".equals(parts[1]) ? 1 : 0, millis});
+        }
+        return new Probe(results, null);
+    }
+
+    private static Cell cell(Target target, Probe probe) {
+        if (probe.unavailable() != null) {
+            return new Cell(0, target.endpoints().size(), -1, List.of(), probe.unavailable());
+        }
+        Map<String, long[]> results = probe.results();
+        int ok = 0;
+        long max = -1;
+        List<String> failed = new ArrayList<>();
+        for (String endpoint : target.endpoints()) {
+            long[] result = results.get(endpoint);
+            if (result != null && result[0] == 1) {
+                ok++;
+                max = Math.max(max, result[1]);
+            } else {
+                failed.add(endpoint);
+            }
+        }
+        return new Cell(ok, target.endpoints().size(), max, failed, null);
+    }
+
+    public static String format(List<Target> targets, Map<String, Map<String, Cell>> matrix) {
+        StringBuilder sb = new StringBuilder("source \\ target: ")
+                .append(targets.stream().map(Target::label).collect(Collectors.joining(" | ")))
+                .append('\n');
+        matrix.forEach((source, row) -> {
+            // il motivo è lo stesso per tutta la riga: una sola volta
+            Cell first = row.values().stream().findFirst().orElse(null);
+            sb.append(source).append(": ")
+                    .append(first != null && first.unavailable() != null ? first.format()
+                            : row.values().stream().map(Cell::format).collect(Collectors.joining(" | ")))
+                    .append('\n');
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,340 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ControlPlaneProbe — salute del control plane senza dipendere dai nodi control-plane, che sui
+ * cluster gestiti (EKS, GKE, AKS) non sono visibili: interroga in parallelo {@code /readyz?verbose},
+ * {@code /livez?verbose} e i lease di leader election di kube-scheduler e kube-controller-manager,
+ * e riporta i singoli check falliti.
+ * <p>
+ * L'ultimo esito resta in cache per {@code drkube.controlplane.ttl}, così più tool nella stessa
+ * domanda non ripetono le chiamate. Dall'avvio un thread in background campiona ogni
+ * {@code drkube.controlplane.interval} e tiene una storia limitata, da cui si ricavano i check
+ * instabili e le transizioni recenti.
+ */
+@ApplicationScoped
+public class ControlPlaneProbe {
+
+    private static final String LEASE_NAMESPACE = "kube-system";
+    private static final List<String> COMPONENTS = List.of("kube-scheduler", "kube-controller-manager");
+
+    @Inject
+    KubernetesClient client;
+
+    @Inject
+    MetadataLister lister;
+
+    @ConfigProperty(name = "drkube.controlplane.ttl", defaultValue = "5s")
+    Duration ttl;
+
+    @ConfigProperty(name = "drkube.controlplane.timeout", defaultValue = "5s")
+    Duration timeout;
+
+    @ConfigProperty(name = "drkube.controlplane.interval", defaultValue = "30s")
+    Duration interval;
+
+    @ConfigProperty(name = "drkube.controlplane.history", defaultValue = "120")
+    int historySize;
+
+    /**
+     * Un check di {@code /readyz} o {@code /livez}: es. {@code [-]etcd failed: reason withheld}.
+     */
+    public record Check(String name, boolean ok, String detail) {
+    }
+
+    /**
+     * Esito di un endpoint: HTTP 200 se tutti i check passano; {@code error} se non ha risposto.
+     */
+    public record Endpoint(String path, int code, List<Check> checks, String error) {
+        public boolean ok() {
+            return error == null && code == 200;
+        }
+
+        public List<Check> failed() {
+            return checks.stream().filter(c -> !c.ok()).toList();
+        }
+
+        public String format() {
+            if (error != null) {
+                return path + ": unreachable (" + error + ")";
+            }
+            List<Check> failed = failed();
+            if (ok() && failed.isEmpty()) {
+                return path + ": ok (" + checks.size() + " checks passed)";
+            }
+            StringBuilder sb = new StringBuilder(path).append(": FAILING, HTTP ").append(code).append(", ")
+                    .append(failed.size()).append(" of ").append(checks.size()).append(" checks failed");
+            failed.forEach(c -> sb.append("\n  [-] ").append(c.name()).append(c.detail().isEmpty() ? "" : ": " + c.detail()));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Lease di leader election di un componente; {@code visible} è false se il lease non esiste o
+     * non è leggibile, come sui control plane gestiti.
+     */
+    public record LeaseState(String component, boolean visible, String holder, long renewAgeSeconds,
+                             int durationSeconds, String error) {
+        public boolean fresh() {
+            return visible && renewAgeSeconds >= 0 && renewAgeSeconds <= durationSeconds;
+        }
+
+        public String format() {
+            if (!visible) {
+                return component + ": lease not visible" + (error != null ? " (" + error + ")" : " (managed control plane?)");
+            }
+            return component + ": leader " + holder + ", renewed " + renewAgeSeconds + "s ago (lease "
+                    + durationSeconds + "s)" + (fresh() ? "" : " STALE - no active leader");
+        }
+    }
+
+    public record Result(Instant at, long millis, Endpoint readyz, Endpoint livez, List<LeaseState> leases) {
+        public boolean healthy() {
+            return readyz.ok() && livez.ok() && leases.stream().allMatch(l -> !l.visible() || l.fresh());
+        }
+    }
+
+    /**
+     * Campione della storia: solo i nomi dei check falliti, per non tenere in memoria i testi.
+     */
+    private record Sample(Instant at, boolean healthy, boolean reachable, List<String> failed) {
+    }
+
+    private final ArrayDeque<Sample> history = new ArrayDeque<>();
+    private final Object probeLock = new Object();
+    private volatile Result last;
+    private volatile Thread sampler;
+
+    /**
+     * Ultimo esito se più recente del TTL, altrimenti un probe nuovo; chi arriva mentre un probe
+     * è in corso ne aspetta il risultato invece di lanciarne un altro.
+     */
+    public Result current() {
+        Result cached = last;
+        if (cached != null && cached.at().plus(ttl).isAfter(Instant.now())) {
+            return cached;
+        }
+        synchronized (probeLock) {
+            cached = last;
+            if (cached != null && cached.at().plus(ttl).isAfter(Instant.now())) {
+                return cached;
+            }
+            return probe();
+        }
+    }
+
+    /**
+     * Le quattro chiamate partono insieme e condividono una sola scadenza: il probe (e quindi il
+     * probeLock) dura al massimo un timeout, non uno per chiamata. L'executor non viene chiuso con
+     * try-with-resources, che aspetterebbe anche le chiamate scadute: i task ancora appesi vengono
+     * interrotti e lasciati terminare da soli.
+     */
+    private Result probe() {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        Instant at = Instant.now();
+        Endpoint readyz;
+        Endpoint livez;
+        List<LeaseState> leases = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<Endpoint> ready = executor.submit(() -> endpoint("/readyz"));
+            Future<Endpoint> live = executor.submit(() -> endpoint("/livez"));
+            Map<String, Future<LeaseState>> leaseFutures = new LinkedHashMap<>();
+            COMPONENTS.forEach(c -> leaseFutures.put(c, executor.submit(() -> lease(c))));
+
+            readyz = await(ready, deadline, "/readyz", null);
+            livez = await(live, deadline, "/livez", null);
+            for (Map.Entry<String, Future<LeaseState>> entry : leaseFutures.entrySet()) {
+                leases.add(await(entry.getValue(), deadline, null, entry.getKey()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Result result = new Result(at, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), readyz, livez, leases);
+        record(result);
+        last = result;
+        return result;
+    }
+
+    /**
+     * Attende un probe al massimo fino alla scadenza comune; in caso di errore costruisce l'esito
+     * "irraggiungibile" dell'endpoint o del lease corrispondente.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T await(Future<T> future, long deadline, String path, String component) {
+        String error;
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            error = "timeout after " + timeout.toSeconds() + "s";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "interrupted";
+        } catch (Exception e) {
+            error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        }
+        return path != null
+                ? (T) new Endpoint(path, -1, List.of(), error)
+                : (T) new LeaseState(component, false, null, -1, 0, error);
+    }
+
+    private Endpoint endpoint(String path) {
+        MetadataLister.Text response = lister.text(path + "?verbose", timeout);
+        return new Endpoint(path, response.code(), parseChecks(response.body()), null);
+    }
+
+    /**
+     * Righe del formato verbose: {@code [+]ping ok}, {@code [-]etcd failed: reason withheld},
+     * {@code [+]poststarthook/rbac/bootstrap-roles ok}; le altre righe sono il riepilogo.
+     */
+    static List<Check> parseChecks(String body) {
+        List<Check> checks = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            line = line.strip();
+            if (line.length() < 4 || line.charAt(0) != '[' || line.charAt(2) != ']') {
+                continue;
+            }
+            boolean ok = line.charAt(1) == '+';
+            String rest = line.substring(3);
+            int space = rest.indexOf(' ');
+            String name = space < 0 ? rest : rest.substring(0, space);
+            String detail = space < 0 ? "" : rest.substring(space + 1).strip();
+            if (ok && "ok".equals(detail)) {
+                detail = "";
+            } else if (detail.startsWith("failed")) {
+                detail = detail.substring("failed".length()).replaceFirst("^:\\s*", "");
+            }
+            checks.add(new Check(name, ok, detail));
+        }
+        return checks;
+    }
+
+    private LeaseState lease(String component) {
+        Lease lease = client.leases().inNamespace(LEASE_NAMESPACE).withName(component).get();
+        if (lease == null || lease.getSpec() == null) {
+            return new LeaseState(component, false, null, -1, 0, null);
+        }
+        ZonedDateTime renew = lease.getSpec().getRenewTime() != null
+                ? lease.getSpec().getRenewTime() : lease.getSpec().getAcquireTime();
+        long age = renew != null ? Duration.between(renew.toInstant(), Instant.now()).toSeconds() : -1;
+        Integer duration = lease.getSpec().getLeaseDurationSeconds();
+        return new LeaseState(component, true, lease.getSpec().getHolderIdentity(), age,
+                duration != null ? duration : 15, null);
+    }
+
+    // --- storia ---------------------------------------------------------------------------
+
+    private void record(Result result) {
+        List<String> failed = new ArrayList<>();
+        result.readyz().failed().forEach(c -> failed.add("readyz/" + c.name()));
+        result.livez().failed().forEach(c -> failed.add("livez/" + c.name()));
+        result.leases().stream().filter(l -> l.visible() && !l.fresh()).forEach(l -> failed.add("lease/" + l.component()));
+        boolean reachable = result.readyz().error() == null || result.livez().error() == null;
+        synchronized (history) {
+            history.addLast(new Sample(result.at(), result.healthy(), reachable, failed));
+            while (history.size() > historySize) {
+                history.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Riepilogo della storia: percentuale di campioni sani, check falliti almeno una volta con
+     * il numero di occorrenze e le ultime transizioni sano/non sano.
+     */
+    public String historySummary(int maxTransitions) {
+        List<Sample> samples;
+        synchronized (history) {
+            samples = new ArrayList<>(history);
+        }
+        if (samples.size() < 2) {
+            return "History: not enough samples yet (sampling every " + interval.toSeconds() + "s)";
+        }
+        long healthy = samples.stream().filter(Sample::healthy).count();
+        long unreachable = samples.stream().filter(s -> !s.reachable()).count();
+        Map<String, Integer> flaky = new TreeMap<>();
+        samples.forEach(s -> s.failed().forEach(f -> flaky.merge(f, 1, Integer::sum)));
+        List<String> transitions = new ArrayList<>();
+        for (int i = 1; i < samples.size(); i++) {
+            if (samples.get(i).healthy() != samples.get(i - 1).healthy()) {
+                transitions.add(samples.get(i).at() + " -> " + (samples.get(i).healthy() ? "healthy" : "unhealthy"
+                        + (samples.get(i).failed().isEmpty() ? "" : " " + samples.get(i).failed())));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(String.format("History: %d samples since %s, healthy %.1f%%",
+                samples.size(), samples.get(0).at(), 100.0 * healthy / samples.size()));
+        if (unreachable > 0) {
+            sb.append(", API server unreachable in ").append(unreachable).append(" samples");
+        }
+        flaky.forEach((name, count) -> sb.append("\n  failed ").append(count).append("x: ").append(name));
+        transitions.stream().skip(Math.max(0, transitions.size() - maxTransitions))
+                .forEach(t -> sb.append("\n  ").append(t));
+        return sb.toString();
+    }
+
+    /**
+     * La storia serve proprio quando arriva la prima domanda: il campionamento parte all'avvio.
+     */
+    void onStart(@Observes StartupEvent event) {
+        sampler = Thread.ofVirtual().name("drkube-controlplane-probe").start(this::sampleLoop);
+    }
+
+    private void sampleLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                synchronized (probeLock) {
+                    probe();
+                }
+            } catch (Exception e) {
+                Log.debugf("Control plane probe failed: %s", e.getMessage());
+            }
+            try {
+                Thread.sleep(interval.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    void onClientSwapped(@Observes KubernetesClientSwapped event) {
+        // cluster diverso: cache e storia non valgono più
+        last = null;
+        synchronized (history) {
+            history.clear();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sampler != null) {
+            sampler.interrupt();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * InformerRegistry — un solo informer condiviso per tipo di risorsa (e namespace), avviato
+ * alla prima richiesta. Gli indici in memoria registrano qui i loro handler invece di aprire
+ * watch propri; quando il client viene sostituito (kubeconfig ricaricato) gli informer vengono
+ * ricreati sul nuovo client con gli stessi handler, che ricevono di nuovo un onAdd per oggetto.
+ */
+@ApplicationScoped
+public class InformerRegistry {
+
+    @Inject
+    KubernetesClient client;
+
+    @ConfigProperty(name = "drkube.informers.sync-timeout", defaultValue = "30s")
+    Duration syncTimeout;
+
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final long DRAIN_POLL_MILLIS = 50;
+
+    private final Map<String, Entry<?>> entries = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private static final class Entry<T extends HasMetadata> {
+        final Class<T> type;
+        final String namespace;
+        final List<ResourceEventHandler<? super T>> handlers = new CopyOnWriteArrayList<>();
+        volatile SharedIndexInformer<T> informer;
+
+        Entry(Class<T> type, String namespace) {
+            this.type = type;
+            this.namespace = namespace;
+        }
+    }
+
+    /**
+     * Handler che tratta add e update come upsert dello stato nuovo.
+     */
+    public static <T> ResourceEventHandler<T> handler(Consumer<T> upsert, Consumer<T> delete) {
+        return new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(T obj) {
+                upsert.accept(obj);
+            }
+
+            @Override
+            public void onUpdate(T oldObj, T newObj) {
+                upsert.accept(newObj);
+            }
+
+            @Override
+            public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+                delete.accept(obj);
+            }
+        };
+    }
+
+    public <T extends HasMetadata> void addHandler(Class<T> type, ResourceEventHandler<? super T> handler) {
+        addHandler(type, null, handler);
+    }
+
+    /**
+     * Registra un handler e avvia l'informer se non è ancora attivo; ritorna dopo la prima sync.
+     * Registrare di nuovo lo stesso handler non lo duplica: serve a riprovare un avvio fallito.
+     */
+    public <T extends HasMetadata> void addHandler(Class<T> type, String namespace, ResourceEventHandler<? super T> handler) {
+        Entry<T> entry = entry(type, namespace);
+        synchronized (entry) {
+            if (!entry.handlers.contains(handler)) {
+                entry.handlers.add(handler);
+                if (entry.informer != null) {
+                    entry.informer.addEventHandler(handler);
+                    return;
+                }
+            }
+            if (entry.informer == null) {
+                entry.informer = start(entry);
+            }
+        }
+    }
+
+    /**
+     * Handler da registrare all'avvio di un indice con {@link #startAll}.
+     */
+    public record Registration<T extends HasMetadata>(Class<T> type, String namespace,
+                                                      ResourceEventHandler<? super T> handler) {
+    }
+
+    public static <T extends HasMetadata> Registration<T> registration(Class<T> type, ResourceEventHandler<? super T> handler) {
+        return new Registration<>(type, null, handler);
+    }
+
+    public static <T extends HasMetadata> Registration<T> registration(Class<T> type, String namespace,
+                                                                       ResourceEventHandler<? super T> handler) {
+        return new Registration<>(type, namespace, handler);
+    }
+
+    /**
+     * Stato dell'avvio di un indice: sincronizzato quando ogni handler ha ricevuto l'evento di tutti
+     * gli oggetti della lista iniziale. La sync dell'informer dice solo che lo store è pieno: gli
+     * handler ricevono gli eventi in modo asincrono e subito dopo possono essere ancora indietro.
+     */
+    public static final class Startup {
+        private final CountDownLatch pending;
+
+        private Startup(int registrations) {
+            this.pending = new CountDownLatch(registrations);
+        }
+
+        public boolean synced() {
+            return pending.getCount() == 0;
+        }
+
+        /**
+         * Attende la sincronizzazione al massimo per timeout; false se non è arrivata.
+         */
+        public boolean await(Duration timeout) {
+            try {
+                return pending.await(Math.max(0, timeout.toMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * Attende la sincronizzazione come {@link #await}; se non arriva in tempo fallisce con un
+         * messaggio che il tool restituisce così com'è al client.
+         */
+        public void require(Duration timeout, String index) {
+            if (!await(timeout)) {
+                throw new IllegalStateException(index + " not synced yet: the initial list is still loading, retry shortly");
+            }
+        }
+    }
+
+    /**
+     * Registra gli handler di un indice in background, uno per virtual thread, senza bloccare
+     * l'avvio dell'applicazione. Se l'informer non si riesce a creare riprova con backoff
+     * esponenziale (fino a un minuto) invece di lasciare l'indice vuoto per sempre.
+     */
+    public Startup startAll(String name, List<Registration<?>> registrations) {
+        Startup startup = new Startup(registrations.size());
+        for (Registration<?> registration : registrations) {
+            Thread.ofVirtual().name("drkube-" + name + "-" + registration.type().getSimpleName())
+                    .start(() -> register(name, registration, startup));
+        }
+        return startup;
+    }
+
+    private <T extends HasMetadata> void register(String name, Registration<T> registration, Startup startup) {
+        Tracking<T> tracking = new Tracking<>(registration.handler());
+        long backoff = 1000;
+        while (true) {
+            try {
+                addHandler(registration.type(), registration.namespace(), tracking);
+                break;
+            } catch (RuntimeException e) {
+                Log.warnf("Cannot start the %s informer for %s, retrying in %d s: %s",
+                        registration.type().getSimpleName(), name, backoff / 1000, e.getMessage());
+                if (!sleep(backoff)) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+        Entry<T> entry = entry(registration.type(), registration.namespace());
+        while (!drained(entry, tracking)) {
+            if (!sleep(DRAIN_POLL_MILLIS)) {
+                return;
+            }
+        }
+        tracking.seen = null;
+        startup.pending.countDown();
+    }
+
+    /**
+     * True se l'informer ha completato la lista iniziale e l'handler ha già ricevuto ogni oggetto
+     * dello store (quelli cancellati nel frattempo non sono più nello store e non contano).
+     */
+    private <T extends HasMetadata> boolean drained(Entry<T> entry, Tracking<T> tracking) {
+        SharedIndexInformer<T> informer = entry.informer;
+        if (informer == null || !informer.hasSynced()) {
+            return false;
+        }
+        Set<String> seen = tracking.seen;
+        for (T obj : informer.getStore().list()) {
+            if (!seen.contains(key(obj))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sleep(long millis) {
+        if (closed) {
+            return false;
+        }
+        try {
+            Thread.sleep(millis);
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String key(HasMetadata obj) {
+        return obj.getMetadata().getNamespace() + "/" + obj.getMetadata().getName();
+    }
+
+    /**
+     * Inoltra gli eventi all'handler dell'indice e, fino alla prima sincronizzazione, ricorda quali
+     * oggetti ha già elaborato.
+     */
+    private static final class Tracking<T extends HasMetadata> implements ResourceEventHandler<T> {
+        final ResourceEventHandler<? super T> delegate;
+        volatile Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        Tracking(ResourceEventHandler<? super T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onAdd(T obj) {
+            delegate.onAdd(obj);
+            mark(obj);
+        }
+
+        @Override
+        public void onUpdate(T oldObj, T newObj) {
+            delegate.onUpdate(oldObj, newObj);
+            mark(newObj);
+        }
+
+        @Override
+        public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+            delegate.onDelete(obj, deletedFinalStateUnknown);
+        }
+
+        private void mark(T obj) {
+            Set<String> pending = seen;
+            if (pending != null) {
+                pending.add(key(obj));
+            }
+        }
+    }
+
+    /**
+     * Oggetti nella cache dell'informer (avviandolo se necessario).
+     */
+    public <T extends HasMetadata> List<T> list(Class<T> type) {
+        return list(type, null);
+    }
+
+    public <T extends HasMetadata> List<T> list(Class<T> type, String namespace) {
+        Entry<T> entry = entry(type, namespace);
+        synchronized (entry) {
+            if (entry.informer == null) {
+                entry.informer = start(entry);
+            }
+            return entry.informer.getStore().list();
+        }
+    }
+
+    /**
+     * True se l'informer del tipo è attivo e ha completato la lista iniziale.
+     */
+    public <T extends HasMetadata> boolean hasSynced(Class<T> type) {
+        SharedIndexInformer<T> informer = entry(type, null).informer;
+        return informer != null && informer.hasSynced();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends HasMetadata> Entry<T> entry(Class<T> type, String namespace) {
+        String key = type.getName() + "@" + (namespace == null ? "*" : namespace);
+        return (Entry<T>) entries.computeIfAbsent(key, k -> new Entry<>(type, namespace));
+    }
+
+    private <T extends HasMetadata> SharedIndexInformer<T> start(Entry<T> entry) {
+        long begin = System.nanoTime();
+        SharedIndexInformer<T> informer = entry.namespace == null
+                ? client.resources(entry.type).inAnyNamespace().runnableInformer(0)
+                : client.resources(entry.type).inNamespace(entry.namespace).runnableInformer(0);
+        entry.handlers.forEach(informer::addEventHandler);
+        try {
+            informer.start().toCompletableFuture().get(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            Log.infof("Informer for %s synced in %d ms (%d objects)", entry.type.getSimpleName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin), informer.getStore().list().size());
+        } catch (Exception e) {
+            // l'informer resta attivo e continua a riprovare: la cache si riempirà appena possibile
+            Log.warnf("Informer for %s not synced yet: %s", entry.type.getSimpleName(), e.getMessage());
+        }
+        return informer;
+    }
+
+    void onClientSwapped(@Observes KubernetesClientSwapped event) {
+        for (Entry<?> entry : entries.values()) {
+            restart(entry);
+        }
+    }
+
+    private <T extends HasMetadata> void restart(Entry<T> entry) {
+        synchronized (entry) {
+            if (entry.informer == null) {
+                return;
+            }
+            entry.informer.close();
+            entry.informer = start(entry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        for (Entry<?> entry : entries.values()) {
+            if (entry.informer != null) {
+                entry.informer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.github.drkube.mcpserver.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * KubeletStats — raccoglie {@code /api/v1/nodes/{node}/proxy/stats/summary} da tutti i nodi in
+ * parallelo (virtual thread con tetto di concorrenza e timeout per nodo) per avere i dati che
+ * metrics.k8s.io non espone: uso dei volumi, ephemeral storage, filesystem dei nodi e rete.
+ * <p>
+ * Il JSON viene letto in streaming e ridotto a record compatti per pod e per volume: le sezioni
+ * pesanti (container, systemContainers, interfacce di rete) vengono saltate senza materializzarle.
+ * I contatori di rete sono cumulativi, quindi il throughput si ricava dalla differenza con la
+ * raccolta precedente.
+ */
+@ApplicationScoped
+public class KubeletStats {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final long QUEUE_POLL_MILLIS = 50;
+
+    @Inject
+    MetadataLister lister;
+
+    @ConfigProperty(name = "drkube.kubelet.parallelism", defaultValue = "16")
+    int parallelism;
+
+    @ConfigProperty(name = "drkube.kubelet.timeout", defaultValue = "10s")
+    Duration timeout;
+
+    /**
+     * Uso di un volume di un pod; pvcNamespace/pvcName valorizzati solo per i volumi PVC.
+     */
+    public record VolumeStats(String name, String pvcNamespace, String pvcName, long used, long capacity,
+                              long available, long inodesUsed, long inodes) {
+
+        public double usedPercent() {
+            return capacity > 0 ? 100.0 * used / capacity : 0;
+        }
+    }
+
+    public record PodStats(String namespace, String name, String node, long rxBytes, long txBytes,
+                           long ephemeralUsed, long ephemeralCapacity, List<VolumeStats> volumes) {
+
+        public String key() {
+            return namespace + "/" + name;
+        }
+    }
+
+    /**
+     * Filesystem del nodo (rootfs del kubelet) e imageFs del runtime.
+     */
+    public record NodeStats(String node, long fsUsed, long fsCapacity, long fsAvailable,
+                            long imageFsUsed, long imageFsCapacity, long rxBytes, long txBytes) {
+    }
+
+    public record Scrape(long takenAtNanos, Map<String, NodeStats> nodes, List<PodStats> pods, Map<String, String> failed) {
+
+        public String failures() {
+            return failed.isEmpty() ? "" : "Nodes not scraped (" + failed.size() + "): " + failed + "\n";
+        }
+    }
+
+    /**
+     * Throughput di rete di un pod in byte/s tra due raccolte.
+     */
+    public record Throughput(String pod, String node, double rxPerSecond, double txPerSecond) {
+
+        public double total() {
+            return rxPerSecond + txPerSecond;
+        }
+    }
+
+    private volatile Scrape last;
+
+    /**
+     * Raccoglie le statistiche di tutti i nodi; i nodi che falliscono o superano il timeout
+     * finiscono in {@link Scrape#failed()} senza bloccare gli altri. Il timeout per nodo non basta
+     * a tenere la raccolta dentro la deadline del tool: quando {@code budget} si esaurisce non
+     * parte nessun altro nodo, quelli in corso vengono interrotti e tutti i mancanti finiscono in
+     * {@link Scrape#failed()}.
+     */
+    public Scrape scrape(ToolBudget budget) throws InterruptedException {
+        List<String> names = lister.listMetadata("/api/v1/nodes").stream().map(ObjectMeta::getName).toList();
+        long start = System.nanoTime();
+        Semaphore slots = new Semaphore(parallelism);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<NodeFetch> fetches = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        try {
+            for (String node : names) {
+                if (budget.exhausted()) {
+                    failed.put(node, "not scraped: " + budget.stopReason());
+                    continue;
+                }
+                NodeFetch fetch = new NodeFetch(node, slots);
+                fetch.future = executor.submit(fetch);
+                fetches.add(fetch);
+            }
+
+            Map<String, NodeStats> nodes = new LinkedHashMap<>();
+            List<PodStats> pods = new ArrayList<>();
+            for (NodeFetch fetch : fetches) {
+                try {
+                    NodeSummary summary = fetch.await(budget);
+                    nodes.put(fetch.node, summary.node());
+                    pods.addAll(summary.pods());
+                } catch (TimeoutException e) {
+                    fetch.abort();
+                    failed.put(fetch.node, budget.exhausted() ? "not scraped: " + budget.stopReason()
+                            : "timeout after " + timeout.toSeconds() + "s");
+                } catch (ExecutionException e) {
+                    failed.put(fetch.node, String.valueOf(e.getCause().getMessage()));
+                }
+            }
+            Scrape scrape = new Scrape(System.nanoTime(), nodes, pods, failed);
+            Log.debugf("Kubelet stats from %d/%d nodes (%d pods) in %d ms", nodes.size(), names.size(), pods.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            // una raccolta troncata dal budget non fa da base per il throughput successivo
+            if (!budget.exhausted()) {
+                last = scrape;
+            }
+            return scrape;
+        } finally {
+            // non aspetto i nodi in timeout: i loro thread terminano da soli
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Throughput per pod: differenza con la raccolta precedente, o con una nuova raccolta dopo
+     * {@code window} se la precedente manca o è più vecchia di {@code maxAge}. I pod dei nodi
+     * mancanti in una delle due raccolte non compaiono nel risultato.
+     */
+    public List<Throughput> throughput(Duration window, Duration maxAge, ToolBudget budget) throws InterruptedException {
+        Scrape previous = last;
+        if (previous == null || System.nanoTime() - previous.takenAtNanos() > maxAge.toNanos()) {
+            previous = scrape(budget);
+            // la finestra non supera il tempo rimasto al tool
+            Thread.sleep(Math.min(window.toMillis(), budget.remaining().toMillis()));
+        }
+        Scrape current = scrape(budget);
+        double seconds = (current.takenAtNanos() - previous.takenAtNanos()) / 1e9;
+        Map<String, PodStats> before = new HashMap<>();
+        for (PodStats pod : previous.pods()) {
+            before.put(pod.key(), pod);
+        }
+        List<Throughput> result = new ArrayList<>();
+        for (PodStats pod : current.pods()) {
+            PodStats old = before.get(pod.key());
+            // contatori azzerati (pod ricreato con lo stesso nome): nessun dato affidabile
+            if (old == null || pod.rxBytes() < old.rxBytes() || pod.txBytes() < old.txBytes() || seconds <= 0) {
+                continue;
+            }
+            result.add(new Throughput(pod.key(), pod.node(),
+                    (pod.rxBytes() - old.rxBytes()) / seconds, (pod.txBytes() - old.txBytes()) / seconds));
+        }
+        return result;
+    }
+
+    private record NodeSummary(NodeStats node, List<PodStats> pods) {
+    }
+
+    /**
+     * Raccolta di un nodo. Il timeout vale per l'intera richiesta, download e parsing compresi, e
+     * parte quando il task ottiene il suo slot: l'attesa in coda sul semaforo non consuma il tempo
+     * del nodo, e un kubelet che risponde subito ma trasmette lentamente viene interrotto alla sua
+     * scadenza chiudendo lo stream.
+     */
+    private final class NodeFetch implements Callable<NodeSummary> {
+        final String node;
+        final Semaphore slots;
+        Future<NodeSummary> future;
+        private volatile boolean started;
+        private volatile long deadline;
+        private volatile InputStream body;
+
+        NodeFetch(String node, Semaphore slots) {
+            this.node = node;
+            this.slots = slots;
+        }
+
+        @Override
+        public NodeSummary call() throws Exception {
+            slots.acquire();
+            try {
+                deadline = System.nanoTime() + timeout.toNanos();
+                started = true;
+                try (InputStream in = lister.open("/api/v1/nodes/" + node + "/proxy/stats/summary", timeout);
+                     JsonParser p = JSON.createParser(in)) {
+                    body = in;
+                    return parseSummary(node, p);
+                }
+            } finally {
+                slots.release();
+            }
+        }
+
+        /**
+         * Attende il risultato fino alla scadenza del nodo o del budget, la prima delle due; finché
+         * il task è in coda sul semaforo la scadenza del nodo non è ancora fissata.
+         */
+        NodeSummary await(ToolBudget budget) throws InterruptedException, ExecutionException, TimeoutException {
+            while (!started) {
+                if (budget.exhausted()) {
+                    throw new TimeoutException(budget.stopReason());
+                }
+                try {
+                    return future.get(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // ancora in coda o appena partito: ricontrollo
+                }
+            }
+            long wait = Math.min(deadline - System.nanoTime(), budget.remaining().toNanos());
+            return future.get(Math.max(0, wait), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Interrompe il task e chiude lo stream, così il thread libera subito lo slot anche se è
+         * bloccato in lettura.
+         */
+        void abort() {
+            future.cancel(true);
+            InputStream in = body;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // lo stream è già in errore: il task termina comunque
+                }
+            }
+        }
+    }
+
+    // --- parsing in streaming -------------------------------------------------------------
+
+    private static NodeSummary parseSummary(String nodeName, JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Unexpected stats/summary payload");
+        }
+        NodeStats node = new NodeStats(nodeName, 0, 0, 0, 0, 0, 0, 0);
+        List<PodStats> pods = new ArrayList<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("node".equals(field) && value == JsonToken.START_OBJECT) {
+                node = parseNode(nodeName, p);
+            } else if ("pods".equals(field) && value == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    pods.add(parsePod(nodeName, p));
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new NodeSummary(node, pods);
+    }
+
+    private static NodeStats parseNode(String nodeName, JsonParser p) throws IOException {
+        long[] fs = {0, 0, 0};
+        long[] imageFs = {0, 0, 0};
+        long[] network = {0, 0};
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "fs" -> readFs(p, fs);
+                case "network" -> readNetwork(p, network);
+                case "runtime" -> {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String runtimeField = p.currentName();
+                        if (p.nextToken() == JsonToken.START_OBJECT && "imageFs".equals(runtimeField)) {
+                            readFs(p, imageFs);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return new NodeStats(nodeName, fs[0], fs[1], fs[2], imageFs[0], imageFs[1], network[0], network[1]);
+    }
+
+    private static PodStats parsePod(String nodeName, JsonParser p) throws IOException {
+        String namespace = null;
+        String name = null;
+        long[] network = {0, 0};
+        long[] ephemeral = {0, 0, 0};
+        List<VolumeStats> volumes = new ArrayList<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value == JsonToken.START_OBJECT && "podRef".equals(field)) {
+                String[] ref = readRef(p);
+                name = ref[0];
+                namespace = ref[1];
+            } else if (value == JsonToken.START_OBJECT && "network".equals(field)) {
+                readNetwork(p, network);
+            } else if (value == JsonToken.START_OBJECT && "ephemeral-storage".equals(field)) {
+                readFs(p, ephemeral);
+            } else if (value == JsonToken.START_ARRAY && "volume".equals(field)) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    volumes.add(parseVolume(p));
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new PodStats(namespace, name, nodeName, network[0], network[1], ephemeral[0], ephemeral[1], List.copyOf(volumes));
+    }
+
+    private static VolumeStats parseVolume(JsonParser p) throws IOException {
+        String name = null;
+        String[] pvc = {null, null};
+        long[] fs = {0, 0, 0};
+        long inodesUsed = 0;
+        long inodes = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "name" -> name = p.getText();
+                case "pvcRef" -> pvc = value == JsonToken.START_OBJECT ? readRef(p) : pvc;
+                case "usedBytes" -> fs[0] = p.getValueAsLong();
+                case "capacityBytes" -> fs[1] = p.getValueAsLong();
+                case "availableBytes" -> fs[2] = p.getValueAsLong();
+                case "inodesUsed" -> inodesUsed = p.getValueAsLong();
+                case "inodes" -> inodes = p.getValueAsLong();
+                default -> p.skipChildren();
+            }
+        }
+        return new VolumeStats(name, pvc[1], pvc[0], fs[0], fs[1], fs[2], inodesUsed, inodes);
+    }
+
+    /**
+     * Riferimento {name, namespace} come [name, namespace].
+     */
+    private static String[] readRef(JsonParser p) throws IOException {
+        String[] ref = {null, null};
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "name" -> ref[0] = p.getText();
+                case "namespace" -> ref[1] = p.getText();
+                default -> p.skipChildren();
+            }
+        }
+        return ref;
+    }
+
+    /**
+     * Statistiche di filesystem come [used, capacity, available].
+     */
+    private static void readFs(JsonParser p, long[] fs) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "usedBytes" -> fs[0] = p.getValueAsLong();
+                case "capacityBytes" -> fs[1] = p.getValueAsLong();
+                case "availableBytes" -> fs[2] = p.getValueAsLong();
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Contatori cumulativi dell'interfaccia di default come [rx, tx]; l'elenco delle interfacce viene saltato.
+     */
+    private static void readNetwork(JsonParser p, long[] network) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "rxBytes" -> network[0] = p.getValueAsLong();
+                case "txBytes" -> network[1] = p.getValueAsLong();
+                default -> p.skipChildren();
+            }
+        }
+    }
+}
@@ -1,41 +1,300 @@
 package com.github.drkube.mcpserver.service;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.annotations.RegisterForProxy;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
 
+/**
+ * Produce il KubernetesClient usato dagli agent.
+ * <p>
+ * Il client reale viene costruito alla prima chiamata e sta dietro un proxy: quando il
+ * kubeconfig cambia su disco (token ruotati, exec plugin) ne viene creato uno nuovo e
+ * scambiato atomicamente. Le chiamate già partite finiscono sul client precedente, che
+ * viene chiuso dopo {@code drkube.kubeconfig.close-grace}. Il proxy è condiviso da tutti i bean,
+ * quindi un {@code close()} chiamato su di esso (es. un try-with-resources) non fa niente: i client
+ * reali si chiudono solo qui, allo scambio e allo shutdown.
+ * <p>
+ * Con {@code drkube.replay.snapshot} il client punta invece a un API server finto popolato
+ * da una fotografia del cluster (vedi {@link ClusterSnapshot}): nessun accesso al cluster reale.
+ * Il server finto ({@link ReplayServer}) c'è solo nelle build con il profilo Maven {@code replay}.
+ */
 @ApplicationScoped
+@RegisterForProxy(targets = KubernetesClient.class)
 public class KubernetesClientProducer {
 
+    @ConfigProperty(name = "drkube.kubeconfig.close-grace", defaultValue = "60s")
+    Duration closeGrace;
+
+    @ConfigProperty(name = "drkube.replay.snapshot")
+    Optional<String> replaySnapshot;
+
+    @ConfigProperty(name = "drkube.kubeconfig.path")
+    Optional<String> kubeconfigFile;
+
+    @Inject
+    Event<KubernetesClientSwapped> swappedEvent;
+
+    @Inject
+    Instance<ReplayServer> replayServers;
+
+    private final AtomicReference<KubernetesClient> current = new AtomicReference<>();
+    private final AtomicLong swaps = new AtomicLong();
+    private final AtomicLong failedReloads = new AtomicLong();
+    private final AtomicLong clientsOpened = new AtomicLong();
+    private final AtomicLong clientsClosed = new AtomicLong();
+    private volatile long lastSwapMillis = -1;
+    private volatile String lastKubeconfig;
+
+    private Path kubeconfigPath;
+    private WatchService watchService;
+    private ScheduledExecutorService closer;
+    private ReplayServer replay;
+
     @Produces
     @ApplicationScoped
     public KubernetesClient kubernetesClient() {
-        String kubeconfigPath = System.getenv("KUBECONFIG"); // legge la variabile d'ambiente
+        return (KubernetesClient) Proxy.newProxyInstance(
+                KubernetesClient.class.getClassLoader(),
+                new Class<?>[]{KubernetesClient.class},
+                (proxy, method, args) -> invoke(proxy, method, args));
+    }
+
+    private Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "KubernetesClient proxy -> " + current.get();
+            };
+        }
+        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+            // il client reale appartiene al producer, non a chi ha in mano il proxy
+            return null;
+        }
+        try {
+            return method.invoke(delegate(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private KubernetesClient delegate() {
+        KubernetesClient client = current.get();
+        if (client == null) {
+            synchronized (this) {
+                client = current.get();
+                if (client == null && replaySnapshot.isPresent()) {
+                    if (!replayServers.isResolvable()) {
+                        throw new IllegalStateException("drkube.replay.snapshot needs the mock API server: "
+                                + "build the mcp-server with the replay profile (mvn -Preplay)");
+                    }
+                    replay = replayServers.get();
+                    client = replay.start(Path.of(replaySnapshot.get()));
+                    current.set(client);
+                } else if (client == null) {
+                    kubeconfigPath = resolveKubeconfigPath();
+                    lastKubeconfig = readKubeconfig();
+                    client = buildClient(lastKubeconfig);
+                    current.set(client);
+                    startWatcher();
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Statistiche sugli scambi di client, riportate da /test/client-stats.
+     */
+    public String stats() {
+        return String.format(
+                "kubeconfig: %s%nswaps: %d (last took %d ms)%nfailed reloads: %d%nclients opened: %d, closed: %d",
+                kubeconfigPath, swaps.get(), lastSwapMillis, failedReloads.get(),
+                clientsOpened.get(), clientsClosed.get());
+    }
+
+    private Path resolveKubeconfigPath() {
+        if (kubeconfigFile.isPresent() && !kubeconfigFile.get().isBlank()) {
+            // configurazione esplicita, es. il mock server dei test di integrazione
+            return Path.of(kubeconfigFile.get()).toAbsolutePath();
+        }
+        String path = System.getenv("KUBECONFIG"); // legge la variabile d'ambiente
 
-        if (kubeconfigPath == null || kubeconfigPath.isEmpty()) {
+        if (path == null || path.isEmpty()) {
             // fallback al path di default
-            kubeconfigPath = System.getProperty("user.home") + "/.kube/config";
+            path = System.getProperty("user.home") + "/.kube/config";
         }
+        return Path.of(path).toAbsolutePath();
+    }
 
-        Config config = null;
+    private String readKubeconfig() {
+        if (!Files.isRegularFile(kubeconfigPath)) {
+            return null;
+        }
         try {
-            config = Config.fromKubeconfig(null, Files.readString(Path.of(kubeconfigPath)), kubeconfigPath);
+            return Files.readString(kubeconfigPath);
         } catch (IOException e) {
-            e.printStackTrace();
             throw new RuntimeException("Errore leggendo il kubeconfig: " + kubeconfigPath, e);
         }
+    }
 
-        return new KubernetesClientBuilder()
+    private KubernetesClient buildClient(String kubeconfig) {
+        Config config;
+        if (kubeconfig != null) {
+            config = Config.fromKubeconfig(null, kubeconfig, kubeconfigPath.toString());
+        } else {
+            // nessun file: service account in-cluster o variabili d'ambiente
+            Log.warnf("Kubeconfig %s not found, falling back to auto-configuration", kubeconfigPath);
+            config = Config.autoConfigure(null);
+        }
+
+        KubernetesClient client = new KubernetesClientBuilder()
                 .withConfig(config)
                 .build();
+        clientsOpened.incrementAndGet();
+        return client;
     }
 
+    private void startWatcher() {
+        closer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "drkube-kubeconfig-closer"));
 
-}
+        Path dir = kubeconfigPath.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            Log.warnf("Directory of %s not found, kubeconfig hot reload disabled", kubeconfigPath);
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            Log.warnf("Cannot watch %s, kubeconfig hot reload disabled: %s", dir, e.getMessage());
+            return;
+        }
+        daemon(this::watchLoop, "drkube-kubeconfig-watcher").start();
+    }
+
+    private void watchLoop() {
+        String fileName = kubeconfigPath.getFileName().toString();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    String changed = String.valueOf(event.context());
+                    // i mount di Secret/ConfigMap aggiornano il symlink ..data, non il file
+                    relevant |= changed.equals(fileName) || changed.startsWith("..data")
+                            || event.kind() == StandardWatchEventKinds.OVERFLOW;
+                }
+                key.reset();
+                if (relevant) {
+                    // gli editor e kubectl scrivono il file in più passi: attendo che si stabilizzi
+                    Thread.sleep(300);
+                    drain();
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutdown
+        }
+    }
+
+    private void drain() {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    private void reload() {
+        long start = System.nanoTime();
+        try {
+            String kubeconfig = readKubeconfig();
+            if (kubeconfig == null || Objects.equals(kubeconfig, lastKubeconfig)) {
+                // file rimosso temporaneamente o contenuto invariato: tengo il client attuale
+                return;
+            }
 
+            KubernetesClient fresh = buildClient(kubeconfig);
+            KubernetesClient previous = current.getAndSet(fresh);
+            lastKubeconfig = kubeconfig;
+            long swapNumber = swaps.incrementAndGet();
+            lastSwapMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            if (previous != null) {
+                closer.schedule(() -> {
+                    previous.close();
+                    clientsClosed.incrementAndGet();
+                }, closeGrace.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            Log.infof("Kubeconfig %s reloaded: swap #%d took %d ms (clients opened %d, closed %d)",
+                    kubeconfigPath, swapNumber, lastSwapMillis, clientsOpened.get(), clientsClosed.get());
+            swappedEvent.fire(new KubernetesClientSwapped(swapNumber));
+        } catch (RuntimeException e) {
+            failedReloads.incrementAndGet();
+            Log.errorf("Kubeconfig reload failed, keeping the current client: %s", e.getMessage());
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException ignored) {
+            // già chiuso
+        }
+        if (closer != null) {
+            // i client scambiati ancora nel periodo di grazia si chiudono subito
+            closer.shutdownNow().forEach(Runnable::run);
+        }
+        KubernetesClient client = current.getAndSet(null);
+        if (replay != null) {
+            replay.close();
+        } else if (client != null) {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.drkube.mcpserver.service;
+
+/**
+ * Evento CDI emesso quando {@link KubernetesClientProducer} sostituisce il client dopo
+ * una modifica del kubeconfig; chi tiene watch o informer aperti deve ricrearli.
+ */
+public record KubernetesClientSwapped(long swapNumber) {
+}
@@ -0,0 +1,282 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeCondition;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.quarkiverse.mcp.server.ResourceManager;
+import io.quarkiverse.mcp.server.ResourceResponse;
+import io.quarkiverse.mcp.server.TextResourceContents;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LiveResources — viste del cluster esposte come risorse MCP sottoscrivibili, tenute aggiornate
+ * dagli informer condivisi:
+ * <ul>
+ *     <li>{@code drkube://namespaces/{ns}/pods} stato dei pod di un namespace</li>
+ *     <li>{@code drkube://nodes/conditions} condizioni dei nodi</li>
+ *     <li>{@code drkube://events/warnings} ultimi eventi Warning</li>
+ * </ul>
+ * Ogni oggetto viene ridotto alla riga che compare nella vista: se un evento dell'informer non
+ * cambia la riga (es. solo heartbeat o resourceVersion) non parte nessuna notifica. Le risorse
+ * cambiate vengono segnate e notificate al più una volta per finestra di debounce, così un
+ * rollout di cento pod produce poche notifiche e non cento per subscriber.
+ */
+@ApplicationScoped
+public class LiveResources {
+
+    public static final String NODES_URI = "drkube://nodes/conditions";
+    public static final String WARNINGS_URI = "drkube://events/warnings";
+
+    @Inject
+    InformerRegistry informers;
+
+    @Inject
+    ResourceManager resources;
+
+    @ConfigProperty(name = "drkube.resources.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "drkube.resources.debounce", defaultValue = "1s")
+    Duration debounce;
+
+    @ConfigProperty(name = "drkube.resources.warnings", defaultValue = "50")
+    int maxWarnings;
+
+    private final Map<String, Map<String, String>> podLines = new ConcurrentHashMap<>();
+    private final Map<String, String> nodeLines = new ConcurrentHashMap<>();
+    private final Map<String, String> warnings = new LinkedHashMap<>();
+    private final Map<String, ResourceManager.ResourceInfo> registered = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong notifyNanos = new AtomicLong();
+    private volatile long maxNotifyNanos;
+    private volatile Thread flusher;
+
+    /**
+     * Gli informer si registrano in background con {@link InformerRegistry#startAll}, che riprova se
+     * il client non è ancora disponibile; il flusher parte subito e indipendentemente da loro.
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        register(NODES_URI, "node-conditions", "Conditions, schedulability and taints of every node", this::renderNodes);
+        register(WARNINGS_URI, "warning-events", "The most recent Warning events of the cluster, newest first", this::renderWarnings);
+        flusher = Thread.ofVirtual().name("drkube-live-resources-flush").start(this::flushLoop);
+        informers.startAll("live-resources", List.of(
+                InformerRegistry.registration(Pod.class, InformerRegistry.handler(this::putPod, this::removePod)),
+                InformerRegistry.registration(Node.class, InformerRegistry.handler(this::putNode, this::removeNode)),
+                InformerRegistry.registration(Event.class, InformerRegistry.handler(this::putEvent, e -> { }))));
+        Log.info("Live MCP resources registered, informers starting in background");
+    }
+
+    public static String podsUri(String namespace) {
+        return "drkube://namespaces/" + namespace + "/pods";
+    }
+
+    // --- viste ----------------------------------------------------------------------------
+
+    private void putPod(Pod pod) {
+        String namespace = pod.getMetadata().getNamespace();
+        Map<String, String> lines = podLines.computeIfAbsent(namespace, ns -> {
+            register(podsUri(ns), "pods-" + ns, "Status of the pods in namespace " + ns, () -> renderPods(ns));
+            return new ConcurrentHashMap<>();
+        });
+        String line = podLine(pod);
+        changed(podsUri(namespace), lines.put(pod.getMetadata().getName(), line), line);
+    }
+
+    private void removePod(Pod pod) {
+        Map<String, String> lines = podLines.get(pod.getMetadata().getNamespace());
+        if (lines != null && lines.remove(pod.getMetadata().getName()) != null) {
+            changed(podsUri(pod.getMetadata().getNamespace()), "removed", null);
+        }
+    }
+
+    private static String podLine(Pod pod) {
+        int ready = 0;
+        int total = 0;
+        int restarts = 0;
+        String reason = null;
+        if (pod.getStatus() != null && pod.getStatus().getContainerStatuses() != null) {
+            for (ContainerStatus cs : pod.getStatus().getContainerStatuses()) {
+                total++;
+                ready += Boolean.TRUE.equals(cs.getReady()) ? 1 : 0;
+                restarts += cs.getRestartCount() != null ? cs.getRestartCount() : 0;
+                if (reason == null && cs.getState() != null && cs.getState().getWaiting() != null) {
+                    reason = cs.getState().getWaiting().getReason();
+                }
+            }
+        }
+        String phase = pod.getStatus() != null ? pod.getStatus().getPhase() : "Unknown";
+        return pod.getMetadata().getName() + " " + (reason != null ? reason : phase) + " " + ready + "/" + total
+                + " ready, " + restarts + " restarts, node " + pod.getSpec().getNodeName()
+                + (pod.getMetadata().getDeletionTimestamp() != null ? " (terminating)" : "");
+    }
+
+    private void putNode(Node node) {
+        String line = nodeLine(node);
+        changed(NODES_URI, nodeLines.put(node.getMetadata().getName(), line), line);
+    }
+
+    private void removeNode(Node node) {
+        if (nodeLines.remove(node.getMetadata().getName()) != null) {
+            changed(NODES_URI, "removed", null);
+        }
+    }
+
+    /**
+     * Solo tipo, stato e reason delle condizioni: i timestamp di heartbeat cambiano di continuo e non interessano.
+     */
+    private static String nodeLine(Node node) {
+        StringBuilder sb = new StringBuilder(node.getMetadata().getName());
+        if (node.getStatus() != null && node.getStatus().getConditions() != null) {
+            for (NodeCondition c : node.getStatus().getConditions()) {
+                boolean normal = "Ready".equals(c.getType()) == "True".equals(c.getStatus());
+                sb.append(' ').append(c.getType()).append('=').append(c.getStatus());
+                if (!normal && c.getReason() != null) {
+                    sb.append('(').append(c.getReason()).append(')');
+                }
+            }
+        }
+        if (Boolean.TRUE.equals(node.getSpec().getUnschedulable())) {
+            sb.append(" unschedulable");
+        }
+        int taints = node.getSpec().getTaints() != null ? node.getSpec().getTaints().size() : 0;
+        return taints > 0 ? sb.append(", ").append(taints).append(" taints").toString() : sb.toString();
+    }
+
+    private void putEvent(Event event) {
+        if (!"Warning".equals(event.getType())) {
+            return;
+        }
+        String line = (event.getLastTimestamp() != null ? event.getLastTimestamp() : "") + " "
+                + event.getInvolvedObject().getNamespace() + "/" + event.getInvolvedObject().getKind() + "/"
+                + event.getInvolvedObject().getName() + " " + event.getReason()
+                + (event.getCount() != null && event.getCount() > 1 ? " x" + event.getCount() : "") + ": " + event.getMessage();
+        String previous;
+        synchronized (warnings) {
+            // reinserimento: l'evento aggiornato torna in fondo (più recente)
+            previous = warnings.remove(event.getMetadata().getUid());
+            warnings.put(event.getMetadata().getUid(), line);
+            Iterator<String> oldest = warnings.keySet().iterator();
+            while (warnings.size() > maxWarnings) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        changed(WARNINGS_URI, previous, line);
+    }
+
+    private String renderPods(String namespace) {
+        Map<String, String> lines = podLines.getOrDefault(namespace, Map.of());
+        return lines.isEmpty() ? "No pods in namespace " + namespace : String.join("\n", new TreeMap<>(lines).values());
+    }
+
+    private String renderNodes() {
+        return String.join("\n", new TreeMap<>(nodeLines).values());
+    }
+
+    private String renderWarnings() {
+        List<String> lines;
+        synchronized (warnings) {
+            lines = new ArrayList<>(warnings.values());
+        }
+        return lines.isEmpty() ? "No recent warnings" : String.join("\n", lines.reversed());
+    }
+
+    // --- notifiche ------------------------------------------------------------------------
+
+    private void register(String uri, String name, String description, Supplier<String> render) {
+        registered.computeIfAbsent(uri, u -> resources.newResource(name)
+                .setUri(u)
+                .setDescription(description)
+                .setMimeType("text/plain")
+                .setHandler(args -> new ResourceResponse(List.of(TextResourceContents.create(u, render.get()))))
+                .register());
+    }
+
+    private void changed(String uri, String before, String after) {
+        events.incrementAndGet();
+        if (Objects.equals(before, after)) {
+            unchanged.incrementAndGet();
+        } else if (!dirty.add(uri)) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    private void flushLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(debounce.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    void flush() {
+        for (String uri : List.copyOf(dirty)) {
+            dirty.remove(uri);
+            ResourceManager.ResourceInfo info = registered.get(uri);
+            if (info == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            // invio a tutti i subscriber della risorsa; chi non è iscritto non riceve nulla
+            info.sendUpdateAndForget();
+            long elapsed = System.nanoTime() - start;
+            notifications.incrementAndGet();
+            notifyNanos.addAndGet(elapsed);
+            maxNotifyNanos = Math.max(maxNotifyNanos, elapsed);
+        }
+    }
+
+    /**
+     * Contatori per valutare il costo delle notifiche: eventi ricevuti, eventi senza effetto
+     * sulla vista, eventi assorbiti dal debounce, notifiche inviate e tempo per accodarle (la consegna
+     * ai subscriber è asincrona: il suo costo lo misura ResourceFanoutTest).
+     */
+    public String stats() {
+        long sent = notifications.get();
+        return String.format("resources %d, events %d, unchanged %d, coalesced %d, notifications %d, "
+                        + "enqueue avg %d µs max %d µs",
+                registered.size(), events.get(), unchanged.get(), coalesced.get(), sent,
+                sent == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(notifyNanos.get() / sent),
+                TimeUnit.NANOSECONDS.toMicros(maxNotifyNanos));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+}
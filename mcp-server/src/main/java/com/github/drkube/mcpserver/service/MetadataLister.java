@@ -0,0 +1,367 @@
+package com.github.drkube.mcpserver.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * MetadataLister — liste leggere per i tool che usano solo nomi, label o conteggi.
+ * <p>
+ * Chiede all'API server {@code PartialObjectMetadataList} (solo metadata, senza spec e status)
+ * oppure il formato {@code Table} lato server, e fa il parsing in streaming degli item.
+ */
+@ApplicationScoped
+public class MetadataLister {
+
+    private static final String METADATA_ACCEPT =
+            "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1,application/json";
+    private static final String TABLE_ACCEPT =
+            "application/json;as=Table;g=meta.k8s.io;v=v1,application/json";
+    private static final String FULL_ACCEPT = "application/json";
+    private static final int PAGE_SIZE = 500;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Inject
+    KubernetesClient client;
+
+    /**
+     * Risposta Table: nomi delle colonne e celle di ogni riga.
+     */
+    public record Table(List<String> columns, List<List<Object>> rows) {
+
+        public int column(String name) {
+            return columns.indexOf(name);
+        }
+    }
+
+    public List<ObjectMeta> listMetadata(String path) {
+        return listMetadata(path, null);
+    }
+
+    /**
+     * Lista paginata dei soli metadata, es. {@code /api/v1/pods} con fieldSelector
+     * {@code spec.nodeName=worker-1}.
+     */
+    public List<ObjectMeta> listMetadata(String path, String fieldSelector) {
+        List<ObjectMeta> items = new ArrayList<>();
+        String continueToken = null;
+        do {
+            StringBuilder query = new StringBuilder("?limit=").append(PAGE_SIZE);
+            if (fieldSelector != null) {
+                query.append("&fieldSelector=").append(encode(fieldSelector));
+            }
+            if (continueToken != null) {
+                query.append("&continue=").append(encode(continueToken));
+            }
+            try (InputStream body = get(path + query, METADATA_ACCEPT)) {
+                continueToken = parseMetadataList(body, items);
+            } catch (IOException e) {
+                throw new KubernetesClientException("Error reading " + path + ": " + e.getMessage(), e);
+            }
+        } while (continueToken != null && !continueToken.isEmpty());
+        return items;
+    }
+
+    /**
+     * Scorre una lista completa a pagine deserializzando un item alla volta nel tipo indicato e
+     * passandolo al consumer: né la pagina né la lista restano in memoria. Si ferma prima della
+     * pagina successiva se {@code stop} è vero e in quel caso restituisce false.
+     */
+    public <T> boolean forEachItem(String path, Class<T> type, BooleanSupplier stop, Consumer<T> consumer) {
+        String continueToken = null;
+        do {
+            if (stop.getAsBoolean()) {
+                return false;
+            }
+            StringBuilder query = new StringBuilder("?limit=").append(PAGE_SIZE);
+            if (continueToken != null) {
+                query.append("&continue=").append(encode(continueToken));
+            }
+            try (InputStream body = get(path + query, FULL_ACCEPT)) {
+                continueToken = parseList(body, p -> consumer.accept(p.readValueAs(type)));
+            } catch (IOException e) {
+                throw new KubernetesClientException("Error reading " + path + ": " + e.getMessage(), e);
+            }
+        } while (continueToken != null && !continueToken.isEmpty());
+        return true;
+    }
+
+    /**
+     * Lista paginata in formato Table senza oggetti allegati: solo le colonne stampate da kubectl get.
+     */
+    public Table listTable(String path) {
+        List<String> columns = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>();
+        String continueToken = null;
+        do {
+            StringBuilder query = new StringBuilder("?includeObject=None&limit=").append(PAGE_SIZE);
+            if (continueToken != null) {
+                query.append("&continue=").append(encode(continueToken));
+            }
+            try (InputStream body = get(path + query, TABLE_ACCEPT)) {
+                JsonNode root = MAPPER.readTree(body);
+                Table page = parseTable(root);
+                if (columns.isEmpty()) {
+                    columns.addAll(page.columns());
+                }
+                rows.addAll(page.rows());
+                continueToken = root.path("metadata").path("continue").asText(null);
+            } catch (IOException e) {
+                throw new KubernetesClientException("Error reading " + path + ": " + e.getMessage(), e);
+            }
+        } while (continueToken != null && !continueToken.isEmpty());
+        return new Table(columns, rows);
+    }
+
+    /**
+     * Confronta dimensione del payload e tempo di parsing tra lista completa, metadata-only e Table.
+     */
+    public String compare(String path) {
+        resolve(path);
+        StringBuilder report = new StringBuilder("Payload comparison for ").append(path).append('\n');
+        report.append(measure("full", path, FULL_ACCEPT, in -> client.getKubernetesSerialization().unmarshal(in)));
+        report.append(measure("metadata", path, METADATA_ACCEPT, in -> parseMetadataList(in, new ArrayList<>())));
+        report.append(measure("table", path + "?includeObject=None", TABLE_ACCEPT, in -> parseTable(MAPPER.readTree(in))));
+        return report.toString();
+    }
+
+    @FunctionalInterface
+    private interface BodyParser {
+        Object parse(InputStream in) throws IOException;
+    }
+
+    private String measure(String label, String path, String accept, BodyParser parser) {
+        long start = System.nanoTime();
+        try (CountingInputStream body = new CountingInputStream(get(path, accept))) {
+            parser.parse(body);
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            return String.format("%-9s %,12d bytes %,10d µs%n", label, body.count, micros);
+        } catch (IOException | RuntimeException e) {
+            return String.format("%-9s failed: %s%n", label, e.getMessage());
+        }
+    }
+
+    /**
+     * GET grezzo in JSON con timeout sulla risposta, es. per i proxy verso il kubelet; lo stream va chiuso dal chiamante.
+     */
+    public InputStream open(String pathAndQuery, Duration timeout) {
+        return get(pathAndQuery, FULL_ACCEPT, timeout.toMillis());
+    }
+
+    /**
+     * Risposta testuale con il suo codice HTTP, anche se non 2xx.
+     */
+    public record Text(int code, String body) {
+        public boolean ok() {
+            return code >= 200 && code < 300;
+        }
+    }
+
+    /**
+     * GET in testo semplice che non fallisce sui codici di errore, es. per {@code /readyz?verbose}
+     * che risponde 500 con il dettaglio dei check falliti nel body.
+     */
+    public Text text(String pathAndQuery, Duration timeout) {
+        HttpResponse<InputStream> response = send(pathAndQuery, "text/plain", timeout.toMillis());
+        try (InputStream in = response.body()) {
+            return new Text(response.code(), in != null ? new String(in.readAllBytes(), StandardCharsets.UTF_8) : "");
+        } catch (IOException e) {
+            throw new KubernetesClientException("GET " + pathAndQuery + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private InputStream get(String pathAndQuery, String accept) {
+        return get(pathAndQuery, accept, TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+    }
+
+    private InputStream get(String pathAndQuery, String accept, long timeoutMillis) {
+        HttpResponse<InputStream> response = send(pathAndQuery, accept, timeoutMillis);
+        if (!response.isSuccessful()) {
+            String error;
+            try (InputStream in = response.body()) {
+                error = in != null ? new String(in.readAllBytes(), StandardCharsets.UTF_8) : "";
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+            throw new KubernetesClientException("GET " + pathAndQuery + " failed with HTTP "
+                    + response.code() + ": " + error);
+        }
+        return response.body();
+    }
+
+    private HttpResponse<InputStream> send(String pathAndQuery, String accept, long timeoutMillis) {
+        HttpClient http = client.getHttpClient();
+        HttpRequest request = http.newHttpRequestBuilder()
+                .uri(resolve(pathAndQuery))
+                .header("Accept", accept)
+                .build();
+        try {
+            return http.sendAsync(request, InputStream.class).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("GET " + pathAndQuery + " interrupted", e);
+        } catch (Exception e) {
+            throw new KubernetesClientException("GET " + pathAndQuery + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * URI di un path dell'API server. La richiesta porta le credenziali del client, quindi sono
+     * ammessi solo path assoluti sullo stesso host: niente {@code @}, {@code //}, {@code \} o
+     * schemi, che concatenati all'URL del master (es. {@code @evil.example/x}) cambierebbero l'host.
+     * Il path viene risolto sotto quello del master, che dietro un proxy può avere un prefisso.
+     */
+    private URI resolve(String pathAndQuery) {
+        int query = pathAndQuery != null ? pathAndQuery.indexOf('?') : -1;
+        String path = query >= 0 ? pathAndQuery.substring(0, query) : pathAndQuery;
+        if (path == null || !path.startsWith("/") || path.contains(":") || pathAndQuery.contains("@")
+                || pathAndQuery.contains("//") || pathAndQuery.contains("\\")) {
+            throw new IllegalArgumentException("Invalid API path: " + pathAndQuery);
+        }
+        String master = client.getMasterUrl().toString();
+        URI base = URI.create(master.endsWith("/") ? master : master + "/");
+        URI uri;
+        try {
+            uri = base.resolve(pathAndQuery.substring(1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid API path: " + pathAndQuery, e);
+        }
+        if (!base.getScheme().equals(uri.getScheme()) || !base.getRawAuthority().equals(uri.getRawAuthority())
+                || !uri.getRawPath().startsWith(base.getRawPath())) {
+            throw new IllegalArgumentException("Invalid API path: " + pathAndQuery);
+        }
+        return uri;
+    }
+
+    /**
+     * Legge gli item uno alla volta e deserializza solo il loro campo metadata.
+     * Restituisce il token continue della pagina (null se è l'ultima).
+     */
+    private static String parseMetadataList(InputStream in, List<ObjectMeta> items) throws IOException {
+        return parseList(in, p -> {
+            ObjectMeta meta = readItemMetadata(p);
+            if (meta != null) {
+                items.add(meta);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ItemReader {
+        void read(JsonParser p) throws IOException;
+    }
+
+    /**
+     * Scorre gli item di una lista in streaming: il reader parte dallo START_OBJECT dell'item e
+     * deve consumarlo fino alla sua chiusura. Restituisce il token continue della pagina.
+     */
+    private static String parseList(InputStream in, ItemReader reader) throws IOException {
+        String continueToken = null;
+        try (JsonParser p = MAPPER.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected list payload");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        reader.read(p);
+                    }
+                } else if ("metadata".equals(field) && value == JsonToken.START_OBJECT) {
+                    JsonNode listMeta = p.readValueAsTree();
+                    continueToken = listMeta.path("continue").asText(null);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return continueToken;
+    }
+
+    private static ObjectMeta readItemMetadata(JsonParser p) throws IOException {
+        ObjectMeta meta = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if ("metadata".equals(field)) {
+                meta = p.readValueAs(ObjectMeta.class);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return meta;
+    }
+
+    private static Table parseTable(JsonNode root) {
+        List<String> columns = new ArrayList<>();
+        for (JsonNode column : root.path("columnDefinitions")) {
+            columns.add(column.path("name").asText());
+        }
+        List<List<Object>> rows = new ArrayList<>();
+        for (JsonNode row : root.path("rows")) {
+            List<Object> cells = new ArrayList<>();
+            for (JsonNode cell : row.path("cells")) {
+                cells.add(cell.isNumber() ? cell.numberValue() : cell.asText());
+            }
+            rows.add(cells);
+        }
+        return new Table(columns, rows);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
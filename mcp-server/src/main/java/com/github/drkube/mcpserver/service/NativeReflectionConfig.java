@@ -0,0 +1,26 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.NodeMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.NodeMetricsList;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsList;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Classi deserializzate da Jackson che l'estensione kubernetes-client non registra da sola
+ * (metrics.k8s.io e risorse generiche lette dagli agent) e che servono nella build nativa.
+ */
+@RegisterForReflection(targets = {
+        GenericKubernetesResource.class,
+        GenericKubernetesResourceList.class,
+        PodMetrics.class,
+        PodMetricsList.class,
+        NodeMetrics.class,
+        NodeMetricsList.class,
+        ContainerMetrics.class
+})
+public class NativeReflectionConfig {
+}
@@ -0,0 +1,197 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NodeLeaseMonitor — heartbeat dei kubelet letti dai Lease in {@code kube-node-lease}: il kubelet
+ * rinnova il suo lease ogni quarto di {@code leaseDurationSeconds} (10s di default), mentre la
+ * condizione Ready passa a Unknown solo dopo {@code node-monitor-grace-period} (40-50s). Un nodo
+ * che ha saltato qualche rinnovo è quindi sospetto molto prima che la condizione cambi.
+ * <p>
+ * Come in {@link RestartRateTracker} lo stato sta in array paralleli indicizzati per slot (ultimo
+ * renewTime, istante locale in cui l'abbiamo visto, intervallo di rinnovo stimato): ogni evento
+ * costa una lookup nella mappa nome → slot e qualche scrittura, indipendentemente dal numero di
+ * nodi. L'età si misura sull'orologio locale da quando il rinnovo è arrivato, così lo skew tra
+ * API server e MCP server non produce falsi allarmi.
+ */
+@ApplicationScoped
+public class NodeLeaseMonitor {
+
+    private static final String NAMESPACE = "kube-node-lease";
+    private static final int INITIAL_SLOTS = 1024;
+    // default del kubelet: lease di 40s rinnovato ogni 10s
+    private static final int DEFAULT_DURATION_SECONDS = 40;
+
+    public record Heartbeat(String node, long ageMillis, long intervalMillis, int missedRenewals, int leaseSeconds) {
+        public String format() {
+            return String.format("%s: last renew %.1fs ago (renews every %.1fs, %d missed, lease %ds)",
+                    node, ageMillis / 1000.0, intervalMillis / 1000.0, missedRenewals, leaseSeconds);
+        }
+    }
+
+    @Inject
+    InformerRegistry informers;
+
+    @ConfigProperty(name = "drkube.nodelease.missed-renewals", defaultValue = "3")
+    int missedThreshold;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int used;
+    private String[] node = new String[INITIAL_SLOTS];
+    private long[] renewMillis = new long[INITIAL_SLOTS];
+    private long[] seenMillis = new long[INITIAL_SLOTS];
+    private long[] intervalMillis = new long[INITIAL_SLOTS];
+    private int[] leaseSeconds = new int[INITIAL_SLOTS];
+    private volatile InformerRegistry.Startup startup;
+
+    /**
+     * L'età di un heartbeat si misura da quando il rinnovo è arrivato qui: il watch deve girare da
+     * prima della domanda, quindi parte all'avvio.
+     */
+    void onStart(@Observes StartupEvent event) {
+        startup = informers.startAll("nodelease", List.of(InformerRegistry.registration(Lease.class, NAMESPACE,
+                InformerRegistry.handler(this::observe, this::forget))));
+    }
+
+    /**
+     * True quando la lista iniziale dei lease è stata elaborata; prima nessun nodo è noto e
+     * ogni risposta sarebbe un falso "tutto in orario".
+     */
+    public boolean synced() {
+        InformerRegistry.Startup current = startup;
+        return current != null && current.synced();
+    }
+
+    private synchronized void observe(Lease lease) {
+        if (lease.getSpec() == null) {
+            return;
+        }
+        ZonedDateTime renewTime = lease.getSpec().getRenewTime();
+        if (renewTime == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long renew = renewTime.toInstant().toEpochMilli();
+        int duration = lease.getSpec().getLeaseDurationSeconds() != null
+                ? lease.getSpec().getLeaseDurationSeconds() : DEFAULT_DURATION_SECONDS;
+        String name = lease.getMetadata().getName();
+        Integer slot = slots.get(name);
+
+        if (slot == null) {
+            slot = allocate(name);
+            // prima osservazione: solo l'orologio dell'API server dice quanto è vecchio il rinnovo
+            renewMillis[slot] = renew;
+            seenMillis[slot] = Math.min(now, renew);
+            intervalMillis[slot] = duration * 1000L / 4;
+        } else if (renew > renewMillis[slot]) {
+            long delta = renew - renewMillis[slot];
+            // media mobile dell'intervallo osservato, limitata a un intervallo sensato rispetto al lease
+            long expected = intervalMillis[slot];
+            long clamped = Math.max(500, Math.min(delta, duration * 1000L));
+            intervalMillis[slot] = expected + (clamped - expected) / 4;
+            renewMillis[slot] = renew;
+            seenMillis[slot] = now;
+        }
+        leaseSeconds[slot] = duration;
+    }
+
+    private synchronized void forget(Lease lease) {
+        Integer slot = slots.remove(lease.getMetadata().getName());
+        if (slot != null) {
+            node[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    private int allocate(String name) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == node.length) {
+                int size = used * 2;
+                node = Arrays.copyOf(node, size);
+                renewMillis = Arrays.copyOf(renewMillis, size);
+                seenMillis = Arrays.copyOf(seenMillis, size);
+                intervalMillis = Arrays.copyOf(intervalMillis, size);
+                leaseSeconds = Arrays.copyOf(leaseSeconds, size);
+            }
+            slot = used++;
+        }
+        slots.put(name, slot);
+        node[slot] = name;
+        return slot;
+    }
+
+    /**
+     * Heartbeat di un nodo, o null se il nodo non ha un lease (kubelet molto vecchio o nodo
+     * sconosciuto) o se il monitor non ha ancora completato la lista iniziale.
+     */
+    public Heartbeat heartbeat(String nodeName) {
+        if (!synced()) {
+            return null;
+        }
+        return lookup(nodeName);
+    }
+
+    private synchronized Heartbeat lookup(String nodeName) {
+        Integer slot = slots.get(nodeName);
+        return slot == null ? null : heartbeat(slot, System.currentTimeMillis());
+    }
+
+    /**
+     * True se l'heartbeat ha saltato almeno {@code drkube.nodelease.missed-renewals} rinnovi: la
+     * stessa soglia di {@link #suspects}.
+     */
+    public boolean overdue(Heartbeat heartbeat) {
+        return heartbeat.missedRenewals() >= missedThreshold;
+    }
+
+    /**
+     * Nodi con almeno {@code drkube.nodelease.missed-renewals} rinnovi saltati (o con un rinnovo più
+     * vecchio di minAgeMillis, se indicato), dal heartbeat più vecchio.
+     */
+    public synchronized List<Heartbeat> suspects(long minAgeMillis, int limit) {
+        long now = System.currentTimeMillis();
+        TopK<Heartbeat> top = new TopK<>(limit);
+        // scansione sequenziale degli array: poche migliaia di slot sono microsecondi
+        for (int slot = 0; slot < used; slot++) {
+            if (node[slot] == null) {
+                continue;
+            }
+            long age = now - seenMillis[slot];
+            long overdue = minAgeMillis > 0 ? minAgeMillis : intervalMillis[slot] * missedThreshold;
+            if (age >= overdue) {
+                top.offer(age, heartbeat(slot, now));
+            }
+        }
+        return new ArrayList<>(top.sortedDescending());
+    }
+
+    private Heartbeat heartbeat(int slot, long now) {
+        long age = Math.max(0, now - seenMillis[slot]);
+        long interval = Math.max(1, intervalMillis[slot]);
+        return new Heartbeat(node[slot], age, interval, (int) (age / interval), leaseSeconds[slot]);
+    }
+
+    public synchronized int trackedNodes() {
+        return slots.size();
+    }
+}
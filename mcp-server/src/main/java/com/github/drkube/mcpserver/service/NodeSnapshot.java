@@ -0,0 +1,211 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeCondition;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.NodeMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * NodeSnapshot — fotografia colonnare di tutti i nodi costruita da poche list bulk
+ * (nodi, pod attivi, metriche di nodi e pod), con i top-K pod per CPU e memoria di ogni nodo
+ * scelti tramite heap limitati.
+ */
+public final class NodeSnapshot {
+
+    private static final String[] PRESSURE_TYPES = {"MemoryPressure", "DiskPressure", "PIDPressure", "NetworkUnavailable"};
+    private static final double HIGH_USAGE = 0.9;
+
+    public record PodUsage(String pod, long cpuMillis, long memoryBytes) {
+    }
+
+    private final int size;
+    private final String[] names;
+    private final boolean[] ready;
+    private final boolean[] unschedulable;
+    private final int[] pressure;
+    private final long[] allocatableCpu;
+    private final long[] allocatableMemory;
+    private final long[] allocatablePods;
+    private final long[] usageCpu;
+    private final long[] usageMemory;
+    private final int[] podCount;
+    private final TopK<PodUsage>[] topCpu;
+    private final TopK<PodUsage>[] topMemory;
+    private boolean metricsAvailable = true;
+
+    @SuppressWarnings("unchecked")
+    private NodeSnapshot(List<Node> nodes, int topK) {
+        size = nodes.size();
+        names = new String[size];
+        ready = new boolean[size];
+        unschedulable = new boolean[size];
+        pressure = new int[size];
+        allocatableCpu = new long[size];
+        allocatableMemory = new long[size];
+        allocatablePods = new long[size];
+        usageCpu = new long[size];
+        usageMemory = new long[size];
+        podCount = new int[size];
+        topCpu = new TopK[size];
+        topMemory = new TopK[size];
+
+        for (int i = 0; i < size; i++) {
+            Node node = nodes.get(i);
+            names[i] = node.getMetadata().getName();
+            unschedulable[i] = node.getSpec() != null && Boolean.TRUE.equals(node.getSpec().getUnschedulable());
+            if (node.getStatus() != null) {
+                if (node.getStatus().getConditions() != null) {
+                    for (NodeCondition condition : node.getStatus().getConditions()) {
+                        boolean isTrue = "True".equals(condition.getStatus());
+                        if ("Ready".equals(condition.getType())) {
+                            ready[i] = isTrue;
+                        }
+                        for (int bit = 0; bit < PRESSURE_TYPES.length; bit++) {
+                            if (isTrue && PRESSURE_TYPES[bit].equals(condition.getType())) {
+                                pressure[i] |= 1 << bit;
+                            }
+                        }
+                    }
+                }
+                allocatableCpu[i] = Quantities.cpuMillis(node.getStatus().getAllocatable());
+                allocatableMemory[i] = Quantities.memoryBytes(node.getStatus().getAllocatable());
+                allocatablePods[i] = node.getStatus().getAllocatable() != null
+                        ? Quantities.amount("pods", node.getStatus().getAllocatable().get("pods")) : 0;
+            }
+            topCpu[i] = new TopK<>(topK);
+            topMemory[i] = new TopK<>(topK);
+        }
+    }
+
+    /**
+     * Costruisce la fotografia con quattro chiamate bulk; i pod sono letti a pagine.
+     */
+    public static NodeSnapshot capture(KubernetesClient client, int topK) {
+        List<Node> nodes = client.nodes().list().getItems();
+        NodeSnapshot snapshot = new NodeSnapshot(nodes, topK);
+
+        Map<String, Integer> nodeIndex = new HashMap<>();
+        for (int i = 0; i < snapshot.size; i++) {
+            nodeIndex.put(snapshot.names[i], i);
+        }
+
+        // per ogni pod attivo basta sapere su quale nodo gira
+        Map<String, Integer> podNode = new HashMap<>();
+        Paging.forEach("status.phase!=Succeeded,status.phase!=Failed",
+                o -> client.pods().inAnyNamespace().list(o),
+                pod -> {
+                    Integer index = pod.getSpec().getNodeName() != null ? nodeIndex.get(pod.getSpec().getNodeName()) : null;
+                    if (index != null) {
+                        snapshot.podCount[index]++;
+                        podNode.put(pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName(), index);
+                    }
+                });
+
+        try {
+            for (NodeMetrics metrics : client.top().nodes().metrics().getItems()) {
+                Integer index = nodeIndex.get(metrics.getMetadata().getName());
+                if (index != null) {
+                    snapshot.usageCpu[index] = Quantities.cpuMillis(metrics.getUsage());
+                    snapshot.usageMemory[index] = Quantities.memoryBytes(metrics.getUsage());
+                }
+            }
+            for (PodMetrics metrics : client.top().pods().metrics().getItems()) {
+                String pod = metrics.getMetadata().getNamespace() + "/" + metrics.getMetadata().getName();
+                Integer index = podNode.get(pod);
+                if (index == null) {
+                    continue;
+                }
+                long cpu = 0;
+                long memory = 0;
+                for (ContainerMetrics container : metrics.getContainers()) {
+                    cpu += Quantities.cpuMillis(container.getUsage());
+                    memory += Quantities.memoryBytes(container.getUsage());
+                }
+                PodUsage usage = new PodUsage(pod, cpu, memory);
+                snapshot.topCpu[index].offer(cpu, usage);
+                snapshot.topMemory[index].offer(memory, usage);
+            }
+        } catch (RuntimeException e) {
+            // metrics-server assente: la fotografia resta valida senza l'uso effettivo
+            snapshot.metricsAvailable = false;
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean metricsAvailable() {
+        return metricsAvailable;
+    }
+
+    public boolean hasProblem(int i) {
+        return !ready[i] || unschedulable[i] || pressure[i] != 0
+                || ratio(usageCpu[i], allocatableCpu[i]) >= HIGH_USAGE
+                || ratio(usageMemory[i], allocatableMemory[i]) >= HIGH_USAGE
+                || ratio(podCount[i], allocatablePods[i]) >= HIGH_USAGE;
+    }
+
+    /**
+     * Indici dei nodi filtrati e ordinati: sortBy tra cpu, memory, pods, name.
+     */
+    public List<Integer> select(boolean problemsOnly, String sortBy, int limit) {
+        Comparator<Integer> order = switch (sortBy == null ? "name" : sortBy.toLowerCase()) {
+            case "cpu" -> Comparator.comparingDouble((Integer i) -> ratio(usageCpu[i], allocatableCpu[i])).reversed();
+            case "memory" -> Comparator.comparingDouble((Integer i) -> ratio(usageMemory[i], allocatableMemory[i])).reversed();
+            case "pods" -> Comparator.comparingInt((Integer i) -> podCount[i]).reversed();
+            default -> Comparator.comparing((Integer i) -> names[i]);
+        };
+        return IntStream.range(0, size)
+                .filter(i -> !problemsOnly || hasProblem(i))
+                .boxed()
+                .sorted(order)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public String format(int i) {
+        List<String> pressures = new ArrayList<>();
+        for (int bit = 0; bit < PRESSURE_TYPES.length; bit++) {
+            if ((pressure[i] & (1 << bit)) != 0) {
+                pressures.add(PRESSURE_TYPES[bit]);
+            }
+        }
+        StringBuilder sb = new StringBuilder(names[i])
+                .append(ready[i] ? " Ready" : " NotReady")
+                .append(unschedulable[i] ? ",SchedulingDisabled" : "")
+                .append(pressures.isEmpty() ? "" : " " + pressures);
+        if (metricsAvailable) {
+            sb.append(String.format(" | cpu %s/%s (%.0f%%) mem %s/%s (%.0f%%)",
+                    Quantities.formatCpu(usageCpu[i]), Quantities.formatCpu(allocatableCpu[i]),
+                    100 * ratio(usageCpu[i], allocatableCpu[i]),
+                    Quantities.formatBytes(usageMemory[i]), Quantities.formatBytes(allocatableMemory[i]),
+                    100 * ratio(usageMemory[i], allocatableMemory[i])));
+        }
+        sb.append(String.format(" | pods %d/%d", podCount[i], allocatablePods[i]));
+        if (metricsAvailable && topCpu[i].size() > 0) {
+            sb.append(" | top cpu: ").append(topCpu[i].sortedDescending().stream()
+                    .map(p -> p.pod() + " " + Quantities.formatCpu(p.cpuMillis()))
+                    .collect(Collectors.joining(", ")));
+            sb.append(" | top mem: ").append(topMemory[i].sortedDescending().stream()
+                    .map(p -> p.pod() + " " + Quantities.formatBytes(p.memoryBytes()))
+                    .collect(Collectors.joining(", ")));
+        }
+        return sb.toString();
+    }
+
+    private static double ratio(long used, long total) {
+        return total > 0 ? (double) used / total : 0;
+    }
+}
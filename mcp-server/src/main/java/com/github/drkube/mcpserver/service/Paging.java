@@ -0,0 +1,41 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Paging — scorre una lista a pagine (limit/continue) senza tenere in memoria tutti gli oggetti.
+ */
+public final class Paging {
+
+    public static final long PAGE_SIZE = 500;
+
+    private Paging() {
+    }
+
+    /**
+     * Esempio: {@code Paging.forEach(o -> client.pods().inAnyNamespace().list(o), pod -> ...)}.
+     */
+    public static <T> void forEach(Function<ListOptions, ? extends KubernetesResourceList<T>> lister, Consumer<T> consumer) {
+        forEach(null, lister, consumer);
+    }
+
+    public static <T> void forEach(String fieldSelector, Function<ListOptions, ? extends KubernetesResourceList<T>> lister,
+                                   Consumer<T> consumer) {
+        String continueToken = null;
+        do {
+            ListOptions options = new ListOptionsBuilder()
+                    .withLimit(PAGE_SIZE)
+                    .withContinue(continueToken)
+                    .withFieldSelector(fieldSelector)
+                    .build();
+            KubernetesResourceList<T> page = lister.apply(options);
+            page.getItems().forEach(consumer);
+            continueToken = page.getMetadata() != null ? page.getMetadata().getContinue() : null;
+        } while (continueToken != null && !continueToken.isEmpty());
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.ResourceRequirements;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Quantities — conversione delle Quantity Kubernetes in long: cpu in millicore, il resto
+ * nell'unità base (byte per memoria e storage, unità per pod e device).
+ */
+public final class Quantities {
+
+    private Quantities() {
+    }
+
+    public static long amount(String resource, Quantity quantity) {
+        if (quantity == null) {
+            return 0;
+        }
+        BigDecimal value = Quantity.getAmountInBytes(quantity);
+        return "cpu".equals(resource) ? value.movePointRight(3).longValue() : value.longValue();
+    }
+
+    public static long cpuMillis(Map<String, Quantity> resources) {
+        return resources != null ? amount("cpu", resources.get("cpu")) : 0;
+    }
+
+    public static long memoryBytes(Map<String, Quantity> resources) {
+        return resources != null ? amount("memory", resources.get("memory")) : 0;
+    }
+
+    public static String formatCpu(long millis) {
+        return millis >= 1000 ? String.format("%.2f", millis / 1000.0) : millis + "m";
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes >= 1L << 30) {
+            return String.format("%.1fGi", bytes / (double) (1L << 30));
+        }
+        return String.format("%dMi", bytes >> 20);
+    }
+
+    /**
+     * Richieste effettive del pod: max(somma dei container, init container più grande) + overhead.
+     */
+    public static Map<String, Long> podRequests(Pod pod) {
+        return podResources(pod, ResourceRequirements::getRequests);
+    }
+
+    /**
+     * Limiti del pod calcolati come le richieste; una risorsa senza limite in qualche container non compare.
+     */
+    public static Map<String, Long> podLimits(Pod pod) {
+        Map<String, Long> limits = podResources(pod, ResourceRequirements::getLimits);
+        for (Container container : pod.getSpec().getContainers()) {
+            Map<String, Quantity> own = container.getResources() != null ? container.getResources().getLimits() : null;
+            limits.keySet().removeIf(name -> own == null || !own.containsKey(name));
+        }
+        return limits;
+    }
+
+    private static Map<String, Long> podResources(Pod pod, Function<ResourceRequirements, Map<String, Quantity>> selector) {
+        Map<String, Long> total = new HashMap<>();
+        for (Container container : pod.getSpec().getContainers()) {
+            add(container, selector, total, Long::sum);
+        }
+        if (pod.getSpec().getInitContainers() != null) {
+            for (Container init : pod.getSpec().getInitContainers()) {
+                add(init, selector, total, Math::max);
+            }
+        }
+        if (pod.getSpec().getOverhead() != null) {
+            pod.getSpec().getOverhead().forEach((name, q) -> total.merge(name, amount(name, q), Long::sum));
+        }
+        return total;
+    }
+
+    private static void add(Container container, Function<ResourceRequirements, Map<String, Quantity>> selector,
+                            Map<String, Long> total, BinaryOperator<Long> merge) {
+        if (container.getResources() == null) {
+            return;
+        }
+        Map<String, Quantity> resources = selector.apply(container.getResources());
+        if (resources != null) {
+            resources.forEach((name, q) -> total.merge(name, amount(name, q), merge));
+        }
+    }
+}
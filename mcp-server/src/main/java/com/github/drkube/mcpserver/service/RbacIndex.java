@@ -0,0 +1,506 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
+import io.fabric8.kubernetes.api.model.ServiceAccount;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.PolicyRule;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleRef;
+import io.fabric8.kubernetes.api.model.rbac.Subject;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * RbacIndex — grafo RBAC in memoria (Role, ClusterRole, RoleBinding, ClusterRoleBinding)
+ * aggiornato dagli informer, per rispondere localmente a "X può fare V su R in N?" e
+ * "chi può fare V su R?".
+ * <p>
+ * Ogni binding diventa un insieme di {@link Grant} indicizzati per subject; un grant punta al
+ * ruolo per chiave, quindi la modifica di un ruolo non richiede di toccare i binding. Le regole
+ * dei ClusterRole aggregati vengono ricalcolate solo quando cambia qualche ClusterRole.
+ * <p>
+ * Una regola con {@code resourceNames} vale solo per le richieste su uno di quei nomi: non concede
+ * list, watch né i controlli senza nome, che la riportano a parte come permesso limitato.
+ */
+@ApplicationScoped
+public class RbacIndex {
+
+    @Inject
+    InformerRegistry informers;
+
+    @ConfigProperty(name = "drkube.informers.sync-timeout", defaultValue = "30s")
+    Duration syncTimeout;
+
+    /**
+     * Permesso concesso da un binding: namespace null significa tutto il cluster.
+     */
+    public record Grant(String binding, String namespace, String role) {
+    }
+
+    // verbi che non si riferiscono a un oggetto con nome: le regole con resourceNames non li concedono mai
+    // (create ha un nome solo sulle subresource, es. create pods/exec su un pod)
+    private static final Set<String> UNNAMED_VERBS = Set.of("list", "watch", "deletecollection");
+
+    // gruppo API delle risorse native fuori dal core, per le richieste senza gruppo esplicito
+    private static final Map<String, String> BUILTIN_GROUPS = builtinGroups();
+
+    /**
+     * Richiesta nella forma di kubectl auth can-i: "pods", "pods/log", "deployments.apps", con il
+     * nome dell'oggetto se la domanda riguarda un oggetto preciso (null altrimenti).
+     * Senza gruppo esplicito vale il gruppo della risorsa nativa con quel nome, altrimenti il core.
+     */
+    public record Request(String verb, String group, String resource, String subresource, String name) {
+
+        public Request(String verb, String group, String resource, String subresource) {
+            this(verb, group, resource, subresource, null);
+        }
+
+        public static Request parse(String verb, String resource) {
+            return parse(verb, resource, null);
+        }
+
+        public static Request parse(String verb, String resource, String name) {
+            String sub = null;
+            int slash = resource.indexOf('/');
+            if (slash >= 0) {
+                sub = resource.substring(slash + 1);
+                resource = resource.substring(0, slash);
+            }
+            String group;
+            int dot = resource.indexOf('.');
+            if (dot >= 0) {
+                group = resource.substring(dot + 1);
+                resource = resource.substring(0, dot);
+            } else {
+                group = BUILTIN_GROUPS.getOrDefault(resource, "");
+            }
+            return new Request(verb, group, resource, sub, name == null || name.isBlank() ? null : name);
+        }
+    }
+
+    private static Map<String, String> builtinGroups() {
+        Map<String, String> groups = new HashMap<>();
+        Map.of(
+                "apps", List.of("deployments", "statefulsets", "daemonsets", "replicasets", "controllerrevisions"),
+                "batch", List.of("jobs", "cronjobs"),
+                "rbac.authorization.k8s.io", List.of("roles", "rolebindings", "clusterroles", "clusterrolebindings"),
+                "networking.k8s.io", List.of("ingresses", "ingressclasses", "networkpolicies"),
+                "policy", List.of("poddisruptionbudgets"),
+                "autoscaling", List.of("horizontalpodautoscalers"),
+                "storage.k8s.io", List.of("storageclasses", "volumeattachments", "csidrivers", "csinodes"),
+                "coordination.k8s.io", List.of("leases"),
+                "apiextensions.k8s.io", List.of("customresourcedefinitions"),
+                "admissionregistration.k8s.io", List.of("validatingwebhookconfigurations", "mutatingwebhookconfigurations")
+        ).forEach((group, resources) -> resources.forEach(r -> groups.put(r, group)));
+        groups.put("priorityclasses", "scheduling.k8s.io");
+        groups.put("certificatesigningrequests", "certificates.k8s.io");
+        groups.put("endpointslices", "discovery.k8s.io");
+        return Map.copyOf(groups);
+    }
+
+    private final Map<String, List<PolicyRule>> ownRules = new ConcurrentHashMap<>();
+    private final Map<String, ClusterRole> clusterRoles = new ConcurrentHashMap<>();
+    // sostituita per intero a ogni ricalcolo: chi legge vede sempre una versione completa
+    private volatile Map<String, List<PolicyRule>> aggregatedRules = Map.of();
+    private final Map<String, Grant> grantByBinding = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> subjectsByBinding = new ConcurrentHashMap<>();
+    private final Map<String, Set<Grant>> grantsBySubject = new ConcurrentHashMap<>();
+    private final Map<String, ServiceAccount> serviceAccounts = new ConcurrentHashMap<>();
+    private final AtomicBoolean aggregationDirty = new AtomicBoolean(true);
+    private volatile InformerRegistry.Startup startup;
+
+    /**
+     * Gli informer si registrano all'avvio, in background: le query aspettano che ogni handler abbia
+     * elaborato la lista iniziale, invece di rispondere su un indice ancora parziale.
+     */
+    void onStart(@Observes StartupEvent event) {
+        startup = informers.startAll("rbac", List.of(
+                InformerRegistry.registration(Role.class, InformerRegistry.handler(
+                        r -> ownRules.put(roleKey("Role", r.getMetadata().getNamespace(), r.getMetadata().getName()), rules(r.getRules())),
+                        r -> ownRules.remove(roleKey("Role", r.getMetadata().getNamespace(), r.getMetadata().getName())))),
+                InformerRegistry.registration(ClusterRole.class, InformerRegistry.handler(
+                        r -> {
+                            clusterRoles.put(r.getMetadata().getName(), r);
+                            ownRules.put(roleKey("ClusterRole", null, r.getMetadata().getName()), rules(r.getRules()));
+                            aggregationDirty.set(true);
+                        },
+                        r -> {
+                            clusterRoles.remove(r.getMetadata().getName());
+                            ownRules.remove(roleKey("ClusterRole", null, r.getMetadata().getName()));
+                            aggregationDirty.set(true);
+                        })),
+                InformerRegistry.registration(RoleBinding.class, InformerRegistry.handler(
+                        b -> putBinding("RoleBinding:" + b.getMetadata().getNamespace() + "/" + b.getMetadata().getName(),
+                                b.getMetadata().getNamespace(), b.getRoleRef(), b.getSubjects()),
+                        b -> removeBinding("RoleBinding:" + b.getMetadata().getNamespace() + "/" + b.getMetadata().getName()))),
+                InformerRegistry.registration(ClusterRoleBinding.class, InformerRegistry.handler(
+                        b -> putBinding("ClusterRoleBinding:" + b.getMetadata().getName(), null, b.getRoleRef(), b.getSubjects()),
+                        b -> removeBinding("ClusterRoleBinding:" + b.getMetadata().getName()))),
+                InformerRegistry.registration(ServiceAccount.class, InformerRegistry.handler(
+                        sa -> serviceAccounts.put(sa.getMetadata().getNamespace() + "/" + sa.getMetadata().getName(), sa),
+                        sa -> serviceAccounts.remove(sa.getMetadata().getNamespace() + "/" + sa.getMetadata().getName())))));
+    }
+
+    private void awaitSynced() {
+        InformerRegistry.Startup current = startup;
+        if (current == null) {
+            throw new IllegalStateException("RBAC index not started yet");
+        }
+        current.require(syncTimeout, "RBAC index");
+    }
+
+    // --- aggiornamenti incrementali -------------------------------------------------------
+
+    private static List<PolicyRule> rules(List<PolicyRule> rules) {
+        return rules != null ? List.copyOf(rules) : List.of();
+    }
+
+    private static String roleKey(String kind, String namespace, String name) {
+        return "ClusterRole".equals(kind) ? "ClusterRole:" + name : "Role:" + namespace + "/" + name;
+    }
+
+    private synchronized void putBinding(String bindingKey, String namespace, RoleRef roleRef, List<Subject> subjects) {
+        removeBinding(bindingKey);
+        String role = roleKey(roleRef.getKind(), namespace, roleRef.getName());
+        Grant grant = new Grant(bindingKey, namespace, role);
+        Set<String> keys = new LinkedHashSet<>();
+        if (subjects != null) {
+            for (Subject subject : subjects) {
+                String key = subjectKey(subject);
+                keys.add(key);
+                grantsBySubject.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(grant);
+            }
+        }
+        subjectsByBinding.put(bindingKey, keys);
+        grantByBinding.put(bindingKey, grant);
+    }
+
+    private synchronized void removeBinding(String bindingKey) {
+        Set<String> keys = subjectsByBinding.remove(bindingKey);
+        Grant grant = grantByBinding.remove(bindingKey);
+        if (keys == null || grant == null) {
+            return;
+        }
+        for (String key : keys) {
+            Set<Grant> subjectGrants = grantsBySubject.get(key);
+            if (subjectGrants != null) {
+                subjectGrants.remove(grant);
+                if (subjectGrants.isEmpty()) {
+                    grantsBySubject.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String subjectKey(Subject subject) {
+        if ("ServiceAccount".equals(subject.getKind())) {
+            return serviceAccountKey(subject.getNamespace(), subject.getName());
+        }
+        if ("User".equals(subject.getKind())) {
+            // un service account può comparire anche come utente system:serviceaccount:ns:name
+            String[] parts = subject.getName().split(":");
+            if (parts.length == 4 && "system".equals(parts[0]) && "serviceaccount".equals(parts[1])) {
+                return serviceAccountKey(parts[2], parts[3]);
+            }
+        }
+        return subject.getKind() + ":" + subject.getName();
+    }
+
+    private static String serviceAccountKey(String namespace, String name) {
+        return "ServiceAccount:" + namespace + "/" + name;
+    }
+
+    /**
+     * Chiavi di subject con cui si presenta un service account: se stesso e i gruppi impliciti.
+     */
+    public static List<String> serviceAccountIdentity(String namespace, String name) {
+        return List.of(
+                serviceAccountKey(namespace, name),
+                "Group:system:serviceaccounts",
+                "Group:system:serviceaccounts:" + namespace,
+                "Group:system:authenticated");
+    }
+
+    /**
+     * Identità di un subject generico (User:x, Group:y, ServiceAccount:ns/name).
+     */
+    public static List<String> identity(String kind, String namespace, String name) {
+        if ("ServiceAccount".equalsIgnoreCase(kind)) {
+            return serviceAccountIdentity(namespace, name);
+        }
+        if ("Group".equalsIgnoreCase(kind)) {
+            return List.of("Group:" + name);
+        }
+        return List.of("User:" + name, "Group:system:authenticated");
+    }
+
+    // --- regole effettive dei ruoli ----------------------------------------------------------
+
+    private List<PolicyRule> effectiveRules(String role) {
+        if (aggregationDirty.compareAndSet(true, false)) {
+            recomputeAggregation();
+        }
+        List<PolicyRule> aggregated = aggregatedRules.get(role);
+        return aggregated != null ? aggregated : ownRules.getOrDefault(role, List.of());
+    }
+
+    private void recomputeAggregation() {
+        Map<String, List<PolicyRule>> aggregated = new HashMap<>();
+        for (ClusterRole role : clusterRoles.values()) {
+            if (role.getAggregationRule() == null || role.getAggregationRule().getClusterRoleSelectors() == null) {
+                continue;
+            }
+            List<PolicyRule> rules = new ArrayList<>(rules(role.getRules()));
+            for (ClusterRole candidate : clusterRoles.values()) {
+                if (candidate == role) {
+                    continue;
+                }
+                for (LabelSelector selector : role.getAggregationRule().getClusterRoleSelectors()) {
+                    if (matches(selector, candidate.getMetadata().getLabels())) {
+                        rules.addAll(rules(candidate.getRules()));
+                        break;
+                    }
+                }
+            }
+            aggregated.put("ClusterRole:" + role.getMetadata().getName(), List.copyOf(rules));
+        }
+        aggregatedRules = Map.copyOf(aggregated);
+    }
+
+    static boolean matches(LabelSelector selector, Map<String, String> labels) {
+        Map<String, String> actual = labels != null ? labels : Map.of();
+        if (selector.getMatchLabels() != null) {
+            for (Map.Entry<String, String> label : selector.getMatchLabels().entrySet()) {
+                if (!label.getValue().equals(actual.get(label.getKey()))) {
+                    return false;
+                }
+            }
+        }
+        if (selector.getMatchExpressions() != null) {
+            for (LabelSelectorRequirement requirement : selector.getMatchExpressions()) {
+                String value = actual.get(requirement.getKey());
+                List<String> values = requirement.getValues() != null ? requirement.getValues() : List.of();
+                boolean ok = switch (requirement.getOperator()) {
+                    case "In" -> value != null && values.contains(value);
+                    case "NotIn" -> value == null || !values.contains(value);
+                    case "Exists" -> value != null;
+                    case "DoesNotExist" -> value == null;
+                    default -> false;
+                };
+                if (!ok) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True se la regola copre verbo, gruppo e risorsa della richiesta, senza guardare i resourceNames.
+     */
+    private static boolean ruleMatches(PolicyRule rule, Request request) {
+        if (!containsOrWildcard(rule.getVerbs(), request.verb())) {
+            return false;
+        }
+        if (!containsOrWildcard(rule.getApiGroups(), request.group())) {
+            return false;
+        }
+        if (rule.getResources() == null) {
+            return false;
+        }
+        String wanted = request.subresource() == null
+                ? request.resource()
+                : request.resource() + "/" + request.subresource();
+        for (String resource : rule.getResources()) {
+            if (resource.equals("*") || resource.equals(wanted)
+                    || (request.subresource() != null && (resource.equals(request.resource() + "/*")
+                    || resource.equals("*/" + request.subresource())))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean ruleAllows(PolicyRule rule, Request request) {
+        if (!ruleMatches(rule, request)) {
+            return false;
+        }
+        List<String> names = rule.getResourceNames();
+        return names == null || names.isEmpty()
+                || (request.name() != null && !UNNAMED_VERBS.contains(request.verb())
+                && !("create".equals(request.verb()) && request.subresource() == null) && names.contains(request.name()));
+    }
+
+    /**
+     * Nomi a cui la regola limita una richiesta che altrimenti coprirebbe; vuoto se non la limita.
+     */
+    private static List<String> ruleLimits(PolicyRule rule, Request request) {
+        List<String> names = rule.getResourceNames();
+        if (names == null || names.isEmpty() || !ruleMatches(rule, request) || ruleAllows(rule, request)) {
+            return List.of();
+        }
+        return names;
+    }
+
+    private static boolean containsOrWildcard(Collection<String> values, String wanted) {
+        return values != null && (values.contains("*") || values.contains(wanted));
+    }
+
+    // --- query ---------------------------------------------------------------------------
+
+    /**
+     * Binding che concedono la richiesta a una delle chiavi di identità; namespace null
+     * considera solo i permessi validi su tutto il cluster.
+     */
+    public List<Grant> allowing(List<String> identity, Request request, String namespace) {
+        awaitSynced();
+        List<Grant> result = new ArrayList<>();
+        for (String key : identity) {
+            for (Grant grant : grantsBySubject.getOrDefault(key, Set.of())) {
+                if (applies(grant, namespace) && effectiveRules(grant.role()).stream().anyMatch(rule -> ruleAllows(rule, request))) {
+                    result.add(grant);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Binding che non concedono la richiesta ma la concederebbero su oggetti con certi nomi
+     * (resourceNames), con l'elenco dei nomi ammessi.
+     */
+    public Map<Grant, Set<String>> limitedTo(List<String> identity, Request request, String namespace) {
+        awaitSynced();
+        Map<Grant, Set<String>> result = new LinkedHashMap<>();
+        for (String key : identity) {
+            for (Grant grant : grantsBySubject.getOrDefault(key, Set.of())) {
+                Set<String> names = applies(grant, namespace) ? limits(grant, request) : Set.of();
+                if (!names.isEmpty()) {
+                    result.computeIfAbsent(grant, g -> new TreeSet<>()).addAll(names);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Subject (User:, Group:, ServiceAccount:) a cui qualche binding concede la richiesta.
+     */
+    public Map<String, List<Grant>> whoCan(Request request, String namespace) {
+        awaitSynced();
+        Map<String, List<Grant>> result = new TreeMap<>();
+        for (Map.Entry<String, Set<Grant>> subject : grantsBySubject.entrySet()) {
+            for (Grant grant : subject.getValue()) {
+                if (applies(grant, namespace) && effectiveRules(grant.role()).stream().anyMatch(rule -> ruleAllows(rule, request))) {
+                    result.computeIfAbsent(subject.getKey(), k -> new ArrayList<>()).add(grant);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Subject a cui la richiesta è concessa solo su oggetti con certi nomi: subject, binding e nomi.
+     */
+    public Map<String, Map<Grant, Set<String>>> whoCanOnlyNamed(Request request, String namespace) {
+        awaitSynced();
+        Map<String, Map<Grant, Set<String>>> result = new TreeMap<>();
+        for (Map.Entry<String, Set<Grant>> subject : grantsBySubject.entrySet()) {
+            for (Grant grant : subject.getValue()) {
+                Set<String> names = applies(grant, namespace) ? limits(grant, request) : Set.of();
+                if (!names.isEmpty()) {
+                    result.computeIfAbsent(subject.getKey(), k -> new LinkedHashMap<>()).put(grant, names);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean applies(Grant grant, String namespace) {
+        return grant.namespace() == null || Objects.equals(grant.namespace(), namespace);
+    }
+
+    /**
+     * Nomi ammessi dalle regole del ruolo che limitano la richiesta; vuoto se il ruolo la concede
+     * per intero o non la copre affatto.
+     */
+    private Set<String> limits(Grant grant, Request request) {
+        List<PolicyRule> rules = effectiveRules(grant.role());
+        if (rules.stream().anyMatch(rule -> ruleAllows(rule, request))) {
+            return Set.of();
+        }
+        Set<String> names = new TreeSet<>();
+        rules.forEach(rule -> names.addAll(ruleLimits(rule, request)));
+        return names;
+    }
+
+    /**
+     * Audit dei privilegi di ogni ServiceAccount: restituisce solo quelli con permessi rischiosi.
+     */
+    public Map<String, List<String>> auditServiceAccounts() {
+        awaitSynced();
+        Map<String, List<String>> findings = new TreeMap<>();
+        for (ServiceAccount sa : serviceAccounts.values()) {
+            String namespace = sa.getMetadata().getNamespace();
+            List<String> identity = serviceAccountIdentity(namespace, sa.getMetadata().getName());
+            List<String> risks = new ArrayList<>();
+
+            if (!allowing(identity, new Request("*", "*", "*", null), null).isEmpty()) {
+                risks.add("cluster-admin equivalent (* on *)");
+            }
+            for (String verb : List.of("get", "list")) {
+                if (!allowing(identity, new Request(verb, "", "secrets", null), null).isEmpty()) {
+                    risks.add("can " + verb + " secrets in all namespaces");
+                    break;
+                }
+            }
+            // escalate e bind contano sui ruoli, impersonate sulle identità
+            for (Request request : List.of(
+                    new Request("escalate", "rbac.authorization.k8s.io", "roles", null),
+                    new Request("escalate", "rbac.authorization.k8s.io", "clusterroles", null),
+                    new Request("bind", "rbac.authorization.k8s.io", "roles", null),
+                    new Request("bind", "rbac.authorization.k8s.io", "clusterroles", null),
+                    new Request("impersonate", "", "users", null),
+                    new Request("impersonate", "", "groups", null),
+                    new Request("impersonate", "", "serviceaccounts", null))) {
+                if (!allowing(identity, request, namespace).isEmpty()) {
+                    risks.add("has '" + request.verb() + "' on " + request.resource());
+                }
+            }
+            if (!allowing(identity, new Request("create", "rbac.authorization.k8s.io", "clusterrolebindings", null), null).isEmpty()) {
+                risks.add("can create clusterrolebindings");
+            }
+            if (!allowing(identity, new Request("create", "", "pods", "exec"), namespace).isEmpty()) {
+                risks.add("can exec into pods");
+            }
+            if (!allowing(identity, new Request("get", "", "nodes", "proxy"), null).isEmpty()) {
+                risks.add("can access nodes/proxy (kubelet API)");
+            }
+            if (!risks.isEmpty()) {
+                findings.put(namespace + "/" + sa.getMetadata().getName(), risks);
+            }
+        }
+        return findings;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.nio.file.Path;
+
+/**
+ * API server finto usato con {@code drkube.replay.snapshot}. L'implementazione si appoggia al
+ * mock server fabric8 ed è inclusa solo nelle build con il profilo Maven {@code replay}
+ * ({@code src/replay/java}); senza, {@link KubernetesClientProducer} rifiuta la configurazione.
+ */
+public interface ReplayServer {
+
+    /**
+     * Avvia il server, lo popola con la fotografia e restituisce un client che punta a esso.
+     */
+    KubernetesClient start(Path snapshot);
+
+    void close();
+}
@@ -0,0 +1,185 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RestartRateTracker — tasso di restart per container con decadimento esponenziale, alimentato
+ * dall'informer dei pod: distingue un pod che ha accumulato 40 restart il mese scorso da uno che
+ * riparte ogni minuto adesso, senza nessuna LIST al momento della domanda.
+ * <p>
+ * Lo stato sta in array paralleli indicizzati per slot (tasso, istante dell'ultimo aggiornamento,
+ * ultimo restartCount, motivo ed exit code dell'ultima terminazione); la mappa chiave → slot è
+ * l'unica struttura a oggetti e gli slot dei container spariti vengono riusati.
+ */
+@ApplicationScoped
+public class RestartRateTracker {
+
+    private static final int INITIAL_SLOTS = 1024;
+
+    public record CrashLoop(String namespace, String pod, String container, double restartsPerHour,
+                            int restartCount, String lastReason, int lastExitCode, boolean backOff) {
+    }
+
+    @Inject
+    InformerRegistry informers;
+
+    @ConfigProperty(name = "drkube.restarts.half-life", defaultValue = "10m")
+    Duration halfLife;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int used;
+    private double[] rate = new double[INITIAL_SLOTS];
+    private long[] updatedAt = new long[INITIAL_SLOTS];
+    private int[] restartCount = new int[INITIAL_SLOTS];
+    private int[] exitCode = new int[INITIAL_SLOTS];
+    private boolean[] backOff = new boolean[INITIAL_SLOTS];
+    private String[] reason = new String[INITIAL_SLOTS];
+    private volatile InformerRegistry.Startup startup;
+
+    /**
+     * Il tasso si accumula osservando i restart nel tempo: l'handler va registrato all'avvio, non
+     * alla prima domanda, altrimenti la prima risposta parte da zero.
+     */
+    void onStart(@Observes StartupEvent event) {
+        startup = informers.startAll("restarts", List.of(
+                InformerRegistry.registration(Pod.class, InformerRegistry.handler(this::observe, this::forget))));
+    }
+
+    /**
+     * True quando il tracker ha elaborato la lista iniziale dei pod.
+     */
+    public boolean synced() {
+        InformerRegistry.Startup current = startup;
+        return current != null && current.synced();
+    }
+
+    private synchronized void observe(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (ContainerStatus status : pod.getStatus().getContainerStatuses()) {
+            String key = key(pod, status.getName());
+            int count = status.getRestartCount() != null ? status.getRestartCount() : 0;
+            ContainerStateTerminated last = status.getLastState() != null ? status.getLastState().getTerminated() : null;
+            Integer slot = slots.get(key);
+
+            if (slot == null) {
+                slot = allocate(key);
+                // prima osservazione: dei restart passati conosco solo l'ultimo, lo conto al suo istante
+                long finishedAt = last != null && last.getFinishedAt() != null
+                        ? Instant.parse(last.getFinishedAt()).toEpochMilli() : now;
+                rate[slot] = count > 0 ? decay(now - finishedAt) : 0;
+            } else if (count > restartCount[slot]) {
+                rate[slot] = rate[slot] * decay(now - updatedAt[slot]) + (count - restartCount[slot]);
+            } else if (count < restartCount[slot]) {
+                // contatore azzerato (pod ricreato con lo stesso nome)
+                rate[slot] = 0;
+            } else {
+                rate[slot] = rate[slot] * decay(now - updatedAt[slot]);
+            }
+            updatedAt[slot] = now;
+            restartCount[slot] = count;
+            backOff[slot] = status.getState() != null && status.getState().getWaiting() != null
+                    && "CrashLoopBackOff".equals(status.getState().getWaiting().getReason());
+            if (last != null) {
+                reason[slot] = last.getReason();
+                exitCode[slot] = last.getExitCode() != null ? last.getExitCode() : 0;
+            }
+        }
+    }
+
+    private synchronized void forget(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
+            return;
+        }
+        for (ContainerStatus status : pod.getStatus().getContainerStatuses()) {
+            Integer slot = slots.remove(key(pod, status.getName()));
+            if (slot != null) {
+                reason[slot] = null;
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+            }
+        }
+    }
+
+    private int allocate(String key) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == rate.length) {
+                int size = used * 2;
+                rate = Arrays.copyOf(rate, size);
+                updatedAt = Arrays.copyOf(updatedAt, size);
+                restartCount = Arrays.copyOf(restartCount, size);
+                exitCode = Arrays.copyOf(exitCode, size);
+                backOff = Arrays.copyOf(backOff, size);
+                reason = Arrays.copyOf(reason, size);
+            }
+            slot = used++;
+        }
+        slots.put(key, slot);
+        rate[slot] = 0;
+        exitCode[slot] = 0;
+        return slot;
+    }
+
+    /**
+     * Fattore di decadimento dopo elapsed millisecondi: 0.5 ogni half-life.
+     */
+    private double decay(long elapsed) {
+        return Math.pow(0.5, Math.max(0, elapsed) / (double) halfLife.toMillis());
+    }
+
+    /**
+     * Container con tasso decaduto di almeno minPerHour restart/ora (o in CrashLoopBackOff), dal più alto.
+     * Il valore decaduto diviso la costante di tempo (half-life / ln 2) stima i restart all'ora.
+     */
+    public synchronized List<CrashLoop> crashLooping(String namespace, double minPerHour, int limit) {
+        long now = System.currentTimeMillis();
+        double tauHours = halfLife.toMillis() / Math.log(2) / 3_600_000.0;
+        TopK<CrashLoop> top = new TopK<>(limit);
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            int slot = entry.getValue();
+            double perHour = rate[slot] * decay(now - updatedAt[slot]) / tauHours;
+            if (perHour < minPerHour && !backOff[slot]) {
+                continue;
+            }
+            String[] parts = entry.getKey().split("/", 3);
+            if (namespace != null && !namespace.equals(parts[0])) {
+                continue;
+            }
+            top.offer(Math.round(perHour * 1000), new CrashLoop(parts[0], parts[1], parts[2], perHour,
+                    restartCount[slot], reason[slot], exitCode[slot], backOff[slot]));
+        }
+        return new ArrayList<>(top.sortedDescending());
+    }
+
+    public synchronized int trackedContainers() {
+        return slots.size();
+    }
+
+    private static String key(Pod pod, String container) {
+        return pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName() + "/" + container;
+    }
+}
@@ -0,0 +1,439 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeSelectorRequirement;
+import io.fabric8.kubernetes.api.model.NodeSelectorTerm;
+import io.fabric8.kubernetes.api.model.PersistentVolume;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.Taint;
+import io.fabric8.kubernetes.api.model.Toleration;
+import io.fabric8.kubernetes.api.model.Volume;
+import io.fabric8.kubernetes.api.model.storage.StorageClass;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * SchedulingSimulator — valuta in memoria perché un pod Pending non entra su nessun nodo.
+ * <p>
+ * I nodi sono indicizzati per posizione: label, taint e stato cordon diventano BitSet e ogni
+ * predicato è un'operazione tra bitset sui nodi ancora candidati. Come nello scheduler, ogni
+ * nodo scartato viene attribuito al primo predicato che fallisce. L'istanza è immutabile dopo
+ * la costruzione, quindi {@link #explain(Pod)} si può chiamare in parallelo su più pod.
+ */
+public final class SchedulingSimulator {
+
+    private static final String PODS = "pods";
+    private static final String ZONE_LABEL = "topology.kubernetes.io/zone";
+    private static final String LEGACY_ZONE_LABEL = "failure-domain.beta.kubernetes.io/zone";
+
+    private record TaintKey(String key, String value, String effect) {
+    }
+
+    /**
+     * Esito per un pod: nodi compatibili, scarti per predicato e problemi a livello di pod.
+     */
+    public record PodFit(String pod, int nodes, int feasible, Map<String, Integer> rejections,
+                         List<String> podIssues, String schedulerMessage) {
+
+        /**
+         * Spiegazione nel formato dei messaggi dello scheduler ("0/3 nodes are available: ...").
+         */
+        public String explanation() {
+            StringBuilder sb = new StringBuilder();
+            if (!podIssues.isEmpty()) {
+                sb.append(String.join(", ", podIssues)).append(". ");
+            }
+            sb.append(feasible).append('/').append(nodes).append(" nodes are available");
+            if (!rejections.isEmpty()) {
+                sb.append(": ");
+                List<String> parts = new ArrayList<>();
+                rejections.forEach((reason, count) -> parts.add(count + " " + reason));
+                sb.append(String.join(", ", parts));
+            }
+            sb.append('.');
+            if (schedulerMessage != null) {
+                sb.append(" Scheduler reported: ").append(schedulerMessage);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final int nodeCount;
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private final Map<String, Map<String, BitSet>> labelValues = new HashMap<>();
+    private final Map<String, BitSet> labelKeys = new HashMap<>();
+    private final BitSet unschedulable = new BitSet();
+    private final Map<TaintKey, BitSet> taints = new LinkedHashMap<>();
+    // risorse libere per nodo: cpu in millicore, il resto nell'unità base (byte, pod, device)
+    private final Map<String, long[]> free = new HashMap<>();
+    private final Map<String, PersistentVolumeClaim> pvcs = new HashMap<>();
+    private final Map<String, PersistentVolume> pvs = new HashMap<>();
+    private final Map<String, String> bindingModes = new HashMap<>();
+
+    public SchedulingSimulator(List<Node> nodes, List<Pod> pods, List<PersistentVolumeClaim> claims,
+                               List<PersistentVolume> volumes, List<StorageClass> storageClasses) {
+        this.nodeCount = nodes.size();
+
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes.get(i);
+            nodeIndex.put(node.getMetadata().getName(), i);
+
+            Map<String, String> labels = node.getMetadata().getLabels();
+            if (labels != null) {
+                for (Map.Entry<String, String> label : labels.entrySet()) {
+                    labelKeys.computeIfAbsent(label.getKey(), k -> new BitSet(nodeCount)).set(i);
+                    labelValues.computeIfAbsent(label.getKey(), k -> new HashMap<>())
+                            .computeIfAbsent(label.getValue(), v -> new BitSet(nodeCount)).set(i);
+                }
+            }
+
+            if (node.getSpec() != null) {
+                if (Boolean.TRUE.equals(node.getSpec().getUnschedulable())) {
+                    unschedulable.set(i);
+                }
+                if (node.getSpec().getTaints() != null) {
+                    for (Taint taint : node.getSpec().getTaints()) {
+                        if ("NoSchedule".equals(taint.getEffect()) || "NoExecute".equals(taint.getEffect())) {
+                            taints.computeIfAbsent(
+                                    new TaintKey(taint.getKey(), Objects.toString(taint.getValue(), ""), taint.getEffect()),
+                                    k -> new BitSet(nodeCount)).set(i);
+                        }
+                    }
+                }
+            }
+
+            if (node.getStatus() != null && node.getStatus().getAllocatable() != null) {
+                for (Map.Entry<String, Quantity> allocatable : node.getStatus().getAllocatable().entrySet()) {
+                    free.computeIfAbsent(allocatable.getKey(), k -> new long[nodeCount])[i] =
+                            amount(allocatable.getKey(), allocatable.getValue());
+                }
+            }
+        }
+
+        // sottraggo le richieste dei pod già assegnati e non terminati
+        for (Pod pod : pods) {
+            String nodeName = pod.getSpec() != null ? pod.getSpec().getNodeName() : null;
+            Integer index = nodeName != null ? nodeIndex.get(nodeName) : null;
+            if (index == null || isTerminated(pod)) {
+                continue;
+            }
+            for (Map.Entry<String, Long> request : Quantities.podRequests(pod).entrySet()) {
+                long[] column = free.get(request.getKey());
+                if (column != null) {
+                    column[index] -= request.getValue();
+                }
+            }
+            // ogni pod occupa anche uno slot di allocatable "pods"
+            long[] podSlots = free.get(PODS);
+            if (podSlots != null) {
+                podSlots[index] -= 1;
+            }
+        }
+
+        for (PersistentVolumeClaim claim : claims) {
+            pvcs.put(claim.getMetadata().getNamespace() + "/" + claim.getMetadata().getName(), claim);
+        }
+        for (PersistentVolume volume : volumes) {
+            pvs.put(volume.getMetadata().getName(), volume);
+        }
+        for (StorageClass storageClass : storageClasses) {
+            bindingModes.put(storageClass.getMetadata().getName(), storageClass.getVolumeBindingMode());
+        }
+    }
+
+    public static boolean isPending(Pod pod) {
+        return pod.getStatus() != null && "Pending".equalsIgnoreCase(pod.getStatus().getPhase())
+                && (pod.getSpec() == null || pod.getSpec().getNodeName() == null);
+    }
+
+    public PodFit explain(Pod pod) {
+        String name = pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName();
+        Map<String, Integer> rejections = new TreeMap<>();
+        List<String> podIssues = new ArrayList<>();
+
+        BitSet candidates = new BitSet(nodeCount);
+        candidates.set(0, nodeCount);
+        List<Toleration> tolerations = pod.getSpec().getTolerations() != null
+                ? pod.getSpec().getTolerations() : List.of();
+
+        // NodeUnschedulable
+        if (!tolerates(tolerations, new TaintKey("node.kubernetes.io/unschedulable", "", "NoSchedule"))) {
+            reject(candidates, unschedulable, "node(s) were unschedulable", rejections);
+        }
+
+        // TaintToleration: ogni nodo è attribuito al primo taint non tollerato
+        for (Map.Entry<TaintKey, BitSet> taint : taints.entrySet()) {
+            if (!tolerates(tolerations, taint.getKey())) {
+                reject(candidates, taint.getValue(), String.format("node(s) had untolerated taint {%s: %s}",
+                        taint.getKey().key(), taint.getKey().value()), rejections);
+            }
+        }
+
+        // NodeAffinity: nodeSelector e required node affinity
+        BitSet affinity = all();
+        if (pod.getSpec().getNodeSelector() != null) {
+            for (Map.Entry<String, String> selector : pod.getSpec().getNodeSelector().entrySet()) {
+                affinity.and(valuesOf(selector.getKey(), List.of(selector.getValue())));
+            }
+        }
+        if (pod.getSpec().getAffinity() != null && pod.getSpec().getAffinity().getNodeAffinity() != null
+                && pod.getSpec().getAffinity().getNodeAffinity().getRequiredDuringSchedulingIgnoredDuringExecution() != null) {
+            affinity.and(matchTerms(pod.getSpec().getAffinity().getNodeAffinity()
+                    .getRequiredDuringSchedulingIgnoredDuringExecution().getNodeSelectorTerms()));
+        }
+        keep(candidates, affinity, "node(s) didn't match Pod's node affinity/selector", rejections);
+
+        // NodeResourcesFit: un nodo può mancare di più risorse, ognuna viene contata
+        BitSet insufficient = new BitSet(nodeCount);
+        Map<String, Long> requests = Quantities.podRequests(pod);
+        requests.put(PODS, 1L);
+        for (Map.Entry<String, Long> request : requests.entrySet()) {
+            long needed = request.getValue();
+            if (needed <= 0) {
+                continue;
+            }
+            long[] column = free.get(request.getKey());
+            BitSet lacking = new BitSet(nodeCount);
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (column == null || column[i] < needed) {
+                    lacking.set(i);
+                }
+            }
+            if (!lacking.isEmpty()) {
+                String reason = PODS.equals(request.getKey()) ? "Too many pods" : "Insufficient " + request.getKey();
+                rejections.merge(reason, lacking.cardinality(), Integer::sum);
+                insufficient.or(lacking);
+            }
+        }
+        candidates.andNot(insufficient);
+
+        // VolumeBinding e VolumeZone sui PVC del pod
+        BitSet volumeAffinity = all();
+        BitSet volumeZone = all();
+        if (pod.getSpec().getVolumes() != null) {
+            for (Volume volume : pod.getSpec().getVolumes()) {
+                if (volume.getPersistentVolumeClaim() == null) {
+                    continue;
+                }
+                String claimName = volume.getPersistentVolumeClaim().getClaimName();
+                PersistentVolumeClaim claim = pvcs.get(pod.getMetadata().getNamespace() + "/" + claimName);
+                if (claim == null) {
+                    podIssues.add("persistentvolumeclaim \"" + claimName + "\" not found");
+                    continue;
+                }
+                String volumeName = claim.getSpec() != null ? claim.getSpec().getVolumeName() : null;
+                PersistentVolume pv = volumeName != null ? pvs.get(volumeName) : null;
+                if (pv == null) {
+                    String storageClass = claim.getSpec() != null ? claim.getSpec().getStorageClassName() : null;
+                    if (!"WaitForFirstConsumer".equals(bindingModes.get(storageClass))) {
+                        podIssues.add("pod has unbound immediate PersistentVolumeClaims (" + claimName + ")");
+                    }
+                    continue;
+                }
+                if (pv.getSpec().getNodeAffinity() != null && pv.getSpec().getNodeAffinity().getRequired() != null) {
+                    volumeAffinity.and(matchTerms(pv.getSpec().getNodeAffinity().getRequired().getNodeSelectorTerms()));
+                }
+                Map<String, String> pvLabels = pv.getMetadata().getLabels();
+                if (pvLabels != null) {
+                    for (String zoneLabel : List.of(ZONE_LABEL, LEGACY_ZONE_LABEL)) {
+                        if (pvLabels.containsKey(zoneLabel)) {
+                            // un PV regionale elenca più zone separate da "__"
+                            volumeZone.and(valuesOf(zoneLabel, List.of(pvLabels.get(zoneLabel).split("__"))));
+                        }
+                    }
+                }
+            }
+        }
+        keep(candidates, volumeAffinity, "node(s) had volume node affinity conflict", rejections);
+        keep(candidates, volumeZone, "node(s) had no available volume zone", rejections);
+
+        return new PodFit(name, nodeCount, candidates.cardinality(), rejections, podIssues, schedulerMessage(pod));
+    }
+
+    private static String schedulerMessage(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getConditions() == null) {
+            return null;
+        }
+        return pod.getStatus().getConditions().stream()
+                .filter(c -> "PodScheduled".equals(c.getType()) && "False".equals(c.getStatus()))
+                .map(c -> c.getMessage())
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void reject(BitSet candidates, BitSet failing, String reason, Map<String, Integer> rejections) {
+        BitSet rejected = (BitSet) candidates.clone();
+        rejected.and(failing);
+        if (!rejected.isEmpty()) {
+            rejections.merge(reason, rejected.cardinality(), Integer::sum);
+            candidates.andNot(rejected);
+        }
+    }
+
+    private static void keep(BitSet candidates, BitSet passing, String reason, Map<String, Integer> rejections) {
+        BitSet rejected = (BitSet) candidates.clone();
+        rejected.andNot(passing);
+        if (!rejected.isEmpty()) {
+            rejections.merge(reason, rejected.cardinality(), Integer::sum);
+            candidates.and(passing);
+        }
+    }
+
+    private BitSet all() {
+        BitSet bits = new BitSet(nodeCount);
+        bits.set(0, nodeCount);
+        return bits;
+    }
+
+    private BitSet valuesOf(String key, List<String> values) {
+        BitSet bits = new BitSet(nodeCount);
+        Map<String, BitSet> byValue = labelValues.get(key);
+        if (byValue != null) {
+            for (String value : values) {
+                BitSet nodes = byValue.get(value);
+                if (nodes != null) {
+                    bits.or(nodes);
+                }
+            }
+        }
+        return bits;
+    }
+
+    private BitSet matchTerms(List<NodeSelectorTerm> terms) {
+        BitSet result = new BitSet(nodeCount);
+        if (terms == null) {
+            return result;
+        }
+        for (NodeSelectorTerm term : terms) {
+            result.or(matchTerm(term));
+        }
+        return result;
+    }
+
+    private BitSet matchTerm(NodeSelectorTerm term) {
+        boolean noExpressions = term.getMatchExpressions() == null || term.getMatchExpressions().isEmpty();
+        boolean noFields = term.getMatchFields() == null || term.getMatchFields().isEmpty();
+        if (noExpressions && noFields) {
+            // un term vuoto non seleziona alcun nodo
+            return new BitSet(nodeCount);
+        }
+        BitSet match = all();
+        if (!noExpressions) {
+            for (NodeSelectorRequirement requirement : term.getMatchExpressions()) {
+                match.and(matchLabel(requirement));
+            }
+        }
+        if (!noFields) {
+            for (NodeSelectorRequirement requirement : term.getMatchFields()) {
+                match.and(matchField(requirement));
+            }
+        }
+        return match;
+    }
+
+    private BitSet matchLabel(NodeSelectorRequirement requirement) {
+        String key = requirement.getKey();
+        List<String> values = requirement.getValues() != null ? requirement.getValues() : List.of();
+        switch (requirement.getOperator()) {
+            case "In":
+                return valuesOf(key, values);
+            case "NotIn": {
+                BitSet bits = all();
+                bits.andNot(valuesOf(key, values));
+                return bits;
+            }
+            case "Exists": {
+                BitSet present = labelKeys.get(key);
+                return present != null ? (BitSet) present.clone() : new BitSet(nodeCount);
+            }
+            case "DoesNotExist": {
+                BitSet bits = all();
+                BitSet present = labelKeys.get(key);
+                if (present != null) {
+                    bits.andNot(present);
+                }
+                return bits;
+            }
+            case "Gt":
+            case "Lt": {
+                BitSet bits = new BitSet(nodeCount);
+                Map<String, BitSet> byValue = labelValues.get(key);
+                if (byValue == null || values.size() != 1) {
+                    return bits;
+                }
+                long bound = Long.parseLong(values.get(0));
+                boolean greater = "Gt".equals(requirement.getOperator());
+                for (Map.Entry<String, BitSet> entry : byValue.entrySet()) {
+                    try {
+                        long value = Long.parseLong(entry.getKey());
+                        if (greater ? value > bound : value < bound) {
+                            bits.or(entry.getValue());
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // label non numerica: non soddisfa Gt/Lt
+                    }
+                }
+                return bits;
+            }
+            default:
+                return new BitSet(nodeCount);
+        }
+    }
+
+    private BitSet matchField(NodeSelectorRequirement requirement) {
+        BitSet bits = new BitSet(nodeCount);
+        if (!"metadata.name".equals(requirement.getKey()) || requirement.getValues() == null) {
+            return bits;
+        }
+        for (String value : requirement.getValues()) {
+            Integer index = nodeIndex.get(value);
+            if (index != null) {
+                bits.set(index);
+            }
+        }
+        if ("NotIn".equals(requirement.getOperator())) {
+            BitSet inverse = all();
+            inverse.andNot(bits);
+            return inverse;
+        }
+        return bits;
+    }
+
+    private static boolean tolerates(List<Toleration> tolerations, TaintKey taint) {
+        for (Toleration toleration : tolerations) {
+            if (toleration.getEffect() != null && !toleration.getEffect().isEmpty()
+                    && !toleration.getEffect().equals(taint.effect())) {
+                continue;
+            }
+            if ("Exists".equals(toleration.getOperator())) {
+                if (toleration.getKey() == null || toleration.getKey().isEmpty()
+                        || toleration.getKey().equals(taint.key())) {
+                    return true;
+                }
+            } else if (Objects.equals(toleration.getKey(), taint.key())
+                    && Objects.toString(toleration.getValue(), "").equals(taint.value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTerminated(Pod pod) {
+        String phase = pod.getStatus() != null ? pod.getStatus().getPhase() : null;
+        return "Succeeded".equals(phase) || "Failed".equals(phase);
+    }
+
+    private static long amount(String resource, Quantity quantity) {
+        return Quantities.amount(resource, quantity);
+    }
+}
@@ -0,0 +1,478 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeSelectorRequirement;
+import io.fabric8.kubernetes.api.model.NodeSelectorTerm;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.api.model.PersistentVolume;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Volume;
+import io.fabric8.kubernetes.api.model.storage.StorageClass;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * StorageGraph — grafo in memoria PV ↔ PVC ↔ Pod ↔ Node ↔ StorageClass aggiornato dagli
+ * informer, con indici in entrambe le direzioni: volume → claim, claim → volume, claim → pod
+ * che la montano, pod → claim, StorageClass → volumi e claim. Orfani, capacità per classe e
+ * conflitti di access mode si calcolano senza chiamate all'API server.
+ */
+@ApplicationScoped
+public class StorageGraph {
+
+    private static final String HOSTNAME_LABEL = "kubernetes.io/hostname";
+    private static final String DEFAULT_CLASS_ANNOTATION = "storageclass.kubernetes.io/is-default-class";
+
+    @Inject
+    InformerRegistry informers;
+
+    @ConfigProperty(name = "drkube.informers.sync-timeout", defaultValue = "30s")
+    Duration syncTimeout;
+
+    /**
+     * PersistentVolume: claim "ns/nome" dal claimRef, node se il volume è vincolato a un nodo (local/hostPath).
+     */
+    public record PvNode(String name, String phase, long capacity, String storageClass, Set<String> accessModes,
+                         String claim, String node, String reclaimPolicy) {
+    }
+
+    public record PvcNode(String key, String phase, String volume, String storageClass, long request,
+                          Set<String> accessModes) {
+    }
+
+    /**
+     * Pod che monta una claim.
+     */
+    public record Mount(String pod, String node, String phase, boolean readOnly) {
+    }
+
+    public record ClassInfo(String name, String provisioner, String reclaimPolicy, String bindingMode, boolean isDefault) {
+    }
+
+    /**
+     * Totali per StorageClass; capacità in byte.
+     */
+    public record ClassCapacity(String storageClass, ClassInfo info, int pvs, long capacity, long bound,
+                                long available, long released, int pvcs, long requested, int pending) {
+
+        public String format() {
+            String header = storageClass + (info == null ? " (no StorageClass object)"
+                    : " [" + info.provisioner() + ", reclaim=" + info.reclaimPolicy() + ", binding=" + info.bindingMode()
+                    + (info.isDefault() ? ", default" : "") + "]");
+            return header + ": " + pvs + " PVs " + Quantities.formatBytes(capacity)
+                    + " (bound " + Quantities.formatBytes(bound)
+                    + ", available " + Quantities.formatBytes(available)
+                    + ", released " + Quantities.formatBytes(released) + "), "
+                    + pvcs + " PVCs requesting " + Quantities.formatBytes(requested)
+                    + (pending > 0 ? ", " + pending + " pending" : "");
+        }
+    }
+
+    private final Map<String, PvNode> volumes = new HashMap<>();
+    private final Map<String, PvcNode> claims = new HashMap<>();
+    private final Map<String, Map<String, Mount>> mountsByClaim = new HashMap<>();
+    private final Map<String, Set<String>> claimsByPod = new HashMap<>();
+    private final Map<String, String> claimByVolume = new HashMap<>();
+    private final Map<String, Set<String>> volumesByClass = new HashMap<>();
+    private final Map<String, Set<String>> claimsByClass = new HashMap<>();
+    private final Map<String, ClassInfo> classes = new HashMap<>();
+    private final Set<String> nodes = new HashSet<>();
+    private volatile InformerRegistry.Startup startup;
+
+    /**
+     * Gli informer si registrano all'avvio, in background: le query aspettano che ogni handler abbia
+     * elaborato la lista iniziale, invece di rispondere su un grafo ancora parziale.
+     */
+    void onStart(@Observes StartupEvent event) {
+        startup = informers.startAll("storage", List.of(
+                InformerRegistry.registration(StorageClass.class, InformerRegistry.handler(this::putClass,
+                        sc -> removeClass(sc.getMetadata().getName()))),
+                InformerRegistry.registration(Node.class, InformerRegistry.handler(n -> putNode(n.getMetadata().getName()),
+                        n -> removeNode(n.getMetadata().getName()))),
+                InformerRegistry.registration(PersistentVolume.class, InformerRegistry.handler(this::putVolume,
+                        pv -> removeVolume(pv.getMetadata().getName()))),
+                InformerRegistry.registration(PersistentVolumeClaim.class, InformerRegistry.handler(this::putClaim,
+                        pvc -> removeClaim(key(pvc.getMetadata().getNamespace(), pvc.getMetadata().getName())))),
+                InformerRegistry.registration(Pod.class, InformerRegistry.handler(this::putPod,
+                        p -> removePod(key(p.getMetadata().getNamespace(), p.getMetadata().getName()))))));
+    }
+
+    private void awaitSynced() {
+        InformerRegistry.Startup current = startup;
+        if (current == null) {
+            throw new IllegalStateException("Storage graph not started yet");
+        }
+        current.require(syncTimeout, "Storage graph");
+    }
+
+    // --- aggiornamenti incrementali -------------------------------------------------------
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    private static String className(String storageClass) {
+        return storageClass == null || storageClass.isEmpty() ? "<none>" : storageClass;
+    }
+
+    private synchronized void putClass(StorageClass sc) {
+        Map<String, String> annotations = sc.getMetadata().getAnnotations();
+        boolean isDefault = annotations != null && "true".equals(annotations.get(DEFAULT_CLASS_ANNOTATION));
+        classes.put(sc.getMetadata().getName(), new ClassInfo(sc.getMetadata().getName(), sc.getProvisioner(),
+                sc.getReclaimPolicy() != null ? sc.getReclaimPolicy() : "Delete",
+                sc.getVolumeBindingMode() != null ? sc.getVolumeBindingMode() : "Immediate", isDefault));
+    }
+
+    private synchronized void removeClass(String name) {
+        classes.remove(name);
+    }
+
+    private synchronized void putNode(String name) {
+        nodes.add(name);
+    }
+
+    private synchronized void removeNode(String name) {
+        nodes.remove(name);
+    }
+
+    private synchronized void putVolume(PersistentVolume pv) {
+        String name = pv.getMetadata().getName();
+        removeVolume(name);
+        ObjectReference ref = pv.getSpec().getClaimRef();
+        String claim = ref != null ? key(ref.getNamespace(), ref.getName()) : null;
+        PvNode node = new PvNode(name,
+                pv.getStatus() != null ? pv.getStatus().getPhase() : null,
+                pv.getSpec().getCapacity() != null ? Quantities.amount("storage", pv.getSpec().getCapacity().get("storage")) : 0,
+                className(pv.getSpec().getStorageClassName()),
+                pv.getSpec().getAccessModes() != null ? Set.copyOf(pv.getSpec().getAccessModes()) : Set.of(),
+                claim, pinnedNode(pv),
+                pv.getSpec().getPersistentVolumeReclaimPolicy());
+        volumes.put(name, node);
+        volumesByClass.computeIfAbsent(node.storageClass(), k -> new HashSet<>()).add(name);
+        if (claim != null) {
+            claimByVolume.put(name, claim);
+        }
+    }
+
+    private synchronized void removeVolume(String name) {
+        PvNode old = volumes.remove(name);
+        if (old != null) {
+            remove(volumesByClass, old.storageClass(), name);
+            claimByVolume.remove(name);
+        }
+    }
+
+    /**
+     * Nodo a cui è vincolato il volume tramite nodeAffinity su kubernetes.io/hostname, se uno solo.
+     */
+    private static String pinnedNode(PersistentVolume pv) {
+        if (pv.getSpec().getNodeAffinity() == null || pv.getSpec().getNodeAffinity().getRequired() == null) {
+            return null;
+        }
+        for (NodeSelectorTerm term : pv.getSpec().getNodeAffinity().getRequired().getNodeSelectorTerms()) {
+            if (term.getMatchExpressions() == null) {
+                continue;
+            }
+            for (NodeSelectorRequirement requirement : term.getMatchExpressions()) {
+                if (HOSTNAME_LABEL.equals(requirement.getKey()) && "In".equals(requirement.getOperator())
+                        && requirement.getValues() != null && requirement.getValues().size() == 1) {
+                    return requirement.getValues().get(0);
+                }
+            }
+        }
+        return null;
+    }
+
+    private synchronized void putClaim(PersistentVolumeClaim pvc) {
+        String key = key(pvc.getMetadata().getNamespace(), pvc.getMetadata().getName());
+        removeClaim(key);
+        long request = 0;
+        if (pvc.getSpec().getResources() != null && pvc.getSpec().getResources().getRequests() != null) {
+            request = Quantities.amount("storage", pvc.getSpec().getResources().getRequests().get("storage"));
+        }
+        PvcNode node = new PvcNode(key,
+                pvc.getStatus() != null ? pvc.getStatus().getPhase() : null,
+                pvc.getSpec().getVolumeName(),
+                className(pvc.getSpec().getStorageClassName()),
+                request,
+                pvc.getSpec().getAccessModes() != null ? Set.copyOf(pvc.getSpec().getAccessModes()) : Set.of());
+        claims.put(key, node);
+        claimsByClass.computeIfAbsent(node.storageClass(), k -> new HashSet<>()).add(key);
+    }
+
+    private synchronized void removeClaim(String key) {
+        PvcNode old = claims.remove(key);
+        if (old != null) {
+            remove(claimsByClass, old.storageClass(), key);
+        }
+    }
+
+    private synchronized void putPod(Pod pod) {
+        String key = key(pod.getMetadata().getNamespace(), pod.getMetadata().getName());
+        removePod(key);
+        String phase = pod.getStatus() != null ? pod.getStatus().getPhase() : null;
+        // i pod terminati non tengono più attaccati i volumi
+        if (pod.getSpec().getVolumes() == null || "Succeeded".equals(phase) || "Failed".equals(phase)) {
+            return;
+        }
+        Set<String> podClaims = new HashSet<>();
+        for (Volume volume : pod.getSpec().getVolumes()) {
+            if (volume.getPersistentVolumeClaim() == null) {
+                continue;
+            }
+            String claim = key(pod.getMetadata().getNamespace(), volume.getPersistentVolumeClaim().getClaimName());
+            podClaims.add(claim);
+            mountsByClaim.computeIfAbsent(claim, k -> new HashMap<>()).put(key, new Mount(key, pod.getSpec().getNodeName(),
+                    phase, Boolean.TRUE.equals(volume.getPersistentVolumeClaim().getReadOnly())));
+        }
+        if (!podClaims.isEmpty()) {
+            claimsByPod.put(key, podClaims);
+        }
+    }
+
+    private synchronized void removePod(String key) {
+        Set<String> old = claimsByPod.remove(key);
+        if (old == null) {
+            return;
+        }
+        for (String claim : old) {
+            Map<String, Mount> mounts = mountsByClaim.get(claim);
+            if (mounts != null) {
+                mounts.remove(key);
+                if (mounts.isEmpty()) {
+                    mountsByClaim.remove(claim);
+                }
+            }
+        }
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String value) {
+        Set<String> values = index.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static boolean inNamespace(String key, String namespace) {
+        return namespace == null || (key != null && key.startsWith(namespace + "/"));
+    }
+
+    // --- query ----------------------------------------------------------------------------
+
+    /**
+     * PV rilasciati o falliti, PV liberi, claim pendenti o perse, claim non montate da nessun pod,
+     * pod che puntano a claim inesistenti, volumi vincolati a nodi che non esistono più.
+     */
+    public List<String> orphans(String namespace) {
+        awaitSynced();
+        return findOrphans(namespace);
+    }
+
+    private synchronized List<String> findOrphans(String namespace) {
+        List<String> findings = new ArrayList<>();
+        for (PvNode pv : new TreeMap<>(volumes).values()) {
+            if (namespace != null && !inNamespace(pv.claim(), namespace)) {
+                continue;
+            }
+            String size = Quantities.formatBytes(pv.capacity());
+            if ("Released".equals(pv.phase()) || "Failed".equals(pv.phase())) {
+                findings.add("PV " + pv.name() + " " + pv.phase() + " (" + size + ", reclaim " + pv.reclaimPolicy()
+                        + ", was claimed by " + pv.claim() + ")");
+            } else if ("Available".equals(pv.phase())) {
+                findings.add("PV " + pv.name() + " Available and unclaimed (" + size + ", class " + pv.storageClass() + ")");
+            } else if ("Bound".equals(pv.phase()) && pv.claim() != null && !claims.containsKey(pv.claim())) {
+                findings.add("PV " + pv.name() + " Bound to missing PVC " + pv.claim() + " (" + size + ")");
+            }
+            if (pv.node() != null && !nodes.contains(pv.node())) {
+                findings.add("PV " + pv.name() + " pinned to missing node " + pv.node());
+            }
+        }
+        for (PvcNode pvc : new TreeMap<>(claims).values()) {
+            if (!inNamespace(pvc.key(), namespace)) {
+                continue;
+            }
+            if ("Pending".equals(pvc.phase())) {
+                findings.add("PVC " + pvc.key() + " Pending (class " + pvc.storageClass() + ", requests "
+                        + Quantities.formatBytes(pvc.request()) + ")");
+            } else if ("Lost".equals(pvc.phase()) || (pvc.volume() != null && !volumes.containsKey(pvc.volume()))) {
+                findings.add("PVC " + pvc.key() + " Lost (volume " + pvc.volume() + " missing)");
+            } else if ("Bound".equals(pvc.phase()) && !mountsByClaim.containsKey(pvc.key())) {
+                findings.add("PVC " + pvc.key() + " Bound to " + pvc.volume() + " but not mounted by any pod");
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : new TreeMap<>(claimsByPod).entrySet()) {
+            if (!inNamespace(entry.getKey(), namespace)) {
+                continue;
+            }
+            for (String claim : entry.getValue()) {
+                if (!claims.containsKey(claim)) {
+                    findings.add("Pod " + entry.getKey() + " references missing PVC " + claim);
+                }
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Capacità dei PV e richieste delle PVC raggruppate per StorageClass.
+     */
+    public List<ClassCapacity> capacityByClass() {
+        awaitSynced();
+        return sumCapacityByClass();
+    }
+
+    private synchronized List<ClassCapacity> sumCapacityByClass() {
+        Set<String> names = new HashSet<>(volumesByClass.keySet());
+        names.addAll(claimsByClass.keySet());
+        names.addAll(classes.keySet());
+        List<ClassCapacity> result = new ArrayList<>();
+        for (String name : names.stream().sorted().toList()) {
+            long capacity = 0;
+            long bound = 0;
+            long available = 0;
+            long released = 0;
+            Set<String> pvNames = volumesByClass.getOrDefault(name, Set.of());
+            for (String pvName : pvNames) {
+                PvNode pv = volumes.get(pvName);
+                capacity += pv.capacity();
+                switch (String.valueOf(pv.phase())) {
+                    case "Bound" -> bound += pv.capacity();
+                    case "Available" -> available += pv.capacity();
+                    case "Released", "Failed" -> released += pv.capacity();
+                    default -> {
+                    }
+                }
+            }
+            long requested = 0;
+            int pending = 0;
+            Set<String> pvcKeys = claimsByClass.getOrDefault(name, Set.of());
+            for (String pvcKey : pvcKeys) {
+                PvcNode pvc = claims.get(pvcKey);
+                requested += pvc.request();
+                if ("Pending".equals(pvc.phase())) {
+                    pending++;
+                }
+            }
+            result.add(new ClassCapacity(name, classes.get(name), pvNames.size(), capacity, bound, available, released,
+                    pvcKeys.size(), requested, pending));
+        }
+        return result;
+    }
+
+    /**
+     * Claim montate in modo incompatibile con le access mode: RWO su più nodi (Multi-Attach),
+     * RWOP su più pod, access mode richieste non offerte dal PV, ROX montate in scrittura.
+     */
+    public List<String> accessModeConflicts(String namespace) {
+        awaitSynced();
+        return findAccessModeConflicts(namespace);
+    }
+
+    private synchronized List<String> findAccessModeConflicts(String namespace) {
+        List<String> findings = new ArrayList<>();
+        for (PvcNode pvc : new TreeMap<>(claims).values()) {
+            if (!inNamespace(pvc.key(), namespace)) {
+                continue;
+            }
+            PvNode pv = pvc.volume() != null ? volumes.get(pvc.volume()) : null;
+            Set<String> modes = pv != null && !pv.accessModes().isEmpty() ? pv.accessModes() : pvc.accessModes();
+            if (pv != null && !pv.accessModes().containsAll(pvc.accessModes())) {
+                findings.add("PVC " + pvc.key() + " requests " + pvc.accessModes() + " but PV " + pv.name()
+                        + " only offers " + pv.accessModes());
+            }
+
+            Map<String, Mount> mounts = mountsByClaim.getOrDefault(pvc.key(), Map.of());
+            if (mounts.isEmpty()) {
+                continue;
+            }
+            Map<String, List<String>> podsByNode = new TreeMap<>();
+            for (Mount mount : mounts.values()) {
+                // un pod non ancora schedulato non ha attaccato il volume a nessun nodo
+                if (mount.node() != null) {
+                    podsByNode.computeIfAbsent(mount.node(), k -> new ArrayList<>()).add(mount.pod());
+                }
+            }
+            if (modes.equals(Set.of("ReadWriteOncePod")) && mounts.size() > 1) {
+                findings.add("PVC " + pvc.key() + " is ReadWriteOncePod but used by " + mounts.size() + " pods: "
+                        + new TreeMap<>(mounts).keySet());
+            } else if (!modes.contains("ReadWriteMany") && !modes.contains("ReadOnlyMany") && podsByNode.size() > 1) {
+                findings.add("PVC " + pvc.key() + " is " + modes + " but used from " + podsByNode.size()
+                        + " nodes (Multi-Attach): " + podsByNode);
+            }
+            if (modes.equals(Set.of("ReadOnlyMany"))) {
+                for (Mount mount : mounts.values()) {
+                    if (!mount.readOnly()) {
+                        findings.add("PVC " + pvc.key() + " is ReadOnlyMany but pod " + mount.pod() + " mounts it read-write");
+                    }
+                }
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Catena completa a partire da una PVC ("ns/nome") o da un PV (nome).
+     */
+    public List<String> topology(String namespace, String name) {
+        awaitSynced();
+        return describeTopology(namespace, name);
+    }
+
+    private synchronized List<String> describeTopology(String namespace, String name) {
+        List<String> lines = new ArrayList<>();
+        String claimKey;
+        PvNode pv;
+        if (namespace != null) {
+            claimKey = key(namespace, name);
+            PvcNode pvc = claims.get(claimKey);
+            if (pvc == null) {
+                return lines;
+            }
+            pv = pvc.volume() != null ? volumes.get(pvc.volume()) : null;
+            lines.add("PVC " + claimKey + ": " + pvc.phase() + ", class " + pvc.storageClass() + ", requests "
+                    + Quantities.formatBytes(pvc.request()) + ", modes " + pvc.accessModes());
+        } else {
+            pv = volumes.get(name);
+            if (pv == null) {
+                return lines;
+            }
+            claimKey = claimByVolume.get(name);
+            PvcNode pvc = claimKey != null ? claims.get(claimKey) : null;
+            lines.add(pvc != null
+                    ? "PVC " + claimKey + ": " + pvc.phase() + ", requests " + Quantities.formatBytes(pvc.request())
+                    : "PVC: " + (claimKey != null ? claimKey + " (missing)" : "none"));
+        }
+        if (pv != null) {
+            ClassInfo info = classes.get(pv.storageClass());
+            lines.add("PV " + pv.name() + ": " + pv.phase() + ", " + Quantities.formatBytes(pv.capacity()) + ", modes "
+                    + pv.accessModes() + ", reclaim " + pv.reclaimPolicy()
+                    + (pv.node() != null ? ", pinned to node " + pv.node() + (nodes.contains(pv.node()) ? "" : " (missing)") : ""));
+            lines.add("StorageClass " + pv.storageClass() + (info != null ? ": provisioner " + info.provisioner() : " (not found)"));
+        }
+        Map<String, Mount> mounts = claimKey != null ? mountsByClaim.getOrDefault(claimKey, Map.of()) : Map.of();
+        if (mounts.isEmpty()) {
+            lines.add("Pods: none");
+        }
+        for (Mount mount : new TreeMap<>(mounts).values()) {
+            lines.add("Pod " + mount.pod() + " on node " + mount.node() + " (" + mount.phase()
+                    + (mount.readOnly() ? ", read-only" : "") + ")");
+        }
+        return lines;
+    }
+}
@@ -1,6 +1,10 @@
 package com.github.drkube.mcpserver.service;
 
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import io.fabric8.kubernetes.api.model.PodList;
@@ -8,10 +12,14 @@ import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @Path("/test")
 @Produces(MediaType.TEXT_PLAIN)
@@ -20,6 +28,108 @@ public class TestResource {
     @Inject
     KubernetesClient client;
 
+    @Inject
+    KubernetesClientProducer clientProducer;
+
+    @Inject
+    MetadataLister lister;
+
+    @Inject
+    LiveResources liveResources;
+
+    @ConfigProperty(name = "drkube.snapshot.endpoints", defaultValue = "false")
+    boolean snapshotEndpoints;
+
+    @ConfigProperty(name = "drkube.snapshot.dir", defaultValue = "snapshots")
+    String snapshotDir;
+
+    // Fotografia del cluster su file in drkube.snapshot.dir, es. /test/snapshot?file=cluster.snap
+    @GET
+    @Path("snapshot")
+    public String snapshot(@QueryParam("file") String file) throws IOException {
+        java.nio.file.Path target = snapshotFile(file);
+        Files.createDirectories(target.getParent());
+        long start = System.nanoTime();
+        Map<String, ClusterSnapshot.Section> sections = ClusterSnapshot.capture(client, target);
+        return String.format("Snapshot %s written in %d ms (%d bytes)%n%s", target.toAbsolutePath(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), Files.size(target), describe(sections));
+    }
+
+    // Contenuto di una fotografia e tempo di lettura di ogni sezione, es. /test/snapshot-info?file=cluster.snap
+    @GET
+    @Path("snapshot-info")
+    public String snapshotInfo(@QueryParam("file") String file) throws IOException {
+        ClusterSnapshot snapshot = ClusterSnapshot.open(snapshotFile(file));
+        StringBuilder sb = new StringBuilder(String.format("Captured at %tc%n", snapshot.capturedAt()));
+        for (ClusterSnapshot.Section section : snapshot.sections().values()) {
+            long start = System.nanoTime();
+            snapshot.read(section.name(), client.getKubernetesSerialization());
+            sb.append(String.format("%-20s %6d items %10d bytes  read in %d µs%n", section.name(), section.items(),
+                    section.length(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * La fotografia contiene anche i metadata dei secret: gli endpoint sono spenti se non abilitati
+     * ({@code drkube.snapshot.endpoints}, attivo nei profili dev e test) e accettano solo nomi
+     * relativi dentro {@code drkube.snapshot.dir}.
+     */
+    private java.nio.file.Path snapshotFile(String file) {
+        if (!snapshotEndpoints) {
+            throw new NotFoundException();
+        }
+        String name = file != null && !file.isBlank() ? file : "cluster.snap";
+        java.nio.file.Path dir = java.nio.file.Path.of(snapshotDir).toAbsolutePath().normalize();
+        try {
+            java.nio.file.Path relative = java.nio.file.Path.of(name);
+            boolean parent = false;
+            for (java.nio.file.Path part : relative) {
+                parent |= "..".equals(part.toString());
+            }
+            java.nio.file.Path target = dir.resolve(relative).normalize();
+            if (!relative.isAbsolute() && !parent && target.startsWith(dir) && !target.equals(dir)) {
+                return target;
+            }
+        } catch (InvalidPathException e) {
+            // trattato come nome non valido
+        }
+        throw new BadRequestException("file must be a relative name inside " + dir);
+    }
+
+    private static String describe(Map<String, ClusterSnapshot.Section> sections) {
+        return sections.values().stream()
+                .map(s -> String.format("%-20s %6d items %10d bytes", s.name(), s.items(), s.length()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    // Contatori delle risorse MCP live; il costo del fan-out verso più subscriber è misurato da ResourceFanoutTest
+    @GET
+    @Path("resource-fanout")
+    public String resourceFanout() {
+        return liveResources.stats();
+    }
+
+    // es. /test/list-payload?path=/api/v1/pods; fa richieste autenticate all'API server, quindi è spento come /test/snapshot
+    @GET
+    @Path("list-payload")
+    public String listPayload(@QueryParam("path") String path) {
+        if (!snapshotEndpoints) {
+            throw new NotFoundException();
+        }
+        try {
+            return lister.compare(path == null ? "/api/v1/pods" : path);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    @GET
+    @Path("client-stats")
+    public String clientStats() {
+        return clientProducer.stats();
+    }
+
     @GET
     public String test() {
         
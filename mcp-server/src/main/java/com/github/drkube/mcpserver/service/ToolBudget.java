@@ -0,0 +1,104 @@
+package com.github.drkube.mcpserver.service;
+
+import io.quarkiverse.mcp.server.Cancellation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ToolBudget — deadline e token di cancellazione di una singola invocazione di tool.
+ * <p>
+ * Le scansioni lunghe controllano {@link #exhausted()} tra una richiesta e l'altra e
+ * restituiscono risultati parziali; gli stream registrati con {@link #track(Closeable)}
+ * (es. log) vengono chiusi appena il budget scade, sbloccando le letture in corso.
+ */
+public final class ToolBudget implements AutoCloseable {
+
+    private final Cancellation cancellation;
+    private final long deadlineNanos;
+    private final Set<ToolBudget> active;
+    private final List<Closeable> tracked = new CopyOnWriteArrayList<>();
+    private volatile String stopReason;
+
+    ToolBudget(Cancellation cancellation, Duration timeout, Set<ToolBudget> active) {
+        this.cancellation = cancellation;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+        this.active = active;
+        active.add(this);
+    }
+
+    /**
+     * True se il client ha cancellato la chiamata o la deadline è scaduta;
+     * alla prima occorrenza chiude tutte le risorse registrate.
+     */
+    public boolean exhausted() {
+        if (stopReason != null) {
+            return true;
+        }
+        String reason = null;
+        if (cancellation != null && cancellation.check().isRequested()) {
+            reason = "cancelled by client";
+        } else if (System.nanoTime() - deadlineNanos >= 0) {
+            reason = "deadline exceeded";
+        }
+        if (reason == null) {
+            return false;
+        }
+        synchronized (this) {
+            if (stopReason == null) {
+                stopReason = reason;
+                closeTracked();
+            }
+        }
+        return true;
+    }
+
+    public String stopReason() {
+        return stopReason;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Registra una risorsa da interrompere quando il budget si esaurisce.
+     */
+    public <T extends Closeable> T track(T resource) {
+        tracked.add(resource);
+        if (stopReason != null) {
+            closeQuietly(resource);
+        }
+        return resource;
+    }
+
+    /**
+     * Marcatore da accodare ai risultati parziali, così l'LLM sa che la risposta è incompleta.
+     */
+    public String incompleteNote(String progress) {
+        return String.format("[INCOMPLETE: %s after %s]", stopReason, progress);
+    }
+
+    @Override
+    public void close() {
+        active.remove(this);
+    }
+
+    private void closeTracked() {
+        for (Closeable resource : tracked) {
+            closeQuietly(resource);
+        }
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException | RuntimeException ignored) {
+            // la risorsa potrebbe essere già chiusa
+        }
+    }
+}
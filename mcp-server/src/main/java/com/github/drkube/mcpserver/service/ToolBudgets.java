@@ -0,0 +1,48 @@
+package com.github.drkube.mcpserver.service;
+
+import io.quarkiverse.mcp.server.Cancellation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ToolBudgets — crea i {@link ToolBudget} delle invocazioni e, con un watchdog,
+ * chiude gli stream dei tool cancellati anche mentre il thread è bloccato in lettura.
+ */
+@ApplicationScoped
+public class ToolBudgets {
+
+    // deve restare sotto il tool-execution-timeout del query-server (30s)
+    @ConfigProperty(name = "drkube.tool.deadline", defaultValue = "25s")
+    Duration deadline;
+
+    private final Set<ToolBudget> active = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    void init() {
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "drkube-tool-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        watchdog.scheduleWithFixedDelay(() -> active.forEach(ToolBudget::exhausted), 200, 200, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    public ToolBudget start(Cancellation cancellation) {
+        return new ToolBudget(cancellation, deadline, active);
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TopConsumers — classifica cluster-wide dei maggiori consumatori di CPU/memoria tramite heap limitati.
+ * <p>
+ * Ranking per uso senza raggruppamento: le PodMetrics di tutto il cluster lette a pagine e in streaming,
+ * un item alla volta direttamente nel TopK (memoria O(K)), poi richieste e limiti letti solo per i K
+ * vincitori. Ranking per rapporto
+ * uso/request o uso/limit, o raggruppati per namespace o workload: si procede un namespace alla volta
+ * unendo metriche e pod del namespace, quindi la memoria resta O(K + namespace più grande).
+ */
+public final class TopConsumers {
+
+    private static final long RATIO_SCALE = 10_000;
+    private static final String METRICS_API = "/apis/metrics.k8s.io/v1beta1";
+
+    public enum Rank {
+        CPU("cpu", false, false),
+        MEMORY("memory", false, false),
+        CPU_REQUEST_RATIO("cpu", true, false),
+        MEMORY_REQUEST_RATIO("memory", true, false),
+        CPU_LIMIT_RATIO("cpu", true, true),
+        MEMORY_LIMIT_RATIO("memory", true, true);
+
+        final String resource;
+        final boolean ratio;
+        final boolean againstLimit;
+
+        Rank(String resource, boolean ratio, boolean againstLimit) {
+            this.resource = resource;
+            this.ratio = ratio;
+            this.againstLimit = againstLimit;
+        }
+
+        public static Rank parse(String value) {
+            String normalized = value == null ? "memory" : value.replaceAll("[^A-Za-z]", "").toLowerCase();
+            for (Rank rank : values()) {
+                if (rank.name().replace("_", "").toLowerCase().equals(normalized)) {
+                    return rank;
+                }
+            }
+            throw new IllegalArgumentException("unknown rankBy '" + value
+                    + "' (use cpu, memory, cpuRequestRatio, memoryRequestRatio, cpuLimitRatio, memoryLimitRatio)");
+        }
+    }
+
+    public enum Group {
+        NONE, NAMESPACE, WORKLOAD;
+
+        public static Group parse(String value) {
+            return value == null || value.isBlank() ? NONE : valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Consumatore (pod, namespace o workload) con uso, richieste e limiti sommati; limit 0 = nessun limite.
+     */
+    public record Consumer(String name, int pods, long cpuMillis, long memoryBytes,
+                           long cpuRequest, long memoryRequest, long cpuLimit, long memoryLimit) {
+
+        Consumer plus(Consumer other) {
+            return new Consumer(name, pods + other.pods, cpuMillis + other.cpuMillis, memoryBytes + other.memoryBytes,
+                    cpuRequest + other.cpuRequest, memoryRequest + other.memoryRequest,
+                    // basta un pod senza limite perché il gruppo non abbia limite
+                    cpuLimit == 0 || other.cpuLimit == 0 ? 0 : cpuLimit + other.cpuLimit,
+                    memoryLimit == 0 || other.memoryLimit == 0 ? 0 : memoryLimit + other.memoryLimit);
+        }
+
+        public String format() {
+            return String.format("%s%s: cpu %s (req %s, lim %s), mem %s (req %s, lim %s)",
+                    name, pods > 1 ? " [" + pods + " pods]" : "",
+                    Quantities.formatCpu(cpuMillis), cpuRequest > 0 ? Quantities.formatCpu(cpuRequest) : "none",
+                    cpuLimit > 0 ? Quantities.formatCpu(cpuLimit) : "none",
+                    Quantities.formatBytes(memoryBytes), memoryRequest > 0 ? Quantities.formatBytes(memoryRequest) : "none",
+                    memoryLimit > 0 ? Quantities.formatBytes(memoryLimit) : "none");
+        }
+    }
+
+    public record Result(List<Consumer> top, int scanned, int skipped, String incomplete) {
+    }
+
+    private TopConsumers() {
+    }
+
+    public static Result rank(KubernetesClient client, MetadataLister lister, Rank rank, Group group, int k, ToolBudget budget) {
+        return !rank.ratio && group == Group.NONE
+                ? rankPodsByUsage(client, lister, rank, k, budget)
+                : rankByNamespace(client, lister, rank, group, k, budget);
+    }
+
+    private static Result rankPodsByUsage(KubernetesClient client, MetadataLister lister, Rank rank, int k, ToolBudget budget) {
+        TopK<Consumer> top = new TopK<>(k);
+        int[] scanned = new int[1];
+        boolean complete = lister.forEachItem(METRICS_API + "/pods", PodMetrics.class, budget::exhausted, metrics -> {
+            scanned[0]++;
+            Consumer usage = usage(metrics.getMetadata().getNamespace() + "/" + metrics.getMetadata().getName(), metrics);
+            top.offer(key(rank, usage), usage);
+        });
+        // richieste e limiti solo per i vincitori
+        List<Consumer> winners = top.sortedDescending().stream().map(usage -> {
+            if (budget.exhausted()) {
+                return usage;
+            }
+            String[] parts = usage.name().split("/", 2);
+            Pod pod = client.pods().inNamespace(parts[0]).withName(parts[1]).get();
+            return pod == null ? usage : withSpec(usage, pod);
+        }).toList();
+        return new Result(winners, scanned[0], 0,
+                complete && !budget.exhausted() ? null : budget.incompleteNote(scanned[0] + " pod metrics"));
+    }
+
+    private static Result rankByNamespace(KubernetesClient client, MetadataLister lister, Rank rank, Group group, int k,
+                                          ToolBudget budget) {
+        TopK<Consumer> top = new TopK<>(k);
+        List<String> namespaces = client.namespaces().list().getItems().stream()
+                .map(ns -> ns.getMetadata().getName())
+                .toList();
+        int scanned = 0;
+        int skipped = 0;
+        int done = 0;
+
+        for (String namespace : namespaces) {
+            if (budget.exhausted()) {
+                return new Result(top.sortedDescending(), scanned, skipped,
+                        budget.incompleteNote(done + "/" + namespaces.size() + " namespaces"));
+            }
+            Map<String, Consumer> usageByPod = new HashMap<>();
+            lister.forEachItem(METRICS_API + "/namespaces/" + namespace + "/pods", PodMetrics.class, () -> false,
+                    metrics -> usageByPod.put(metrics.getMetadata().getName(), usage(metrics.getMetadata().getName(), metrics)));
+            if (usageByPod.isEmpty()) {
+                done++;
+                continue;
+            }
+
+            // i gruppi non attraversano i namespace: l'aggregato è completo a fine namespace
+            Map<String, Consumer> groups = new HashMap<>();
+            List<Pod> pods = client.pods().inNamespace(namespace).list().getItems();
+            for (Pod pod : pods) {
+                Consumer usage = usageByPod.get(pod.getMetadata().getName());
+                if (usage == null) {
+                    continue;
+                }
+                scanned++;
+                String name = switch (group) {
+                    case NONE -> namespace + "/" + pod.getMetadata().getName();
+                    case NAMESPACE -> namespace;
+                    case WORKLOAD -> namespace + "/" + workload(pod.getMetadata());
+                };
+                Consumer consumer = withSpec(new Consumer(name, 1, usage.cpuMillis(), usage.memoryBytes(), 0, 0, 0, 0), pod);
+                groups.merge(name, consumer, Consumer::plus);
+            }
+            for (Consumer consumer : groups.values()) {
+                long key = key(rank, consumer);
+                if (key < 0) {
+                    skipped++;
+                } else {
+                    top.offer(key, consumer);
+                }
+            }
+            done++;
+        }
+        return new Result(top.sortedDescending(), scanned, skipped, null);
+    }
+
+    /**
+     * Chiave di ordinamento; -1 se il rapporto non è definito (nessuna request o nessun limite).
+     */
+    private static long key(Rank rank, Consumer consumer) {
+        boolean cpu = "cpu".equals(rank.resource);
+        long used = cpu ? consumer.cpuMillis() : consumer.memoryBytes();
+        if (!rank.ratio) {
+            return used;
+        }
+        long base = rank.againstLimit
+                ? (cpu ? consumer.cpuLimit() : consumer.memoryLimit())
+                : (cpu ? consumer.cpuRequest() : consumer.memoryRequest());
+        return base > 0 ? used * RATIO_SCALE / base : -1;
+    }
+
+    public static double ratio(Rank rank, Consumer consumer) {
+        return rank.ratio ? key(rank, consumer) / (double) RATIO_SCALE : 0;
+    }
+
+    public static boolean isRatio(Rank rank) {
+        return rank.ratio;
+    }
+
+    private static Consumer usage(String name, PodMetrics metrics) {
+        long cpu = 0;
+        long memory = 0;
+        for (ContainerMetrics container : metrics.getContainers()) {
+            cpu += Quantities.cpuMillis(container.getUsage());
+            memory += Quantities.memoryBytes(container.getUsage());
+        }
+        return new Consumer(name, 1, cpu, memory, 0, 0, 0, 0);
+    }
+
+    private static Consumer withSpec(Consumer usage, Pod pod) {
+        Map<String, Long> requests = Quantities.podRequests(pod);
+        Map<String, Long> limits = Quantities.podLimits(pod);
+        return new Consumer(usage.name(), usage.pods(), usage.cpuMillis(), usage.memoryBytes(),
+                requests.getOrDefault("cpu", 0L), requests.getOrDefault("memory", 0L),
+                limits.getOrDefault("cpu", 0L), limits.getOrDefault("memory", 0L));
+    }
+
+    /**
+     * Workload proprietario del pod; i ReplicaSet di un Deployment vengono risolti togliendo il pod-template-hash.
+     */
+    static String workload(ObjectMeta meta) {
+        if (meta.getOwnerReferences() == null) {
+            return "Pod/" + meta.getName();
+        }
+        for (OwnerReference owner : meta.getOwnerReferences()) {
+            if (!Boolean.TRUE.equals(owner.getController())) {
+                continue;
+            }
+            String hash = meta.getLabels() != null ? meta.getLabels().get("pod-template-hash") : null;
+            if ("ReplicaSet".equals(owner.getKind()) && hash != null && owner.getName().endsWith("-" + hash)) {
+                return "Deployment/" + owner.getName().substring(0, owner.getName().length() - hash.length() - 1);
+            }
+            return owner.getKind() + "/" + owner.getName();
+        }
+        return "Pod/" + meta.getName();
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.drkube.mcpserver.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TopK — min-heap limitato a K elementi con chiave primitiva long: tiene i K valori con chiave
+ * più alta vista finora in O(log K) per inserimento e O(K) di memoria, qualunque sia lo stream.
+ * Con K = 0 non tiene niente: es. {@code topK=0} in getNodesSnapshot significa nessun pod.
+ */
+public final class TopK<T> {
+
+    private final long[] keys;
+    private final Object[] values;
+    private int size;
+
+    public TopK(int k) {
+        this.keys = new long[Math.max(0, k)];
+        this.values = new Object[keys.length];
+    }
+
+    public void offer(long key, T value) {
+        if (keys.length == 0) {
+            return;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            values[size] = value;
+            siftUp(size++);
+        } else if (key > keys[0]) {
+            keys[0] = key;
+            values[0] = value;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Valori in ordine di chiave decrescente.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> sortedDescending() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[b], keys[a]));
+        List<T> result = new ArrayList<>(size);
+        for (Integer i : order) {
+            result.add((T) values[i]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= keys[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left + 1 < size && keys[left + 1] < keys[left] ? left + 1 : left;
+            if (keys[i] <= keys[smallest]) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        Object value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
@@ -0,0 +1,379 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.DaemonSetStatus;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentCondition;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetStatus;
+import io.fabric8.kubernetes.api.model.batch.v1.CronJob;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobCondition;
+import io.fabric8.kubernetes.api.model.batch.v1.JobStatus;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WorkloadGraph — grafo delle ownerReference (Pod → ReplicaSet → Deployment, Pod → Job →
+ * CronJob, Pod → StatefulSet/DaemonSet) aggiornato dagli informer. Ogni oggetto diventa un
+ * {@link Node} compatto indicizzato per uid, con l'insieme degli uid figli: padre e figli si
+ * trovano in O(1), i discendenti in O(dimensione del sottoalbero).
+ * <p>
+ * Lo stato di rollout e di readiness viene calcolato una volta all'arrivo dell'evento (stesse
+ * regole di kubectl rollout status), quindi le query non rileggono gli oggetti completi: anche
+ * con decine di migliaia di ReplicaSet la risposta dipende solo dal workload richiesto.
+ */
+@ApplicationScoped
+public class WorkloadGraph {
+
+    public static final List<String> KINDS = List.of("Deployment", "StatefulSet", "DaemonSet", "CronJob", "Job", "ReplicaSet", "Pod");
+
+    @Inject
+    InformerRegistry informers;
+
+    @ConfigProperty(name = "drkube.informers.sync-timeout", defaultValue = "30s")
+    Duration syncTimeout;
+
+    /**
+     * Oggetto del grafo: owner è l'uid del controller (o del primo owner), null per i workload radice.
+     * Per i pod desired/ready valgono 0/1 e restarts somma i riavvii dei container.
+     */
+    public record Node(String uid, String kind, String namespace, String name, String owner,
+                       int desired, int ready, int updated, int available, int restarts,
+                       boolean healthy, String status) {
+
+        public String ref() {
+            return kind + "/" + namespace + "/" + name;
+        }
+
+        public String format() {
+            return kind + " " + namespace + "/" + name + ": " + status;
+        }
+    }
+
+    private final Map<String, Node> byUid = new ConcurrentHashMap<>();
+    private final Map<String, String> uidByRef = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> children = new ConcurrentHashMap<>();
+    private volatile InformerRegistry.Startup startup;
+
+    /**
+     * I sette informer partono all'avvio e in parallelo: le query attendono al massimo un
+     * sync-timeout, non uno per tipo, e mai su un grafo a cui mancano ancora degli owner.
+     */
+    void onStart(@Observes StartupEvent event) {
+        startup = informers.startAll("workloads", List.of(
+                InformerRegistry.registration(Deployment.class, InformerRegistry.handler(this::putDeployment, this::remove)),
+                InformerRegistry.registration(StatefulSet.class, InformerRegistry.handler(this::putStatefulSet, this::remove)),
+                InformerRegistry.registration(DaemonSet.class, InformerRegistry.handler(this::putDaemonSet, this::remove)),
+                InformerRegistry.registration(CronJob.class, InformerRegistry.handler(this::putCronJob, this::remove)),
+                InformerRegistry.registration(Job.class, InformerRegistry.handler(this::putJob, this::remove)),
+                InformerRegistry.registration(ReplicaSet.class, InformerRegistry.handler(this::putReplicaSet, this::remove)),
+                InformerRegistry.registration(Pod.class, InformerRegistry.handler(this::putPod, this::remove))));
+    }
+
+    private void awaitSynced() {
+        InformerRegistry.Startup current = startup;
+        if (current == null) {
+            throw new IllegalStateException("Workload graph not started yet");
+        }
+        current.require(syncTimeout, "Workload graph");
+    }
+
+    /**
+     * Accetta il kind in qualsiasi forma usata con kubectl: deploy, deployment, sts, ds, cj, rs, po...
+     */
+    public static String parseKind(String kind) {
+        String k = kind.strip().toLowerCase(Locale.ROOT);
+        return switch (k) {
+            case "deploy", "deployment", "deployments" -> "Deployment";
+            case "sts", "statefulset", "statefulsets" -> "StatefulSet";
+            case "ds", "daemonset", "daemonsets" -> "DaemonSet";
+            case "cj", "cronjob", "cronjobs" -> "CronJob";
+            case "job", "jobs" -> "Job";
+            case "rs", "replicaset", "replicasets" -> "ReplicaSet";
+            case "po", "pod", "pods" -> "Pod";
+            default -> throw new IllegalArgumentException("Unsupported workload kind '" + kind + "', expected one of " + KINDS);
+        };
+    }
+
+    // --- query ----------------------------------------------------------------------------
+
+    public Node find(String kind, String namespace, String name) {
+        awaitSynced();
+        String uid = uidByRef.get(kind + "/" + namespace + "/" + name);
+        return uid != null ? byUid.get(uid) : null;
+    }
+
+    public Node parent(Node node) {
+        return node.owner() != null ? byUid.get(node.owner()) : null;
+    }
+
+    public List<Node> children(Node node) {
+        List<Node> result = new ArrayList<>();
+        for (String uid : children.getOrDefault(node.uid(), Set.of())) {
+            Node child = byUid.get(uid);
+            if (child != null) {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sottoalbero del nodo (escluso il nodo stesso) in ordine di visita in ampiezza.
+     */
+    public List<Node> descendants(Node node) {
+        List<Node> result = new ArrayList<>();
+        Deque<Node> queue = new ArrayDeque<>(children(node));
+        while (!queue.isEmpty()) {
+            Node next = queue.poll();
+            result.add(next);
+            queue.addAll(children(next));
+        }
+        return result;
+    }
+
+    public List<Node> pods(Node node) {
+        return descendants(node).stream().filter(n -> "Pod".equals(n.kind())).toList();
+    }
+
+    /**
+     * Catena degli owner dal nodo fino al workload radice (incluso il nodo).
+     */
+    public List<Node> ancestors(Node node) {
+        List<Node> chain = new ArrayList<>();
+        for (Node current = node; current != null && chain.size() < 8; current = parent(current)) {
+            chain.add(current);
+        }
+        return chain;
+    }
+
+    /**
+     * Workload senza owner noto (i pod e le ReplicaSet/Job gestiti da un controller sono esclusi).
+     */
+    public List<Node> roots(String namespace) {
+        awaitSynced();
+        List<Node> result = new ArrayList<>();
+        for (Node node : byUid.values()) {
+            if ((namespace == null || namespace.equals(node.namespace())) && !"Pod".equals(node.kind())
+                    && (node.owner() == null || !byUid.containsKey(node.owner()))) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    // --- aggiornamenti incrementali -------------------------------------------------------
+
+    private synchronized void put(HasMetadata obj, int desired, int ready, int updated, int available, int restarts,
+                                  boolean healthy, String status) {
+        String uid = obj.getMetadata().getUid();
+        Node old = byUid.get(uid);
+        String owner = owner(obj);
+        Node node = new Node(uid, obj.getKind() != null ? obj.getKind() : kindOf(obj), obj.getMetadata().getNamespace(),
+                obj.getMetadata().getName(), owner, desired, ready, updated, available, restarts, healthy, status);
+        if (old != null && !Objects.equals(old.owner(), owner)) {
+            // l'owner può cambiare (es. adozione di un pod orfano)
+            unlink(old);
+        }
+        byUid.put(uid, node);
+        uidByRef.put(node.ref(), uid);
+        if (owner != null) {
+            children.computeIfAbsent(owner, k -> ConcurrentHashMap.newKeySet()).add(uid);
+        }
+    }
+
+    private synchronized void remove(HasMetadata obj) {
+        Node old = byUid.remove(obj.getMetadata().getUid());
+        if (old != null) {
+            uidByRef.remove(old.ref(), old.uid());
+            unlink(old);
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.owner() == null) {
+            return;
+        }
+        Set<String> siblings = children.get(node.owner());
+        if (siblings != null) {
+            siblings.remove(node.uid());
+            if (siblings.isEmpty()) {
+                children.remove(node.owner());
+            }
+        }
+    }
+
+    private static String owner(HasMetadata obj) {
+        List<OwnerReference> refs = obj.getMetadata().getOwnerReferences();
+        if (refs == null || refs.isEmpty()) {
+            return null;
+        }
+        return refs.stream().filter(r -> Boolean.TRUE.equals(r.getController())).findFirst().orElse(refs.get(0)).getUid();
+    }
+
+    private static String kindOf(HasMetadata obj) {
+        // gli oggetti consegnati dagli informer non sempre hanno kind valorizzato
+        return obj.getClass().getSimpleName();
+    }
+
+    private static int value(Integer i) {
+        return i != null ? i : 0;
+    }
+
+    private void putDeployment(Deployment d) {
+        int desired = d.getSpec().getReplicas() != null ? d.getSpec().getReplicas() : 1;
+        DeploymentStatus s = d.getStatus() != null ? d.getStatus() : new DeploymentStatus();
+        int replicas = value(s.getReplicas());
+        int updated = value(s.getUpdatedReplicas());
+        int ready = value(s.getReadyReplicas());
+        int available = value(s.getAvailableReplicas());
+        String status;
+        boolean healthy = false;
+        DeploymentCondition progressing = s.getConditions() == null ? null
+                : s.getConditions().stream().filter(c -> "Progressing".equals(c.getType())).findFirst().orElse(null);
+        if (Boolean.TRUE.equals(d.getSpec().getPaused())) {
+            status = "rollout paused";
+        } else if (d.getMetadata().getGeneration() != null
+                && (s.getObservedGeneration() == null || s.getObservedGeneration() < d.getMetadata().getGeneration())) {
+            status = "waiting for the controller to observe the new spec";
+        } else if (progressing != null && "ProgressDeadlineExceeded".equals(progressing.getReason())) {
+            status = "rollout FAILED: progress deadline exceeded (" + progressing.getMessage() + ")";
+        } else if (updated < desired) {
+            status = "rolling out: " + updated + " of " + desired + " new replicas updated";
+        } else if (replicas > updated) {
+            status = "rolling out: " + (replicas - updated) + " old replicas pending termination";
+        } else if (available < updated) {
+            status = "rolling out: " + available + " of " + updated + " updated replicas available";
+        } else {
+            status = "rolled out";
+            healthy = ready >= desired;
+        }
+        put(d, desired, ready, updated, available, 0, healthy,
+                status + ", " + ready + "/" + desired + " ready, " + available + " available");
+    }
+
+    private void putStatefulSet(StatefulSet sts) {
+        int desired = sts.getSpec().getReplicas() != null ? sts.getSpec().getReplicas() : 1;
+        StatefulSetStatus s = sts.getStatus() != null ? sts.getStatus() : new StatefulSetStatus();
+        int ready = value(s.getReadyReplicas());
+        int updated = value(s.getUpdatedReplicas());
+        int available = value(s.getAvailableReplicas());
+        String status;
+        if (sts.getSpec().getUpdateStrategy() != null && "OnDelete".equals(sts.getSpec().getUpdateStrategy().getType())) {
+            status = "OnDelete strategy (rollout driven by manual pod deletion)";
+        } else if (ready < desired) {
+            status = "rolling out: " + ready + " of " + desired + " pods ready";
+        } else if (s.getUpdateRevision() != null && !s.getUpdateRevision().equals(s.getCurrentRevision())) {
+            status = "rolling out: " + updated + " of " + desired + " pods on revision " + s.getUpdateRevision();
+        } else {
+            status = "rolled out";
+        }
+        put(sts, desired, ready, updated, available, 0, ready >= desired && status.startsWith("rolled out"),
+                status + ", " + ready + "/" + desired + " ready");
+    }
+
+    private void putDaemonSet(DaemonSet ds) {
+        DaemonSetStatus s = ds.getStatus() != null ? ds.getStatus() : new DaemonSetStatus();
+        int desired = value(s.getDesiredNumberScheduled());
+        int ready = value(s.getNumberReady());
+        int updated = value(s.getUpdatedNumberScheduled());
+        int available = value(s.getNumberAvailable());
+        String status;
+        if (updated < desired) {
+            status = "rolling out: " + updated + " of " + desired + " nodes updated";
+        } else if (available < desired) {
+            status = "rolling out: " + available + " of " + desired + " updated pods available";
+        } else {
+            status = "rolled out";
+        }
+        int misscheduled = value(s.getNumberMisscheduled());
+        put(ds, desired, ready, updated, available, 0, ready >= desired && available >= desired,
+                status + ", " + ready + "/" + desired + " ready" + (misscheduled > 0 ? ", " + misscheduled + " misscheduled" : ""));
+    }
+
+    private void putCronJob(CronJob cj) {
+        int active = cj.getStatus() != null && cj.getStatus().getActive() != null ? cj.getStatus().getActive().size() : 0;
+        String last = cj.getStatus() != null ? cj.getStatus().getLastScheduleTime() : null;
+        String lastSuccess = cj.getStatus() != null ? cj.getStatus().getLastSuccessfulTime() : null;
+        boolean suspended = Boolean.TRUE.equals(cj.getSpec().getSuspend());
+        put(cj, 0, 0, 0, 0, 0, true, (suspended ? "suspended, " : "") + "schedule '" + cj.getSpec().getSchedule() + "', "
+                + active + " active, last scheduled " + (last != null ? last : "never")
+                + ", last success " + (lastSuccess != null ? lastSuccess : "never"));
+    }
+
+    private void putJob(Job job) {
+        int completions = job.getSpec().getCompletions() != null ? job.getSpec().getCompletions() : 1;
+        JobStatus s = job.getStatus() != null ? job.getStatus() : new JobStatus();
+        int succeeded = value(s.getSucceeded());
+        int failed = value(s.getFailed());
+        int active = value(s.getActive());
+        JobCondition terminal = s.getConditions() == null ? null : s.getConditions().stream()
+                .filter(c -> ("Complete".equals(c.getType()) || "Failed".equals(c.getType())) && "True".equals(c.getStatus()))
+                .findFirst().orElse(null);
+        String status = terminal == null ? "running"
+                : "Complete".equals(terminal.getType()) ? "complete"
+                : "FAILED (" + terminal.getReason() + ")";
+        put(job, completions, succeeded, 0, active, 0, terminal == null || "Complete".equals(terminal.getType()),
+                status + ", " + succeeded + "/" + completions + " succeeded, " + active + " active, " + failed + " failed");
+    }
+
+    private void putReplicaSet(ReplicaSet rs) {
+        int desired = rs.getSpec().getReplicas() != null ? rs.getSpec().getReplicas() : 1;
+        int ready = rs.getStatus() != null ? value(rs.getStatus().getReadyReplicas()) : 0;
+        int available = rs.getStatus() != null ? value(rs.getStatus().getAvailableReplicas()) : 0;
+        Map<String, String> annotations = rs.getMetadata().getAnnotations();
+        String revision = annotations != null ? annotations.get("deployment.kubernetes.io/revision") : null;
+        put(rs, desired, ready, 0, available, 0, ready >= desired,
+                (revision != null ? "revision " + revision + ", " : "") + ready + "/" + desired + " ready");
+    }
+
+    private void putPod(Pod pod) {
+        String phase = pod.getStatus() != null ? pod.getStatus().getPhase() : null;
+        boolean ready = false;
+        int restarts = 0;
+        String waiting = null;
+        if (pod.getStatus() != null) {
+            if (pod.getStatus().getConditions() != null) {
+                for (PodCondition condition : pod.getStatus().getConditions()) {
+                    if ("Ready".equals(condition.getType())) {
+                        ready = "True".equals(condition.getStatus());
+                    }
+                }
+            }
+            if (pod.getStatus().getContainerStatuses() != null) {
+                for (ContainerStatus cs : pod.getStatus().getContainerStatuses()) {
+                    restarts += value(cs.getRestartCount());
+                    if (waiting == null && cs.getState() != null && cs.getState().getWaiting() != null) {
+                        waiting = cs.getState().getWaiting().getReason();
+                    }
+                }
+            }
+        }
+        boolean healthy = ready || "Succeeded".equals(phase);
+        put(pod, 1, ready ? 1 : 0, 0, ready ? 1 : 0, restarts, healthy,
+                phase + (ready ? ", ready" : ", not ready") + (waiting != null ? " (" + waiting + ")" : "")
+                        + ", " + restarts + " restarts, node " + pod.getSpec().getNodeName());
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SnapshotReplay — API server finto in-process (mock server fabric8 in modalità CRUD) popolato
+ * da una {@link ClusterSnapshot}: gli agent lavorano offline sullo stato catturato, con latenza
+ * di rete nulla e risultati deterministici.
+ * <p>
+ * Sta nel source root {@code src/replay/java}, compilato solo con il profilo Maven {@code replay}
+ * insieme al mock server: il jar e l'immagine nativa di produzione non lo contengono.
+ */
+@ApplicationScoped
+public class SnapshotReplay implements ReplayServer {
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+
+    @Override
+    public synchronized KubernetesClient start(Path file) {
+        if (client != null) {
+            return client;
+        }
+        long begin = System.nanoTime();
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                new KubernetesCrudDispatcher(List.of()), false);
+        server.init();
+        client = server.createClient();
+        try {
+            ClusterSnapshot snapshot = ClusterSnapshot.open(file);
+            int objects = snapshot.replayInto(client);
+            Log.infof("Replaying snapshot %s captured at %tc: %d objects loaded in %d ms", file,
+                    snapshot.capturedAt(), objects, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw new IllegalStateException("Cannot replay snapshot " + file + ": " + e.getMessage(), e);
+        }
+        return client;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (client != null) {
+            client.close();
+            server.destroy();
+            client = null;
+            server = null;
+        }
+    }
+}
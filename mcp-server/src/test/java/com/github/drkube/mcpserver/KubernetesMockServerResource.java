@@ -0,0 +1,257 @@
+package com.github.drkube.mcpserver;
+
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.EndpointsBuilder;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.NodeBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.ServiceAccountBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSetBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.api.model.storage.StorageClassBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMixedDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.fabric8.mockwebserver.ServerRequest;
+import io.fabric8.mockwebserver.ServerResponse;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * API server finto (mock server fabric8 in modalità CRUD) per i test dei tool: lo popola con un
+ * piccolo cluster coerente (un nodo, un Deployment con il suo pod, Service, PVC, eventi, lease)
+ * e punta l'MCP server su di esso con un kubeconfig temporaneo. Le poche richieste che il CRUD
+ * non sa servire ({@code /version}, la Table dei namespace) hanno una risposta fissa coerente con
+ * gli oggetti creati. Gira nella JVM dei test, quindi
+ * serve sia a {@code @QuarkusTest} sia all'immagine nativa di {@code @QuarkusIntegrationTest}.
+ */
+public class KubernetesMockServerResource implements QuarkusTestResourceLifecycleManager {
+
+    static final String VERSION_MAJOR = "1";
+    static final String VERSION_MINOR = "31";
+    static final List<String> NAMESPACES = List.of("default", "kube-system", "kube-node-lease");
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+    private Path kubeconfig;
+
+    @Override
+    public Map<String, String> start() {
+        Map<ServerRequest, Queue<ServerResponse>> responses = new HashMap<>();
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), responses,
+                new KubernetesMixedDispatcher(responses), false);
+        server.init();
+        expectations();
+        client = server.createClient();
+        seed();
+        try {
+            kubeconfig = Files.createTempFile("drkube-mock", ".kubeconfig");
+            Files.writeString(kubeconfig, """
+                    apiVersion: v1
+                    kind: Config
+                    clusters:
+                    - name: mock
+                      cluster:
+                        server: %s
+                    contexts:
+                    - name: mock
+                      context:
+                        cluster: mock
+                        user: mock
+                        namespace: default
+                    current-context: mock
+                    users:
+                    - name: mock
+                      user:
+                        token: mock
+                    """.formatted(client.getMasterUrl()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Map.of(
+                "drkube.kubeconfig.path", kubeconfig.toString(),
+                "drkube.tool.deadline", "5s",
+                "drkube.informers.sync-timeout", "5s",
+                "drkube.kubelet.timeout", "2s",
+                "drkube.connectivity.timeout", "2s",
+                "drkube.controlplane.timeout", "2s");
+    }
+
+    /**
+     * Risposte fisse per ciò che il dispatcher CRUD non implementa: la versione e la Table dei
+     * namespace letta da getClusterInfo ({@code MetadataLister.listTable}).
+     */
+    private void expectations() {
+        server.expect().get().withPath("/version")
+                .andReturn(200, Map.of("major", VERSION_MAJOR, "minor", VERSION_MINOR,
+                        "gitVersion", "v" + VERSION_MAJOR + "." + VERSION_MINOR + ".0"))
+                .always();
+        server.expect().get().withPath("/api/v1/namespaces?includeObject=None&limit=500")
+                .andReturn(200, Map.of(
+                        "kind", "Table",
+                        "apiVersion", "meta.k8s.io/v1",
+                        "metadata", Map.of(),
+                        "columnDefinitions", List.of(Map.of("name", "Name", "type", "string"),
+                                Map.of("name", "Status", "type", "string"), Map.of("name", "Age", "type", "string")),
+                        "rows", NAMESPACES.stream().map(ns -> Map.of("cells", List.of(ns, "Active", "1d"))).toList()))
+                .always();
+    }
+
+    private void seed() {
+        String now = ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        for (String namespace : NAMESPACES) {
+            create(new NamespaceBuilder().withNewMetadata().withName(namespace).endMetadata()
+                    .withNewStatus().withPhase("Active").endStatus().build());
+        }
+
+        create(new NodeBuilder()
+                .withNewMetadata().withName("worker-1").addToLabels("kubernetes.io/hostname", "worker-1").endMetadata()
+                .withNewStatus()
+                .addNewCondition().withType("Ready").withStatus("True").withLastHeartbeatTime(now).endCondition()
+                .addToAllocatable("cpu", new Quantity("4"))
+                .addToAllocatable("memory", new Quantity("8Gi"))
+                .addToAllocatable("pods", new Quantity("110"))
+                .addToCapacity("cpu", new Quantity("4"))
+                .addToCapacity("memory", new Quantity("8Gi"))
+                .addToCapacity("pods", new Quantity("110"))
+                .endStatus()
+                .build());
+        create(new LeaseBuilder()
+                .withNewMetadata().withName("worker-1").withNamespace("kube-node-lease").endMetadata()
+                .withNewSpec().withHolderIdentity("worker-1").withLeaseDurationSeconds(40)
+                .withRenewTime(ZonedDateTime.now()).endSpec()
+                .build());
+
+        create(new DeploymentBuilder()
+                .withNewMetadata().withName("web").withNamespace("default").withUid("uid-deploy-web").endMetadata()
+                .withNewSpec().withReplicas(1)
+                .withNewSelector().addToMatchLabels("app", "web").endSelector()
+                .withNewTemplate()
+                .withNewMetadata().addToLabels("app", "web").endMetadata()
+                .withNewSpec().addNewContainer().withName("web").withImage("nginx:1.27").endContainer().endSpec()
+                .endTemplate()
+                .endSpec()
+                .build());
+        create(new ReplicaSetBuilder()
+                .withNewMetadata().withName("web-5d8f").withNamespace("default").withUid("uid-rs-web")
+                .addNewOwnerReference().withApiVersion("apps/v1").withKind("Deployment").withName("web")
+                .withUid("uid-deploy-web").withController(true).endOwnerReference()
+                .endMetadata()
+                .withNewSpec().withReplicas(1)
+                .withNewSelector().addToMatchLabels("app", "web").endSelector()
+                .endSpec()
+                .build());
+        create(new PodBuilder()
+                .withNewMetadata().withName("web-1").withNamespace("default").addToLabels("app", "web")
+                .addNewOwnerReference().withApiVersion("apps/v1").withKind("ReplicaSet").withName("web-5d8f")
+                .withUid("uid-rs-web").withController(true).endOwnerReference()
+                .endMetadata()
+                .withNewSpec().withNodeName("worker-1").withServiceAccountName("default")
+                .addNewContainer().withName("web").withImage("nginx:1.27")
+                .withNewResources().addToRequests("cpu", new Quantity("100m")).addToRequests("memory", new Quantity("128Mi"))
+                .endResources().endContainer()
+                .addNewVolume().withName("data").withNewPersistentVolumeClaim().withClaimName("data").endPersistentVolumeClaim().endVolume()
+                .endSpec()
+                .withNewStatus().withPhase("Running").withPodIP("10.0.0.10")
+                .addNewContainerStatus().withName("web").withReady(true).withRestartCount(0).withImage("nginx:1.27")
+                .endContainerStatus()
+                .endStatus()
+                .build());
+
+        create(new ServiceBuilder()
+                .withNewMetadata().withName("web").withNamespace("default").endMetadata()
+                .withNewSpec().addToSelector("app", "web").addNewPort().withName("http").withPort(80).endPort().endSpec()
+                .build());
+        create(new EndpointsBuilder()
+                .withNewMetadata().withName("web").withNamespace("default").endMetadata()
+                .addNewSubset().addNewAddress().withIp("10.0.0.10").endAddress()
+                .addNewPort().withName("http").withPort(80).endPort().endSubset()
+                .build());
+        create(new IngressBuilder()
+                .withNewMetadata().withName("web").withNamespace("default").endMetadata()
+                .withNewSpec().addNewRule().withHost("web.example.com").withNewHttp().addNewPath().withPath("/")
+                .withPathType("Prefix").withNewBackend().withNewService().withName("web").withNewPort().withNumber(80)
+                .endPort().endService().endBackend().endPath().endHttp().endRule().endSpec()
+                .build());
+
+        create(new StorageClassBuilder()
+                .withNewMetadata().withName("standard").endMetadata()
+                .withProvisioner("kubernetes.io/no-provisioner").withReclaimPolicy("Delete")
+                .build());
+        create(new PersistentVolumeBuilder()
+                .withNewMetadata().withName("pv-data").endMetadata()
+                .withNewSpec().addToCapacity("storage", new Quantity("1Gi")).withAccessModes("ReadWriteOnce")
+                .withStorageClassName("standard")
+                .withNewClaimRef().withNamespace("default").withName("data").endClaimRef()
+                .endSpec()
+                .withNewStatus().withPhase("Bound").endStatus()
+                .build());
+        create(new PersistentVolumeClaimBuilder()
+                .withNewMetadata().withName("data").withNamespace("default").endMetadata()
+                .withNewSpec().withAccessModes("ReadWriteOnce").withStorageClassName("standard").withVolumeName("pv-data")
+                .withNewResources().addToRequests("storage", new Quantity("1Gi")).endResources()
+                .endSpec()
+                .withNewStatus().withPhase("Bound").endStatus()
+                .build());
+
+        create(new ConfigMapBuilder()
+                .withNewMetadata().withName("web").withNamespace("default").endMetadata()
+                .addToData("key", "value")
+                .build());
+        create(new SecretBuilder()
+                .withNewMetadata().withName("web").withNamespace("default").endMetadata()
+                .addToStringData("key", "value")
+                .build());
+        create(new ServiceAccountBuilder()
+                .withNewMetadata().withName("default").withNamespace("default").endMetadata()
+                .build());
+        create(new EventBuilder()
+                .withNewMetadata().withName("web-1.warning").withNamespace("default").endMetadata()
+                .withType("Warning").withReason("BackOff").withMessage("Back-off restarting failed container")
+                .withNewInvolvedObject().withKind("Pod").withNamespace("default").withName("web-1").endInvolvedObject()
+                .withLastTimestamp(now).withCount(3)
+                .build());
+    }
+
+    private void create(HasMetadata resource) {
+        client.resource(resource).create();
+    }
+
+    @Override
+    public void stop() {
+        if (client != null) {
+            client.close();
+        }
+        if (server != null) {
+            server.destroy();
+        }
+        if (kubeconfig != null) {
+            try {
+                Files.deleteIfExists(kubeconfig);
+            } catch (IOException e) {
+                // file temporaneo: lo ripulisce il sistema
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.drkube.mcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkiverse.mcp.server.ResourceManager;
+import io.quarkiverse.mcp.server.ResourceResponse;
+import io.quarkiverse.mcp.server.TextResourceContents;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Costo del fan-out delle notifiche {@code notifications/resources/updated}: {@value #SUBSCRIBERS}
+ * client MCP veri (trasporto SSE) si iscrivono alla stessa risorsa e per ogni aggiornamento si misura
+ * quanto ci mette a raggiungere ciascuno. Lo stesso percorso usato dalle risorse di LiveResources;
+ * il tempo per accodare l'invio, che è asincrono, non dice nulla sulla consegna.
+ */
+@QuarkusTest
+@QuarkusTestResource(KubernetesMockServerResource.class)
+public class ResourceFanoutTest {
+
+    private static final int SUBSCRIBERS = 50;
+    private static final int UPDATES = 20;
+    private static final String URI_UNDER_TEST = "drkube://test/fanout";
+    private static final Duration DELIVERY_TIMEOUT = Duration.ofSeconds(30);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Inject
+    ResourceManager resources;
+
+    @TestHTTPResource("/mcp/sse")
+    URI sse;
+
+    @Test
+    public void everySubscriberReceivesEveryUpdate() throws Exception {
+        ResourceManager.ResourceInfo resource = resources.newResource("fanout-test")
+                .setUri(URI_UNDER_TEST)
+                .setDescription("Synthetic resource for the notification fan-out test")
+                .setMimeType("text/plain")
+                .setHandler(args -> new ResourceResponse(List.of(TextResourceContents.create(URI_UNDER_TEST, "fanout"))))
+                .register();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        List<Subscriber> subscribers = new ArrayList<>();
+        try {
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                Subscriber subscriber = new Subscriber(http, sse);
+                subscriber.subscribe(URI_UNDER_TEST);
+                subscribers.add(subscriber);
+            }
+
+            long[] delivery = new long[SUBSCRIBERS * UPDATES];
+            int n = 0;
+            long total = System.nanoTime();
+            for (int update = 0; update < UPDATES; update++) {
+                long sent = System.nanoTime();
+                resource.sendUpdateAndForget();
+                for (Subscriber subscriber : subscribers) {
+                    Long received = subscriber.updates.poll(DELIVERY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                    assertNotNull(received, "subscriber " + subscriber.id + " did not receive update " + update);
+                    delivery[n++] = received - sent;
+                }
+            }
+            total = System.nanoTime() - total;
+
+            Arrays.sort(delivery);
+            System.out.printf("Fan-out to %d subscribers, %d updates in %d ms: per-subscriber delivery avg %d µs, "
+                            + "p50 %d µs, p99 %d µs, max %d µs%n", SUBSCRIBERS, UPDATES, TimeUnit.NANOSECONDS.toMillis(total),
+                    TimeUnit.NANOSECONDS.toMicros(Arrays.stream(delivery).sum() / delivery.length),
+                    TimeUnit.NANOSECONDS.toMicros(delivery[delivery.length / 2]),
+                    TimeUnit.NANOSECONDS.toMicros(delivery[(int) (delivery.length * 0.99)]),
+                    TimeUnit.NANOSECONDS.toMicros(delivery[delivery.length - 1]));
+            // nessuna notifica in più: un invio arriva una volta sola a ogni subscriber
+            for (Subscriber subscriber : subscribers) {
+                assertEquals(0, subscriber.updates.size(), "duplicate notifications for subscriber " + subscriber.id);
+            }
+        } finally {
+            subscribers.forEach(Subscriber::close);
+            resources.removeResource(URI_UNDER_TEST);
+        }
+    }
+
+    /**
+     * Client MCP sul trasporto SSE: le risposte e le notifiche arrivano sullo stream, le richieste
+     * vanno all'endpoint annunciato dal server nel primo evento.
+     */
+    private static final class Subscriber {
+        private static final AtomicInteger IDS = new AtomicInteger();
+
+        final int id = IDS.incrementAndGet();
+        final BlockingQueue<Long> updates = new LinkedBlockingQueue<>();
+        private final HttpClient http;
+        private final Map<Integer, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+        private final CompletableFuture<URI> endpoint = new CompletableFuture<>();
+        private final Thread reader;
+        private int nextId;
+        private volatile Stream<String> stream;
+
+        Subscriber(HttpClient http, URI sse) throws Exception {
+            this.http = http;
+            this.reader = Thread.ofVirtual().name("fanout-subscriber-" + id).start(() -> read(sse));
+            ObjectNode init = JSON.createObjectNode();
+            init.put("protocolVersion", "2024-11-05");
+            init.putObject("capabilities");
+            init.putObject("clientInfo").put("name", "drkube-fanout-test-" + id).put("version", "1.0");
+            JsonNode initialized = request("initialize", init);
+            assertFalse(initialized.has("error"), initialized.toString());
+            post(JSON.createObjectNode().put("jsonrpc", "2.0").put("method", "notifications/initialized"));
+        }
+
+        void subscribe(String uri) throws Exception {
+            ObjectNode params = JSON.createObjectNode().put("uri", uri);
+            JsonNode response = request("resources/subscribe", params);
+            assertFalse(response.has("error"), response.toString());
+        }
+
+        private void read(URI sse) {
+            HttpRequest request = HttpRequest.newBuilder(sse).header("Accept", "text/event-stream").GET().build();
+            String event = null;
+            try {
+                stream = http.send(request, HttpResponse.BodyHandlers.ofLines()).body();
+                for (String line : (Iterable<String>) stream::iterator) {
+                    if (line.startsWith("event:")) {
+                        event = line.substring("event:".length()).strip();
+                    } else if (line.startsWith("data:")) {
+                        String data = line.substring("data:".length()).strip();
+                        if ("endpoint".equals(event)) {
+                            endpoint.complete(sse.resolve(data));
+                        } else {
+                            dispatch(JSON.readTree(data));
+                        }
+                    } else if (line.isEmpty()) {
+                        event = null;
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                endpoint.completeExceptionally(e);
+                pending.values().forEach(f -> f.completeExceptionally(e));
+            }
+        }
+
+        private void dispatch(JsonNode message) {
+            if ("notifications/resources/updated".equals(message.path("method").asText())) {
+                updates.add(System.nanoTime());
+            } else if (message.has("id")) {
+                CompletableFuture<JsonNode> response = pending.remove(message.path("id").asInt());
+                if (response != null) {
+                    response.complete(message);
+                }
+            }
+        }
+
+        private JsonNode request(String method, ObjectNode params) throws Exception {
+            int requestId = ++nextId;
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            pending.put(requestId, response);
+            ObjectNode message = JSON.createObjectNode().put("jsonrpc", "2.0").put("id", requestId).put("method", method);
+            message.set("params", params);
+            post(message);
+            return response.get(DELIVERY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void post(ObjectNode message) throws Exception {
+            HttpRequest request = HttpRequest.newBuilder(endpoint.get(DELIVERY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(message.toString()))
+                    .build();
+            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status / 100 != 2) {
+                throw new IllegalStateException(message.path("method").asText() + " answered HTTP " + status);
+            }
+        }
+
+        void close() {
+            Stream<String> current = stream;
+            if (current != null) {
+                current.close();
+            }
+            reader.interrupt();
+        }
+    }
+}
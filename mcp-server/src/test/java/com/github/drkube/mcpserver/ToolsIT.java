@@ -0,0 +1,11 @@
+package com.github.drkube.mcpserver;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+
+/**
+ * {@link ToolsTest} sull'artefatto pacchettizzato; con {@code mvn verify -Dnative} è l'eseguibile
+ * nativo, dove una classe non registrata per la reflection emerge solo a runtime.
+ */
+@QuarkusIntegrationTest
+public class ToolsIT extends ToolsTest {
+}
@@ -0,0 +1,233 @@
+package com.github.drkube.mcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chiama ogni tool esposto su {@code /mcp} (streamable HTTP, JSON-RPC) contro il mock server di
+ * {@link KubernetesMockServerResource}: ogni tool deve rispondere senza errori JSON-RPC e senza i
+ * sintomi tipici di un'immagine nativa incompleta (classi o costruttori non registrati per la
+ * reflection); per alcuni tool si controlla anche il contenuto della risposta contro gli oggetti
+ * del cluster finto. {@link ToolsIT} ripete gli stessi test sull'eseguibile nativo.
+ */
+@QuarkusTest
+@QuarkusTestResource(KubernetesMockServerResource.class)
+public class ToolsTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SESSION_HEADER = "Mcp-Session-Id";
+    private static final List<String> NATIVE_FAILURES = List.of("ClassNotFoundException", "NoClassDefFoundError",
+            "NoSuchMethod", "NoSuchField", "Cannot construct instance", "UnsupportedFeature",
+            "registered for reflection", "MissingReflectionRegistration");
+
+    private int nextId;
+    private String session;
+
+    @BeforeEach
+    void initialize() {
+        ObjectNode init = JSON.createObjectNode();
+        init.put("protocolVersion", "2025-03-26");
+        init.putObject("capabilities");
+        init.putObject("clientInfo").put("name", "drkube-tools-test").put("version", "1.0");
+        JsonNode initialized = request("initialize", init);
+        assertFalse(initialized.has("error"), initialized.toString());
+        notification("notifications/initialized");
+    }
+
+    @Test
+    public void everyToolAnswers() {
+        JsonNode tools = request("tools/list", JSON.createObjectNode()).path("result").path("tools");
+        assertFalse(tools.isEmpty(), "no tools listed");
+
+        List<String> failures = new ArrayList<>();
+        for (JsonNode tool : tools) {
+            String name = tool.path("name").asText();
+            ObjectNode params = JSON.createObjectNode().put("name", name);
+            params.set("arguments", arguments(tool.path("inputSchema")));
+            JsonNode response = request("tools/call", params);
+            if (response.has("error")) {
+                failures.add(name + " " + params.get("arguments") + ": " + response.get("error"));
+                continue;
+            }
+            String text = text(response);
+            NATIVE_FAILURES.stream().filter(text::contains).findFirst()
+                    .ifPresent(marker -> failures.add(name + ": " + text));
+        }
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    public void clusterInfoCountsTheFixtures() {
+        assertEquals(String.format("Cluster version: %s.%s%nNodes: 1%nActive namespaces: %d",
+                        KubernetesMockServerResource.VERSION_MAJOR, KubernetesMockServerResource.VERSION_MINOR,
+                        KubernetesMockServerResource.NAMESPACES.size()),
+                call("getClusterInfo", JSON.createObjectNode()));
+    }
+
+    @Test
+    public void namespaceListingsMatchTheFixtures() {
+        assertEquals("web-1 - Status: Running - Restarts: 0",
+                call("listPodsInNamespace", JSON.createObjectNode().put("namespace", "default")));
+        assertEquals("No pods found in namespace kube-system",
+                call("listPodsInNamespace", JSON.createObjectNode().put("namespace", "kube-system")));
+        assertEquals("PVCs in namespace 'default': [data]",
+                call("listPVCs", JSON.createObjectNode().put("namespace", "default")));
+    }
+
+    @Test
+    public void nodeStatusReadsTheNodeConditions() {
+        String status = call("getNodeStatus", JSON.createObjectNode().put("nodeName", "worker-1"));
+        assertTrue(status.startsWith("Node worker-1 is Ready (Ready=True)"), status);
+        assertEquals("Node worker-9 not found.", call("getNodeStatus", JSON.createObjectNode().put("nodeName", "worker-9")));
+    }
+
+    private String call(String tool, ObjectNode arguments) {
+        ObjectNode params = JSON.createObjectNode().put("name", tool);
+        params.set("arguments", arguments);
+        JsonNode response = request("tools/call", params);
+        assertFalse(response.has("error"), tool + ": " + response);
+        return text(response);
+    }
+
+    private static String text(JsonNode response) {
+        StringBuilder text = new StringBuilder();
+        response.path("result").path("content").forEach(c -> text.append(c.path("text").asText()));
+        return text.toString();
+    }
+
+    /**
+     * Argomenti plausibili per il cluster finto, scelti dal nome e dal tipo della proprietà; gli
+     * opzionali sconosciuti restano fuori così il tool usa i suoi default.
+     */
+    private static ObjectNode arguments(JsonNode schema) {
+        ObjectNode arguments = JSON.createObjectNode();
+        List<String> required = new ArrayList<>();
+        schema.path("required").forEach(r -> required.add(r.asText()));
+        Iterator<Map.Entry<String, JsonNode>> properties = schema.path("properties").fields();
+        while (properties.hasNext()) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            String name = property.getKey();
+            switch (property.getValue().path("type").asText("string")) {
+                // numeri piccoli: limiti, finestre e soglie restano sotto la deadline dei tool
+                case "integer" -> arguments.put(name, 1);
+                case "number" -> arguments.put(name, 1.0);
+                case "boolean" -> arguments.put(name, false);
+                case "array" -> arguments.putArray(name).add("key");
+                default -> {
+                    String value = value(name);
+                    if (value != null || required.contains(name)) {
+                        arguments.put(name, value != null ? value : "web");
+                    }
+                }
+            }
+        }
+        return arguments;
+    }
+
+    private static String value(String property) {
+        String name = property.toLowerCase(Locale.ROOT);
+        if (name.contains("namespace")) {
+            return "default";
+        } else if (name.contains("node")) {
+            return "worker-1";
+        } else if (name.contains("pod")) {
+            return "web-1";
+        } else if (name.equals("kind")) {
+            return "deployment";
+        } else if (name.contains("selector")) {
+            return "app=web";
+        } else if (name.equals("targets")) {
+            return "web:80";
+        } else if (name.equals("host")) {
+            return "web.default.svc";
+        } else if (name.equals("port")) {
+            return "80";
+        } else if (name.equals("verb")) {
+            return "get";
+        } else if (name.equals("resource")) {
+            return "pods";
+        } else if (name.startsWith("sa")) {
+            return "default";
+        } else if (name.contains("pvc")) {
+            return "data";
+        } else if (name.contains("service") || name.contains("ingress") || name.equals("name")) {
+            return "web";
+        }
+        return null;
+    }
+
+    private JsonNode request(String method, ObjectNode params) {
+        int id = ++nextId;
+        ObjectNode message = JSON.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("method", method);
+        message.set("params", params);
+        Response response = post(message);
+        assertEquals(200, response.statusCode(), method + ": " + response.asString());
+        if (session == null) {
+            session = response.header(SESSION_HEADER);
+        }
+        return parse(response, id);
+    }
+
+    private void notification(String method) {
+        Response response = post(JSON.createObjectNode().put("jsonrpc", "2.0").put("method", method));
+        assertEquals(202, response.statusCode(), method + ": " + response.asString());
+    }
+
+    private Response post(ObjectNode message) {
+        RequestSpecification request = given()
+                .config(RestAssured.config().httpClient(HttpClientConfig.httpClientConfig()
+                        .setParam("http.socket.timeout", 60_000)))
+                .contentType(ContentType.JSON)
+                .accept("application/json, text/event-stream")
+                .body(message.toString());
+        if (session != null) {
+            request.header(SESSION_HEADER, session);
+        }
+        return request.post("/mcp");
+    }
+
+    /**
+     * La risposta può essere JSON o uno stream SSE, dove prima del risultato arrivano le
+     * notifiche di log dei tool: si cerca il messaggio con l'id della richiesta.
+     */
+    private static JsonNode parse(Response response, int id) {
+        String body = response.asString();
+        try {
+            if (!String.valueOf(response.contentType()).startsWith("text/event-stream")) {
+                return JSON.readTree(body);
+            }
+            for (String line : body.split("\n")) {
+                if (line.startsWith("data:")) {
+                    JsonNode message = JSON.readTree(line.substring("data:".length()).strip());
+                    if (message.path("id").asInt(-1) == id) {
+                        return message;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new AssertionError("Invalid JSON-RPC response: " + body, e);
+        }
+        throw new AssertionError("No response with id " + id + ": " + body);
+    }
+}
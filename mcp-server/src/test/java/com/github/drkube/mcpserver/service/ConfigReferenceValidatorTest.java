@@ -0,0 +1,99 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validatore dei riferimenti a ConfigMap e Secret su una fixture sintetica da 10k pod in 50
+ * namespace: un riferimento su 21 punta a oggetti che non esistono. Stampa i tempi di
+ * indicizzazione e validazione; nessun contesto Quarkus.
+ */
+class ConfigReferenceValidatorTest {
+
+    private static final int PODS = 10_000;
+    private static final int NAMESPACES = 50;
+
+    @Test
+    void findsEveryBrokenReferenceInTenThousandPods() {
+        long start = System.nanoTime();
+        ConfigReferenceValidator validator = new ConfigReferenceValidator();
+        for (int ns = 0; ns < NAMESPACES; ns++) {
+            for (int i = 0; i < 20; i++) {
+                validator.addConfigMap(new ConfigMapBuilder()
+                        .withNewMetadata().withNamespace("ns-" + ns).withName("cm-" + i).endMetadata()
+                        .addToData("app.properties", "x").addToData("LOG_LEVEL", "info")
+                        .build());
+                validator.addSecret(new SecretBuilder()
+                        .withNewMetadata().withNamespace("ns-" + ns).withName("secret-" + i).endMetadata()
+                        .addToData("password", "eA==")
+                        .build());
+            }
+        }
+        long indexed = System.nanoTime();
+
+        int broken = 0;
+        for (int p = 0; p < PODS; p++) {
+            List<ConfigReferenceValidator.BrokenReference> references = validator.validate(pod(p));
+            broken += references.size();
+            if (p % 21 == 20) {
+                assertEquals(List.of("ConfigMap 'cm-20' not found", "Secret 'secret-20' not found"),
+                        references.stream().map(ConfigReferenceValidator.BrokenReference::problem).toList());
+            }
+        }
+        long validated = System.nanoTime();
+
+        System.out.printf("Indexed %d objects in %d ms, validated %d pods in %d ms, %d broken references%n",
+                validator.indexedObjects(), TimeUnit.NANOSECONDS.toMillis(indexed - start),
+                PODS, TimeUnit.NANOSECONDS.toMillis(validated - indexed), broken);
+        assertEquals(NAMESPACES * 40, validator.indexedObjects());
+        // cm-20 e secret-20 mancano: due riferimenti rotti per ogni pod con ref == 20
+        assertEquals(PODS / 21 * 2, broken);
+    }
+
+    @Test
+    void checksStringDataKeysAndEveryReferenceKind() {
+        ConfigReferenceValidator validator = new ConfigReferenceValidator();
+        validator.addSecret(new SecretBuilder()
+                .withNewMetadata().withNamespace("ns-0").withName("secret-0").endMetadata()
+                .addToStringData("password", "plain")
+                .build());
+        validator.addConfigMap(new ConfigMapBuilder()
+                .withNewMetadata().withNamespace("ns-0").withName("cm-0").endMetadata()
+                .addToData("LOG_LEVEL", "info")
+                .build());
+        List<ConfigReferenceValidator.BrokenReference> references = validator.validate(pod(0));
+        // envFrom cm-1, volume cm-2 e pull secret secret-3 non esistono in questo indice
+        assertEquals(List.of("ConfigMap 'cm-1' not found", "ConfigMap 'cm-2' not found", "Secret 'secret-3' not found"),
+                references.stream().map(ConfigReferenceValidator.BrokenReference::problem).sorted().toList());
+    }
+
+    private static Pod pod(int p) {
+        int ref = p % 21; // il riferimento a cm-20/secret-20 è rotto (~5% dei pod)
+        return new PodBuilder()
+                .withNewMetadata().withNamespace("ns-" + (p % NAMESPACES)).withName("pod-" + p).endMetadata()
+                .withNewSpec()
+                .addNewContainer().withName("app")
+                .addNewEnv().withName("LOG_LEVEL").withNewValueFrom()
+                .withNewConfigMapKeyRef().withKey("LOG_LEVEL").withName("cm-" + ref).endConfigMapKeyRef()
+                .endValueFrom().endEnv()
+                .addNewEnv().withName("PASSWORD").withNewValueFrom()
+                .withNewSecretKeyRef().withKey("password").withName("secret-" + ref).endSecretKeyRef()
+                .endValueFrom().endEnv()
+                .addNewEnvFrom().withNewConfigMapRef().withName("cm-" + ((ref + 1) % 20)).endConfigMapRef().endEnvFrom()
+                .endContainer()
+                .addNewVolume().withName("config").withNewConfigMap().withName("cm-" + ((ref + 2) % 20))
+                .addNewItem().withKey("app.properties").withPath("app.properties").endItem()
+                .endConfigMap().endVolume()
+                .addNewImagePullSecret().withName("secret-" + ((ref + 3) % 20)).endImagePullSecret()
+                .endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.drkube.mcpserver.service;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolume;
+import io.fabric8.kubernetes.api.model.PersistentVolumeBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulatore di scheduling su un cluster sintetico da {@value #NODES} nodi e {@value #PENDING}
+ * pod Pending: indicizzazione e spiegazione di tutti i pod devono stare sotto il secondo. Un nodo
+ * su 10 ha il taint gpu, uno su 100 è cordonato, uno su 4 ha già 3 dei suoi 4 core richiesti;
+ * le zone si alternano su tre valori. Nessun contesto Quarkus.
+ */
+class SchedulingSimulatorTest {
+
+    private static final int NODES = 2_000;
+    private static final int PENDING = 500;
+    private static final long BUDGET_MILLIS = 1_000;
+
+    @Test
+    void explainsFiveHundredPendingPodsOnTwoThousandNodesInUnderASecond() {
+        List<Node> nodes = new ArrayList<>();
+        List<Pod> pods = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(node(i));
+            if (i % 4 == 0) {
+                pods.add(running("busy-" + i, "node-" + i, "3"));
+            }
+        }
+        List<Pod> pending = new ArrayList<>();
+        for (int p = 0; p < PENDING; p++) {
+            pending.add(pending(p));
+        }
+        pods.addAll(pending);
+        PersistentVolumeClaim claim = new PersistentVolumeClaimBuilder()
+                .withNewMetadata().withNamespace("team").withName("data").endMetadata()
+                .withNewSpec().withVolumeName("pv-data").withStorageClassName("zonal").endSpec()
+                .build();
+        PersistentVolume volume = new PersistentVolumeBuilder()
+                .withNewMetadata().withName("pv-data").addToLabels("topology.kubernetes.io/zone", "zone-2").endMetadata()
+                .withNewSpec().addToCapacity("storage", new Quantity("10Gi")).endSpec()
+                .build();
+
+        long start = System.nanoTime();
+        SchedulingSimulator simulator = new SchedulingSimulator(nodes, pods, List.of(claim), List.of(volume), List.of());
+        long indexed = System.nanoTime();
+        List<String> explanations = new ArrayList<>();
+        for (Pod pod : pods) {
+            if (SchedulingSimulator.isPending(pod)) {
+                explanations.add(simulator.explain(pod).explanation());
+            }
+        }
+        long explained = System.nanoTime();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(explained - start);
+        System.out.printf("Indexed %d nodes and %d pods in %d ms, explained %d pending pods in %d ms%n",
+                NODES, pods.size(), TimeUnit.NANOSECONDS.toMillis(indexed - start), explanations.size(),
+                TimeUnit.NANOSECONDS.toMillis(explained - indexed));
+        assertTrue(millis < BUDGET_MILLIS, "took " + millis + " ms");
+        assertEquals(PENDING, explanations.size());
+
+        // 20 cordonati, 200 gpu con taint, 500 occupati di cui 100 gpu
+        assertEquals("1380/2000 nodes are available: 400 Insufficient cpu, 200 node(s) had untolerated taint {gpu: true}, "
+                + "20 node(s) were unschedulable.", explanations.get(0));
+        assertEquals("200/2000 nodes are available: 1780 node(s) didn't match Pod's node affinity/selector, "
+                + "20 node(s) were unschedulable.", explanations.get(1));
+        assertEquals("0/2000 nodes are available: 1780 Insufficient cpu, 200 node(s) had untolerated taint {gpu: true}, "
+                + "20 node(s) were unschedulable.", explanations.get(2));
+        // dei 1780 nodi rimasti, 593 sono in zone-2 come il PV
+        assertEquals("593/2000 nodes are available: 1187 node(s) had no available volume zone, "
+                + "200 node(s) had untolerated taint {gpu: true}, 20 node(s) were unschedulable.", explanations.get(3));
+        for (int p = 4; p < PENDING; p++) {
+            assertEquals(explanations.get(p % 4), explanations.get(p), "pod " + p);
+        }
+    }
+
+    private static Node node(int i) {
+        NodeBuilder node = new NodeBuilder()
+                .withNewMetadata().withName("node-" + i)
+                .addToLabels("topology.kubernetes.io/zone", "zone-" + i % 3)
+                .addToLabels("pool", i % 10 == 0 ? "gpu" : "general")
+                .endMetadata()
+                .withNewSpec().withUnschedulable(i % 100 == 1).endSpec()
+                .withNewStatus()
+                .addToAllocatable("cpu", new Quantity("4"))
+                .addToAllocatable("memory", new Quantity("16Gi"))
+                .addToAllocatable("pods", new Quantity("110"))
+                .endStatus();
+        if (i % 10 == 0) {
+            node.editSpec().addNewTaint().withKey("gpu").withValue("true").withEffect("NoSchedule").endTaint().endSpec();
+        }
+        return node.build();
+    }
+
+    private static Pod running(String name, String nodeName, String cpu) {
+        return new PodBuilder()
+                .withNewMetadata().withNamespace("team").withName(name).endMetadata()
+                .withNewSpec().withNodeName(nodeName)
+                .addNewContainer().withName("app").withNewResources().addToRequests("cpu", new Quantity(cpu)).endResources().endContainer()
+                .endSpec()
+                .withNewStatus().withPhase("Running").endStatus()
+                .build();
+    }
+
+    /**
+     * Quattro forme di pod Pending a rotazione: cpu oltre lo spazio libero dei nodi occupati,
+     * nodeSelector sul pool gpu con toleration, cpu oltre l'allocatable di ogni nodo, PVC legata
+     * a un PV di zone-2.
+     */
+    private static Pod pending(int p) {
+        PodBuilder pod = new PodBuilder()
+                .withNewMetadata().withNamespace("team").withName("pending-" + p).endMetadata()
+                .withNewSpec().addNewContainer().withName("app").endContainer().endSpec()
+                .withNewStatus().withPhase("Pending").endStatus();
+        switch (p % 4) {
+            case 0 -> pod.editSpec().editFirstContainer().withNewResources().addToRequests("cpu", new Quantity("2"))
+                    .endResources().endContainer().endSpec();
+            case 1 -> pod.editSpec().addToNodeSelector("pool", "gpu")
+                    .addNewToleration().withKey("gpu").withOperator("Exists").withEffect("NoSchedule").endToleration()
+                    .endSpec();
+            case 2 -> pod.editSpec().editFirstContainer().withNewResources().addToRequests("cpu", new Quantity("8"))
+                    .endResources().endContainer().endSpec();
+            default -> pod.editSpec().addNewVolume().withName("data").withNewPersistentVolumeClaim().withClaimName("data")
+                    .endPersistentVolumeClaim().endVolume().endSpec();
+        }
+        return pod.build();
+    }
+}
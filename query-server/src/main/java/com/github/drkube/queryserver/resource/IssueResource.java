@@ -1,23 +1,91 @@
 package com.github.drkube.queryserver.resource;
 
-import com.github.drkube.queryserver.service.DrKubeAssistantService;
+import com.github.drkube.queryserver.service.AdmissionController;
+import com.github.drkube.queryserver.service.FastPath;
+import com.github.drkube.queryserver.service.QuestionCoalescer;
+import com.github.drkube.queryserver.service.SessionRecorder;
+import com.github.drkube.queryserver.service.TieredAssistant;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.vertx.core.http.HttpServerRequest;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Optional;
 
 @Path("/issue")
 @Produces(MediaType.TEXT_PLAIN)
 public class IssueResource {
 
     @Inject
-    DrKubeAssistantService assistant;
+    TieredAssistant assistant;
+
+    @Inject
+    AdmissionController admission;
+
+    @Inject
+    QuestionCoalescer coalescer;
+
+    @Inject
+    FastPath fastPath;
 
+    @Inject
+    SessionRecorder recorder;
+
+    // header con l'identità del client impostato da un proxy fidato (es. X-Forwarded-For); vuoto = indirizzo remoto
+    @ConfigProperty(name = "drkube.admission.client-header")
+    Optional<String> clientHeader;
+
+    // Ogni domanda gira su un virtual thread: l'attesa dell'LLM non occupa i worker thread
     @GET
-    public String ask(@QueryParam("q") String q) {
-        return assistant.chat(q == null ? "How many pods there are in kube-system namespace?" : q);
+    @RunOnVirtualThread
+    public Response ask(@QueryParam("q") String q,
+                        @Context HttpServerRequest request) throws Exception {
+        String client = client(request);
+        String question = q == null ? "How many pods there are in kube-system namespace?" : q;
+
+        // domande strutturate note: un solo tool MCP, nessun LLM
+        Optional<String> direct = fastPath.answer(question);
+        if (direct.isPresent()) {
+            return Response.ok(direct.get()).build();
+        }
+
+        // domande identiche già in corso condividono la stessa esecuzione (e lo stesso permesso)
+        QuestionCoalescer.Ticket ticket = coalescer.join(question, () -> {
+            try (AdmissionController.Permit permit = admission.acquire(client)) {
+                return recorder.record(question, () -> assistant.chat(question));
+            }
+        });
+        request.response().closeHandler(v -> ticket.leave());
+        try {
+            return Response.ok(ticket.await()).build();
+        } catch (AdmissionController.RejectedException e) {
+            return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header("Retry-After", e.retryAfterSeconds())
+                    .entity("Too many questions in progress (" + e.getMessage() + "), retry in " + e.retryAfterSeconds() + "s")
+                    .build();
+        }
+    }
+
+    /**
+     * Chiave del limite per client: l'indirizzo remoto, perché un header scelto dal chiamante si
+     * aggira mandandone uno nuovo a ogni richiesta. Dietro un proxy fidato si può usare l'header che
+     * il proxy imposta; di una lista (X-Forwarded-For) vale l'ultimo valore, quello aggiunto dal proxy.
+     */
+    private String client(HttpServerRequest request) {
+        if (clientHeader.isPresent()) {
+            String value = request.getHeader(clientHeader.get());
+            if (value != null && !value.isBlank()) {
+                return value.substring(value.lastIndexOf(',') + 1).strip();
+            }
+        }
+        return request.remoteAddress().host();
     }
 }
\ No newline at end of file
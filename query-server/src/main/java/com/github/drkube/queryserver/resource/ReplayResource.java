@@ -0,0 +1,87 @@
+package com.github.drkube.queryserver.resource;
+
+import com.github.drkube.queryserver.service.ReplayHarness;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.file.InvalidPathException;
+
+@Path("/replay")
+@Produces(MediaType.TEXT_PLAIN)
+public class ReplayResource {
+
+    @Inject
+    ReplayHarness harness;
+
+    @ConfigProperty(name = "drkube.replay.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "drkube.recorder.file", defaultValue = "sessions.jsonl")
+    String recorderFile;
+
+    // Rigioca le sessioni registrate contro l'MCP server configurato; 417 se ci sono regressioni,
+    // es. /replay?file=sessions.jsonl&output=replay.jsonl poi /replay?file=sessions.jsonl&baseline=replay.jsonl
+    @GET
+    @RunOnVirtualThread
+    public Response replay(@QueryParam("file") String file,
+                           @QueryParam("baseline") String baseline,
+                           @QueryParam("output") String output,
+                           @QueryParam("tolerance") @DefaultValue("0.5") double tolerance,
+                           @QueryParam("simulateLlm") @DefaultValue("false") boolean simulateLlm) throws Exception {
+        if (!enabled) {
+            throw new NotFoundException();
+        }
+        ReplayHarness.Report report = harness.run(sessionFile(file != null ? file : recorderName()),
+                baseline != null ? sessionFile(baseline) : null,
+                output != null ? sessionFile(output) : null,
+                tolerance, simulateLlm);
+
+        StringBuilder body = new StringBuilder(report.summary()).append('\n');
+        report.regressions().forEach(r -> body.append("REGRESSION ").append(r).append('\n'));
+        return Response.status(report.regressions().isEmpty() ? Response.Status.OK : Response.Status.EXPECTATION_FAILED)
+                .entity(body.toString())
+                .build();
+    }
+
+    private java.nio.file.Path recorderDir() {
+        java.nio.file.Path recorder = java.nio.file.Path.of(recorderFile).toAbsolutePath().normalize();
+        return recorder.getParent();
+    }
+
+    private String recorderName() {
+        return java.nio.file.Path.of(recorderFile).getFileName().toString();
+    }
+
+    /**
+     * output cancella e riscrive il file indicato: tutti i nomi (file, baseline, output) devono
+     * essere relativi e restare nella directory di {@code drkube.recorder.file}.
+     */
+    private java.nio.file.Path sessionFile(String name) {
+        java.nio.file.Path dir = recorderDir();
+        try {
+            java.nio.file.Path relative = java.nio.file.Path.of(name);
+            boolean parent = false;
+            for (java.nio.file.Path part : relative) {
+                parent |= "..".equals(part.toString());
+            }
+            java.nio.file.Path target = dir.resolve(relative).normalize();
+            if (!name.isBlank() && !relative.isAbsolute() && !parent && target.startsWith(dir) && !target.equals(dir)) {
+                return target;
+            }
+        } catch (InvalidPathException e) {
+            // trattato come nome non valido
+        }
+        throw new BadRequestException("file must be a relative name inside " + dir);
+    }
+}
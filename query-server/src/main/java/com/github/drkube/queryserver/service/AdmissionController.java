@@ -0,0 +1,147 @@
+package com.github.drkube.queryserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AdmissionController — limita le domande in esecuzione contemporanea (ogni domanda è un intero
+ * giro LLM + tool), tiene una coda di attesa limitata e un tetto per client; oltre questi limiti
+ * la richiesta viene rifiutata subito con una stima del Retry-After invece di occupare risorse.
+ */
+@ApplicationScoped
+public class AdmissionController {
+
+    @ConfigProperty(name = "drkube.admission.max-in-flight", defaultValue = "8")
+    int maxInFlight;
+
+    @ConfigProperty(name = "drkube.admission.max-queue", defaultValue = "32")
+    int maxQueue;
+
+    @ConfigProperty(name = "drkube.admission.max-wait", defaultValue = "20s")
+    Duration maxWait;
+
+    @ConfigProperty(name = "drkube.admission.per-client", defaultValue = "2")
+    int perClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<String, Integer> perClientInFlight = new ConcurrentHashMap<>();
+    // media mobile esponenziale della durata di una domanda, per stimare il Retry-After
+    private volatile double avgServiceMillis = 10_000;
+
+    private Timer waitTimer;
+    private Timer serviceTimer;
+
+    /**
+     * Rifiuto con il motivo e i secondi dopo cui ha senso riprovare.
+     */
+    public static class RejectedException extends Exception {
+        private final long retryAfterSeconds;
+
+        RejectedException(String reason, long retryAfterSeconds) {
+            super(reason);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long retryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    /**
+     * Permesso da chiudere a fine domanda.
+     */
+    public final class Permit implements AutoCloseable {
+        private final String client;
+        private final long start = System.nanoTime();
+        private boolean closed;
+
+        private Permit(String client) {
+            this.client = client;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.nanoTime() - start;
+            serviceTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            avgServiceMillis = 0.8 * avgServiceMillis + 0.2 * TimeUnit.NANOSECONDS.toMillis(elapsed);
+            slots.release();
+            release(client);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxInFlight, true);
+        registry.gauge("drkube.admission.queue.depth", queued);
+        registry.gauge("drkube.admission.in.flight", this, c -> c.maxInFlight - c.slots.availablePermits());
+        waitTimer = Timer.builder("drkube.admission.wait").description("Time spent queued before execution").register(registry);
+        serviceTimer = Timer.builder("drkube.admission.service").description("Time spent answering an admitted question").register(registry);
+    }
+
+    /**
+     * Attende un posto (bloccante: chiamare da un virtual thread) o rifiuta subito se la coda o il
+     * tetto del client sono pieni.
+     */
+    public Permit acquire(String client) throws RejectedException {
+        if (perClientInFlight.merge(client, 1, Integer::sum) > perClient) {
+            release(client);
+            throw reject("client-limit", "too many concurrent questions from " + client);
+        }
+
+        long begin = System.nanoTime();
+        if (slots.tryAcquire()) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return new Permit(client);
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            release(client);
+            throw reject("queue-full", "admission queue is full");
+        }
+        try {
+            if (!slots.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                release(client);
+                throw reject("queue-timeout", "no execution slot within " + maxWait.toSeconds() + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(client);
+            throw reject("interrupted", "interrupted while queued");
+        } finally {
+            queued.decrementAndGet();
+        }
+        waitTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+        return new Permit(client);
+    }
+
+    private void release(String client) {
+        perClientInFlight.computeIfPresent(client, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private RejectedException reject(String reason, String message) {
+        Counter.builder("drkube.admission.rejected").tag("reason", reason).register(registry).increment();
+        // tempo per smaltire la coda attuale più questa richiesta, con i posti disponibili
+        double seconds = avgServiceMillis / 1000.0 * (queued.get() + 1) / maxInFlight;
+        return new RejectedException(message, Math.max(1, Math.min(60, (long) Math.ceil(seconds))));
+    }
+}
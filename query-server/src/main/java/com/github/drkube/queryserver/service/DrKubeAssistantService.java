@@ -3,9 +3,9 @@ package com.github.drkube.queryserver.service;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.UserMessage;
 import io.quarkiverse.langchain4j.RegisterAiService;
-import io.quarkiverse.langchain4j.mcp.runtime.McpToolBox;
 
-@RegisterAiService
+// i tool dell'MCP server arrivano filtrati per domanda da ToolRouter
+@RegisterAiService(toolProviderSupplier = ToolRouter.class)
 public interface DrKubeAssistantService {
 
     @SystemMessage("""
@@ -52,6 +52,5 @@ public interface DrKubeAssistantService {
         Your mission is to act as a **Kubernetes expert assistant** that helps users **diagnose, understand, and resolve** problems in Kubernetes environments efficiently, accurately, and securely, leveraging your certified-level knowledge and the tools at your disposal.
         
             """)
-    @McpToolBox("drkube")
     String chat(@UserMessage String message);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.github.drkube.queryserver.service;
+
+import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.UserMessage;
+import io.quarkiverse.langchain4j.RegisterAiService;
+
+// modello locale piccolo per le domande semplici: prompt breve per non sprecarne il contesto
+@RegisterAiService(modelName = "small", toolProviderSupplier = ToolRouter.class)
+public interface DrKubeSmallAssistantService {
+
+    @SystemMessage("""
+        You are **DrKube**, a Kubernetes assistant answering simple lookup questions about a cluster.
+        - Use the available tools to get the data; never invent results.
+        - If a tool fails or the data is not enough to answer, reply exactly: CANNOT_ANSWER
+        - Answer briefly, in the same language as the question.
+            """)
+    String chat(@UserMessage String message);
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.github.drkube.queryserver.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.mcp.client.McpClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkiverse.langchain4j.mcp.runtime.McpClientName;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * FastPath — risposta senza LLM alle domande strutturate più comuni: la domanda normalizzata deve
+ * corrispondere per intero a uno dei pattern, gli argomenti vengono estratti dai gruppi nominati e
+ * il tool MCP corrispondente viene chiamato direttamente. Se nessun pattern corrisponde o il tool
+ * risponde con un errore si torna all'assistente LLM.
+ * <p>
+ * Il fast path risponde solo quando è sicuro: parole come "cluster" o "all" al posto del nome non
+ * vengono prese per un namespace o un nodo, e una risposta vuota ("No pods found in namespace x")
+ * non distingue un namespace vuoto da uno che non esiste, quindi passa anch'essa all'LLM.
+ */
+@ApplicationScoped
+public class FastPath {
+
+    // parole che nelle domande stanno al posto di un nome ("in the cluster", "in all namespaces")
+    private static final String NOT_A_NAME =
+            "(?!(cluster|all|every|each|any|my|this|that|namespaces|nodes|tutti|tutto|ogni)(?![-a-z0-9.]))";
+    private static final String NAME = "(?<%s>" + NOT_A_NAME + "[a-z0-9]([-a-z0-9.]*[a-z0-9])?)";
+
+    /**
+     * Intento: pattern sulla domanda, tool MCP, argomento, risposte del tool che non bastano a
+     * rispondere (si passa all'LLM) e formattazione del risultato.
+     */
+    private record Intent(String id, Pattern pattern, String tool, String argument,
+                          Predicate<String> inconclusive, BiFunction<String, String, String> format) {
+    }
+
+    private static final List<Intent> INTENTS = List.of(
+            new Intent("count-pods",
+                    pattern("(how many pods (are there |there are |exist |are running )?in (the )?(namespace )?%s( namespace)?"
+                            + "|quanti pod (ci sono )?(nel|in) (namespace )?%s)"),
+                    "listPodsInNamespace", "namespace", out -> out.startsWith("No pods found"),
+                    (ns, out) -> "There are " + out.lines().count() + " pods in namespace " + ns + ":\n" + out),
+            new Intent("list-pods",
+                    pattern("((list|show)( me)? (all )?(the )?pods in (the )?(namespace )?%s( namespace)?"
+                            + "|(elenca|mostra) (i )?pod (del|nel|in) (namespace )?%s)"),
+                    "listPodsInNamespace", "namespace", out -> out.startsWith("No pods found"), (ns, out) -> out),
+            new Intent("list-pvcs",
+                    pattern("((list|show)( me)? (all )?(the )?(pvcs?|persistent ?volume ?claims) in (the )?(namespace )?%s( namespace)?"
+                            + "|(elenca|mostra) (i |le )?(pvc|persistent ?volume ?claim) (del|nel|in) (namespace )?%s)"),
+                    "listPVCs", "namespace", out -> out.startsWith("No PVCs found") || out.startsWith("Invalid namespace"),
+                    (ns, out) -> out),
+            new Intent("node-ready",
+                    pattern("(is (the )?node %s ready|(il )?nodo %s è ready)"),
+                    "getNodeStatus", "nodeName", out -> out.endsWith("not found."), (node, out) -> out),
+            new Intent("pods-on-node",
+                    pattern("((list|show|which)( the)? pods (are )?(running |scheduled )?on (the )?node %s"
+                            + "|(quali|elenca i) pod (girano )?sul nodo %s)"),
+                    "listPodsOnNode", "nodeName", out -> out.startsWith("No pods scheduled"), (node, out) -> out),
+            new Intent("recent-events",
+                    Pattern.compile("((show|list|get)( me)? (the )?(recent |latest |last )?(cluster )?events( in the cluster)?"
+                            + "|(mostra|elenca) (gli )?(ultimi )?eventi( del cluster)?)"),
+                    "getRecentClusterEvents", null, out -> false, (none, out) -> out));
+
+    @Inject
+    @McpClientName("drkube")
+    McpClient mcpClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "drkube.fastpath.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private Counter misses;
+    private Counter fallbacks;
+
+    @PostConstruct
+    void init() {
+        misses = Counter.builder("drkube.fastpath.requests").tag("outcome", "miss").register(registry);
+        fallbacks = Counter.builder("drkube.fastpath.requests").tag("outcome", "fallback").register(registry);
+        registry.gauge("drkube.fastpath.hit.ratio", this, f -> f.total.get() == 0 ? 0 : (double) f.hits.get() / f.total.get());
+    }
+
+    /**
+     * Risposta diretta, o vuoto se la domanda va passata all'LLM.
+     */
+    public Optional<String> answer(String question) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        total.incrementAndGet();
+        String q = question.strip().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").replaceAll("[?.!]+$", "");
+        for (Intent intent : INTENTS) {
+            Matcher matcher = intent.pattern().matcher(q);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String value = intent.argument() == null ? null : group(matcher);
+            long start = System.nanoTime();
+            String arguments = intent.argument() == null ? "{}" : "{\"" + intent.argument() + "\":\"" + value + "\"}";
+            String output;
+            try {
+                output = mcpClient.executeTool(ToolExecutionRequest.builder()
+                        .id(UUID.randomUUID().toString())
+                        .name(intent.tool())
+                        .arguments(arguments)
+                        .build());
+            } catch (RuntimeException e) {
+                // MCP server giù o timeout: la domanda passa all'LLM come per un errore del tool
+                Log.warnf("Fast path %s failed, falling back to the LLM: %s", intent.id(), e.getMessage());
+                fallbacks.increment();
+                return Optional.empty();
+            }
+            if (output == null || output.startsWith("Error")) {
+                // il tool non ha risposto bene: meglio lasciare il ragionamento all'LLM
+                fallbacks.increment();
+                return Optional.empty();
+            }
+            if (intent.inconclusive().test(output)) {
+                // es. nessun pod: namespace vuoto o inesistente (o nome capito male), decide l'LLM
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            Counter.builder("drkube.fastpath.requests").tag("outcome", "hit").tag("intent", intent.id()).register(registry).increment();
+            Log.debugf("Fast path %s answered in %d µs", intent.id(), (System.nanoTime() - start) / 1000);
+            return Optional.of(intent.format().apply(value, output));
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    private static Pattern pattern(String template) {
+        // ogni alternativa ha il proprio gruppo nominato: arg0, arg1, ...
+        String regex = template;
+        int index = 0;
+        while (regex.contains("%s")) {
+            regex = regex.replaceFirst("%s", Matcher.quoteReplacement(String.format(NAME, "arg" + index++)));
+        }
+        return Pattern.compile(regex);
+    }
+
+    private static String group(Matcher matcher) {
+        for (int i = 0; matcher.pattern().pattern().contains("?<arg" + i + ">"); i++) {
+            if (matcher.group("arg" + i) != null) {
+                return matcher.group("arg" + i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.drkube.queryserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * QuestionCoalescer — domande identiche (dopo la normalizzazione) arrivate mentre la prima è
+ * ancora in esecuzione si agganciano alla stessa esecuzione LLM invece di rifare tutto il giro
+ * di tool; il risultato viene distribuito a tutti quelli in attesa.
+ * <p>
+ * L'esecuzione gira su un proprio virtual thread, quindi non dipende da chi l'ha avviata: viene
+ * interrotta solo quando se ne vanno tutti quelli in attesa.
+ */
+@ApplicationScoped
+public class QuestionCoalescer {
+
+    @ConfigProperty(name = "drkube.coalescing.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "drkube.coalescing.ignore-case", defaultValue = "true")
+    boolean ignoreCase;
+
+    @ConfigProperty(name = "drkube.coalescing.ignore-punctuation", defaultValue = "true")
+    boolean ignorePunctuation;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, Flight> flights = new HashMap<>();
+    private Counter leaders;
+    private Counter followers;
+    private Counter cancelled;
+
+    private static final class Flight {
+        final String key;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        int waiters;
+        Thread runner;
+
+        Flight(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Attesa di un singolo richiedente sull'esecuzione condivisa.
+     */
+    public final class Ticket {
+        private final Flight flight;
+        private final CompletableFuture<String> mine;
+        private final AtomicBoolean left = new AtomicBoolean();
+
+        private Ticket(Flight flight) {
+            this.flight = flight;
+            this.mine = flight.result.copy();
+        }
+
+        /**
+         * Risultato dell'esecuzione; le eccezioni dell'esecuzione vengono rilanciate così come sono.
+         */
+        public String await() throws Exception {
+            try {
+                return mine.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } finally {
+                leave();
+            }
+        }
+
+        /**
+         * Il richiedente non aspetta più (es. connessione chiusa); idempotente.
+         */
+        public void leave() {
+            if (left.compareAndSet(false, true)) {
+                mine.cancel(false);
+                departed(flight);
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        leaders = Counter.builder("drkube.coalescing.requests").tag("role", "leader").register(registry);
+        followers = Counter.builder("drkube.coalescing.requests").tag("role", "follower").register(registry);
+        cancelled = Counter.builder("drkube.coalescing.cancelled").register(registry);
+        registry.gauge("drkube.coalescing.in.flight", this, c -> c.inFlight());
+    }
+
+    /**
+     * Si aggancia all'esecuzione in corso per la stessa domanda o ne avvia una nuova.
+     */
+    public Ticket join(String question, Callable<String> execution) {
+        String key = enabled ? normalize(question) : UUID.randomUUID().toString();
+        synchronized (flights) {
+            Flight flight = flights.get(key);
+            if (flight == null) {
+                flight = new Flight(key);
+                flights.put(key, flight);
+                flight.runner = start(flight, execution);
+                leaders.increment();
+            } else {
+                followers.increment();
+            }
+            flight.waiters++;
+            return new Ticket(flight);
+        }
+    }
+
+    String normalize(String question) {
+        String key = question.strip().replaceAll("\\s+", " ");
+        if (ignoreCase) {
+            key = key.toLowerCase(Locale.ROOT);
+        }
+        if (ignorePunctuation) {
+            key = key.replaceAll("[\\p{Punct}&&[^-_./:]]", "").replaceAll("\\s+", " ").strip();
+        }
+        return key;
+    }
+
+    private Thread start(Flight flight, Callable<String> execution) {
+        return Thread.ofVirtual().name("drkube-question").start(() -> {
+            try {
+                flight.result.complete(execution.call());
+            } catch (Throwable t) {
+                flight.result.completeExceptionally(t);
+            } finally {
+                synchronized (flights) {
+                    flights.remove(flight.key, flight);
+                }
+            }
+        });
+    }
+
+    private void departed(Flight flight) {
+        synchronized (flights) {
+            if (--flight.waiters > 0 || flight.result.isDone()) {
+                return;
+            }
+            // nessuno aspetta più: libero la chiave e interrompo l'esecuzione (best effort sulle chiamate in corso)
+            flights.remove(flight.key, flight);
+            flight.result.completeExceptionally(new CancellationException("all waiters left"));
+            flight.runner.interrupt();
+            cancelled.increment();
+        }
+    }
+
+    private int inFlight() {
+        synchronized (flights) {
+            return flights.size();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.drkube.queryserver.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProviderResult;
+import io.quarkiverse.langchain4j.mcp.runtime.McpClientName;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReplayHarness — rigioca le sessioni registrate da {@link SessionRecorder} contro l'MCP server
+ * configurato (tipicamente avviato con {@code drkube.replay.snapshot}, cioè su un API server
+ * Kubernetes simulato): un modello stub restituisce a ogni turno i tool call registrati, l'AI
+ * service li esegue davvero sull'MCP server e i tempi misurati vengono confrontati con quelli
+ * di riferimento. Così una sessione lenta di produzione diventa un test di regressione ripetibile.
+ */
+@ApplicationScoped
+public class ReplayHarness {
+
+    // sotto questa differenza assoluta un rallentamento è rumore
+    private static final long NOISE_MICROS = 5_000;
+
+    @Inject
+    @McpClientName("drkube")
+    McpClient mcpClient;
+
+    @Inject
+    SessionRecorder recorder;
+
+    interface ReplayAssistant {
+        String chat(String question);
+    }
+
+    /**
+     * Esito del replay: sessioni rigiocate (stesso formato della registrazione) e regressioni trovate.
+     */
+    public record Report(List<SessionRecorder.Session> replayed, List<String> regressions, String summary) {
+    }
+
+    /**
+     * Modello stub: a ogni chiamata restituisce il turno registrato successivo, opzionalmente
+     * aspettando la durata registrata del turno per misurare anche la latenza end-to-end.
+     */
+    static final class StubModel implements ChatModel {
+        private final List<SessionRecorder.Turn> turns;
+        private final boolean simulateLatency;
+        private int next;
+
+        StubModel(List<SessionRecorder.Turn> turns, boolean simulateLatency) {
+            this.turns = turns;
+            this.simulateLatency = simulateLatency;
+        }
+
+        @Override
+        public ChatResponse doChat(ChatRequest request) {
+            if (next >= turns.size()) {
+                return ChatResponse.builder().aiMessage(AiMessage.from("replay: no more recorded turns")).build();
+            }
+            SessionRecorder.Turn turn = turns.get(next++);
+            if (simulateLatency) {
+                try {
+                    TimeUnit.MICROSECONDS.sleep(turn.micros());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (turn.calls() == null || turn.calls().isEmpty()) {
+                return ChatResponse.builder().aiMessage(AiMessage.from(turn.text() != null ? turn.text() : "")).build();
+            }
+            List<ToolExecutionRequest> requests = turn.calls().stream()
+                    .map(c -> ToolExecutionRequest.builder().id(c.id()).name(c.name()).arguments(c.arguments()).build())
+                    .toList();
+            return ChatResponse.builder().aiMessage(AiMessage.from(requests)).build();
+        }
+    }
+
+    /**
+     * Rigioca le sessioni di {@code sessions}; il riferimento è {@code baseline} se indicato (per
+     * esempio un replay precedente salvato con {@code output}), altrimenti la registrazione stessa.
+     * Un tool è in regressione se impiega più di (1 + tolerance) volte il riferimento.
+     */
+    public Report run(Path sessions, Path baseline, Path output, double tolerance, boolean simulateLatency) throws IOException {
+        List<SessionRecorder.Session> recorded = recorder.read(sessions);
+        List<SessionRecorder.Session> reference = baseline != null ? recorder.read(baseline) : recorded;
+        List<ToolSpecification> catalogue = mcpClient.listTools();
+
+        List<SessionRecorder.Session> replayed = new ArrayList<>();
+        List<String> regressions = new ArrayList<>();
+        long recordedToolMicros = 0;
+        long replayedToolMicros = 0;
+        for (int i = 0; i < recorded.size(); i++) {
+            SessionRecorder.Session session = recorded.get(i);
+            SessionRecorder.Session result = replay(session, catalogue, simulateLatency);
+            replayed.add(result);
+            SessionRecorder.Session ref = i < reference.size() ? reference.get(i) : session;
+            regressions.addAll(compare(i, ref, result, tolerance));
+            recordedToolMicros += ref.tools().stream().mapToLong(SessionRecorder.ToolCall::micros).sum();
+            replayedToolMicros += result.tools().stream().mapToLong(SessionRecorder.ToolCall::micros).sum();
+        }
+
+        if (output != null) {
+            Files.deleteIfExists(output);
+            for (SessionRecorder.Session session : replayed) {
+                recorder.append(output, session);
+            }
+        }
+        String summary = String.format("%d sessions replayed, tool time %d ms (reference %d ms), %d regressions",
+                replayed.size(), replayedToolMicros / 1000, recordedToolMicros / 1000, regressions.size());
+        return new Report(replayed, regressions, summary);
+    }
+
+    private SessionRecorder.Session replay(SessionRecorder.Session session, List<ToolSpecification> catalogue,
+                                           boolean simulateLatency) {
+        List<SessionRecorder.ToolCall> tools = new ArrayList<>();
+        ToolExecutor executor = (request, memoryId) -> {
+            long start = System.nanoTime();
+            String result = mcpClient.executeTool(request);
+            tools.add(new SessionRecorder.ToolCall(request.name(), request.arguments(),
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start),
+                    result == null ? -1 : result.getBytes(StandardCharsets.UTF_8).length,
+                    result == null || result.startsWith("Error")));
+            return result;
+        };
+        // ogni turno finale con testo chiude un giro dell'AI service: con l'escalation di
+        // TieredAssistant una sessione contiene il giro del modello piccolo e poi quello del grande
+        List<List<SessionRecorder.Turn>> rounds = new ArrayList<>();
+        List<SessionRecorder.Turn> round = new ArrayList<>();
+        for (SessionRecorder.Turn turn : session.turns()) {
+            round.add(turn);
+            if (turn.calls() == null || turn.calls().isEmpty()) {
+                rounds.add(round);
+                round = new ArrayList<>();
+            }
+        }
+        if (!round.isEmpty()) {
+            rounds.add(round);
+        }
+
+        long start = System.nanoTime();
+        String answer = null;
+        for (List<SessionRecorder.Turn> turns : rounds) {
+            ReplayAssistant assistant = AiServices.builder(ReplayAssistant.class)
+                    .chatModel(new StubModel(turns, simulateLatency))
+                    .toolProvider(request -> {
+                        ToolProviderResult.Builder result = ToolProviderResult.builder();
+                        catalogue.forEach(spec -> result.add(spec, executor));
+                        return result.build();
+                    })
+                    .build();
+            answer = assistant.chat(session.question());
+        }
+        return new SessionRecorder.Session(session.question(), System.currentTimeMillis(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start),
+                answer == null ? -1 : answer.getBytes(StandardCharsets.UTF_8).length,
+                session.turns(), tools);
+    }
+
+    private static List<String> compare(int index, SessionRecorder.Session reference, SessionRecorder.Session replayed,
+                                        double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        if (reference.tools().size() != replayed.tools().size()) {
+            regressions.add(String.format("session %d: %d tool calls, expected %d", index,
+                    replayed.tools().size(), reference.tools().size()));
+        }
+        for (int j = 0; j < Math.min(reference.tools().size(), replayed.tools().size()); j++) {
+            SessionRecorder.ToolCall expected = reference.tools().get(j);
+            SessionRecorder.ToolCall actual = replayed.tools().get(j);
+            if (!expected.name().equals(actual.name())) {
+                regressions.add(String.format("session %d call %d: %s instead of %s", index, j, actual.name(), expected.name()));
+            } else if (actual.micros() > expected.micros() * (1 + tolerance) && actual.micros() - expected.micros() > NOISE_MICROS) {
+                regressions.add(String.format("session %d call %d %s: %d ms, reference %d ms", index, j, actual.name(),
+                        actual.micros() / 1000, expected.micros() / 1000));
+            } else if (actual.error() && !expected.error()) {
+                regressions.add(String.format("session %d call %d %s: now fails", index, j, actual.name()));
+            }
+        }
+        return regressions;
+    }
+}
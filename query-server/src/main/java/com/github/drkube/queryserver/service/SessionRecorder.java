@@ -0,0 +1,185 @@
+package com.github.drkube.queryserver.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * SessionRecorder — registra, se abilitato, ogni conversazione con l'assistente: i turni dell'LLM
+ * (durata, token, tool richiesti, testo finale) e le chiamate ai tool MCP (argomenti, dimensione
+ * del risultato, durata), una sessione per riga JSON in {@code drkube.recorder.file}.
+ * <p>
+ * La sessione è legata al thread che esegue la domanda: l'AI service chiama modello e tool in
+ * modo sincrono sullo stesso thread, quindi listener ed executor la trovano senza passarla.
+ * Le sessioni registrate si rigiocano con {@link ReplayHarness}.
+ * <p>
+ * Le risposte del {@link FastPath} non vengono registrate: non passano dall'LLM, quindi non hanno
+ * turni da rigiocare con il modello stub, e il loro andamento è già nelle metriche
+ * {@code drkube.fastpath.*}.
+ */
+@ApplicationScoped
+public class SessionRecorder implements ChatModelListener {
+
+    private static final String START = "drkube.recorder.start";
+
+    @ConfigProperty(name = "drkube.recorder.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "drkube.recorder.file", defaultValue = "sessions.jsonl")
+    String file;
+
+    @Inject
+    ObjectMapper mapper;
+
+    public record Call(String id, String name, String arguments) {
+    }
+
+    /**
+     * Turno dell'LLM: tool richiesti oppure, nell'ultimo turno, il testo della risposta.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public record Turn(String model, long micros, int inputTokens, int outputTokens, List<Call> calls, String text) {
+    }
+
+    public record ToolCall(String name, String arguments, long micros, int bytes, boolean error) {
+    }
+
+    public record Session(String question, long startedAt, long micros, int answerBytes, List<Turn> turns,
+                          List<ToolCall> tools) {
+    }
+
+    private static final class Active {
+        final String question;
+        final long startedAt = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final List<Turn> turns = new ArrayList<>();
+        final List<ToolCall> tools = new ArrayList<>();
+
+        Active(String question) {
+            this.question = question;
+        }
+    }
+
+    private final ThreadLocal<Active> current = new ThreadLocal<>();
+
+    /**
+     * Esegue la domanda registrandone la sessione (anche se fallisce).
+     */
+    public String record(String question, Callable<String> execution) throws Exception {
+        if (!enabled) {
+            return execution.call();
+        }
+        Active session = new Active(question);
+        current.set(session);
+        String answer = null;
+        try {
+            answer = execution.call();
+            return answer;
+        } finally {
+            current.remove();
+            write(new Session(session.question, session.startedAt,
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - session.start),
+                    answer == null ? -1 : answer.getBytes(StandardCharsets.UTF_8).length,
+                    session.turns, session.tools));
+        }
+    }
+
+    /**
+     * Esegue una chiamata a un tool MCP e la aggiunge alla sessione in corso, se c'è.
+     */
+    public String tool(ToolExecutionRequest request, Supplier<String> execution) {
+        Active session = current.get();
+        if (session == null) {
+            return execution.get();
+        }
+        long start = System.nanoTime();
+        String result = null;
+        try {
+            result = execution.get();
+            return result;
+        } finally {
+            session.tools.add(new ToolCall(request.name(), request.arguments(),
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start),
+                    result == null ? -1 : result.getBytes(StandardCharsets.UTF_8).length,
+                    result == null || result.startsWith("Error")));
+        }
+    }
+
+    @Override
+    public void onRequest(ChatModelRequestContext context) {
+        if (current.get() != null) {
+            context.attributes().put(START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext context) {
+        Active session = current.get();
+        Object start = context.attributes().get(START);
+        if (session == null || !(start instanceof Long nanos)) {
+            return;
+        }
+        ChatResponse response = context.chatResponse();
+        AiMessage message = response.aiMessage();
+        List<Call> calls = new ArrayList<>();
+        if (message.hasToolExecutionRequests()) {
+            for (ToolExecutionRequest request : message.toolExecutionRequests()) {
+                calls.add(new Call(request.id(), request.name(), request.arguments()));
+            }
+        }
+        session.turns.add(new Turn(response.modelName(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - nanos),
+                response.tokenUsage() != null && response.tokenUsage().inputTokenCount() != null ? response.tokenUsage().inputTokenCount() : 0,
+                response.tokenUsage() != null && response.tokenUsage().outputTokenCount() != null ? response.tokenUsage().outputTokenCount() : 0,
+                calls, calls.isEmpty() ? message.text() : null));
+    }
+
+    private void write(Session session) {
+        try {
+            append(Path.of(file), session);
+        } catch (IOException e) {
+            Log.warnf("Cannot record session to %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Aggiunge una sessione in fondo a un file di sessioni.
+     */
+    public synchronized void append(Path path, Session session) throws IOException {
+        Files.writeString(path, mapper.writeValueAsString(session) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Legge un file di sessioni registrate.
+     */
+    public List<Session> read(Path path) throws IOException {
+        List<Session> sessions = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                sessions.add(mapper.readValue(line, Session.class));
+            }
+        }
+        return sessions;
+    }
+}
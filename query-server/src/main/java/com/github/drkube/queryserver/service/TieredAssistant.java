@@ -0,0 +1,118 @@
+package com.github.drkube.queryserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * TieredAssistant — sceglie il modello in base alla complessità della domanda: le consultazioni
+ * semplici vanno al modello locale piccolo ("small"), le diagnosi al modello grande. Se il giro di
+ * tool del modello piccolo fallisce o la risposta è inutilizzabile si passa al modello grande.
+ * <p>
+ * I due modelli sono semplici funzioni domanda → risposta, quindi il routing si può provare con
+ * modelli stub senza LLM reali.
+ */
+@Singleton
+public class TieredAssistant {
+
+    public enum Tier {SMALL, LARGE}
+
+    // (?U): senza, \b non vede il confine dopo una lettera accentata ("è pronto")
+    private static final Pattern SIMPLE = Pattern.compile(
+            "(?U)^(how many|quant[ie]|list|lista|elenca|show|mostra|get|is|è|are|sono|which|quali|what is the status)\\b.*");
+    private static final List<String> COMPLEX_HINTS = List.of(
+            "why", "perché", "perche", "root cause", "causa", "diagnos", "troubleshoot", "investigate", "analy",
+            "explain", "spiega", "compare", "confront", "slow", "lent", "intermittent", "wrong", "failing", "fallisc",
+            "crash", "not working", "non funziona", "fix", "risolv");
+    private static final int SIMPLE_MAX_WORDS = 16;
+
+    private final Function<String, String> small;
+    private final Function<String, String> large;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+
+    @Inject
+    TieredAssistant(DrKubeSmallAssistantService small, DrKubeAssistantService large, MeterRegistry registry,
+                    @ConfigProperty(name = "drkube.tiers.enabled", defaultValue = "true") boolean enabled) {
+        this(small::chat, large::chat, registry, enabled);
+    }
+
+    TieredAssistant(Function<String, String> small, Function<String, String> large, MeterRegistry registry, boolean enabled) {
+        this.small = small;
+        this.large = large;
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    public String chat(String question) {
+        Tier tier = enabled ? classify(question) : Tier.LARGE;
+        Counter.builder("drkube.tier.decisions").tag("tier", tier.name().toLowerCase()).register(registry).increment();
+
+        if (tier == Tier.SMALL) {
+            long start = System.nanoTime();
+            String escalation;
+            try {
+                String answer = small.apply(question);
+                escalation = unusable(answer);
+                if (escalation == null) {
+                    record(Tier.SMALL, start, "ok");
+                    return answer;
+                }
+            } catch (RuntimeException e) {
+                escalation = "error";
+                Log.warnf("Small model failed, escalating: %s", e.getMessage());
+            }
+            record(Tier.SMALL, start, "escalated");
+            Counter.builder("drkube.tier.escalations").tag("reason", escalation).register(registry).increment();
+        }
+
+        long start = System.nanoTime();
+        try {
+            String answer = large.apply(question);
+            record(Tier.LARGE, start, "ok");
+            return answer;
+        } catch (RuntimeException e) {
+            record(Tier.LARGE, start, "error");
+            throw e;
+        }
+    }
+
+    /**
+     * Domanda breve che inizia come una consultazione e non contiene segnali di diagnosi.
+     */
+    public Tier classify(String question) {
+        String q = question.strip().toLowerCase(Locale.ROOT);
+        if (q.split("\\s+").length > SIMPLE_MAX_WORDS || COMPLEX_HINTS.stream().anyMatch(q::contains)) {
+            return Tier.LARGE;
+        }
+        return SIMPLE.matcher(q).matches() ? Tier.SMALL : Tier.LARGE;
+    }
+
+    /**
+     * Motivo per cui la risposta del modello piccolo non va bene, null se va bene.
+     */
+    private static String unusable(String answer) {
+        if (answer == null || answer.isBlank()) {
+            return "empty";
+        }
+        return answer.contains("CANNOT_ANSWER") ? "cannot-answer" : null;
+    }
+
+    private void record(Tier tier, long start, String outcome) {
+        Timer.builder("drkube.tier.latency")
+                .tag("tier", tier.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
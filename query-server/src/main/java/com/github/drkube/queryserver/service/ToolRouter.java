@@ -0,0 +1,209 @@
+package com.github.drkube.queryserver.service;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2q.AllMiniLmL6V2QuantizedEmbeddingModel;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProvider;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+import dev.langchain4j.service.tool.ToolProviderResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkiverse.langchain4j.mcp.runtime.McpClientName;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * ToolRouter — per ogni domanda passa all'LLM solo i tool dell'MCP server più pertinenti invece
+ * dell'intero catalogo: le descrizioni dei tool vengono trasformate in embedding una volta sola
+ * con un modello locale in-process, la domanda viene confrontata per similarità coseno e si
+ * tengono i primi N più un piccolo insieme sempre presente.
+ * <p>
+ * Il catalogo viene riletto dall'MCP server ogni {@code drkube.router.refresh}; si ricalcolano
+ * gli embedding solo dei tool nuovi o con descrizione cambiata. La rilettura la fa una domanda
+ * alla volta, senza lock: le altre intanto usano il catalogo corrente. Se l'MCP server non risponde
+ * si tiene il catalogo precedente e si riprova con backoff, invece di far fallire la domanda.
+ */
+@ApplicationScoped
+public class ToolRouter implements Supplier<ToolProvider> {
+
+    @Inject
+    @McpClientName("drkube")
+    McpClient mcpClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    SessionRecorder recorder;
+
+    @ConfigProperty(name = "drkube.router.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "drkube.router.top-n", defaultValue = "8")
+    int topN;
+
+    @ConfigProperty(name = "drkube.router.always", defaultValue = "getRecentClusterEvents")
+    Set<String> alwaysOn;
+
+    @ConfigProperty(name = "drkube.router.refresh", defaultValue = "60s")
+    Duration refresh;
+
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+    private record Entry(ToolSpecification spec, String text, float[] vector, int tokens) {
+    }
+
+    private final EmbeddingModel embeddings = new AllMiniLmL6V2QuantizedEmbeddingModel();
+    private volatile Map<String, Entry> catalogue = Map.of();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long nextRefreshAt;
+    private volatile long backoffMillis;
+    private volatile int catalogueTokens;
+
+    private Timer routingTimer;
+    private DistributionSummary fullTokens;
+    private DistributionSummary routedTokens;
+
+    @PostConstruct
+    void init() {
+        routingTimer = Timer.builder("drkube.router.latency").description("Time to pick the tools for a question").register(registry);
+        fullTokens = DistributionSummary.builder("drkube.router.tool.tokens").tag("catalogue", "full").register(registry);
+        routedTokens = DistributionSummary.builder("drkube.router.tool.tokens").tag("catalogue", "routed").register(registry);
+    }
+
+    @Override
+    public ToolProvider get() {
+        return this::provideTools;
+    }
+
+    private ToolProviderResult provideTools(ToolProviderRequest request) {
+        long start = System.nanoTime();
+        Map<String, Entry> tools = refreshIfStale();
+        ToolExecutor executor = (execution, memoryId) -> recorder.tool(execution, () -> mcpClient.executeTool(execution));
+
+        List<Entry> selected;
+        if (!enabled || tools.size() <= topN + alwaysOn.size()) {
+            selected = List.copyOf(tools.values());
+        } else {
+            float[] question = embeddings.embed(request.userMessage().singleText()).content().vector();
+            selected = tools.values().stream()
+                    .sorted(Comparator.comparingDouble((Entry e) -> -cosine(question, e.vector())))
+                    .limit(topN)
+                    .collect(Collectors.toList());
+            for (String name : alwaysOn) {
+                Entry entry = tools.get(name);
+                if (entry != null && !selected.contains(entry)) {
+                    selected.add(entry);
+                }
+            }
+        }
+
+        ToolProviderResult.Builder result = ToolProviderResult.builder();
+        int tokens = 0;
+        for (Entry entry : selected) {
+            result.add(entry.spec(), executor);
+            tokens += entry.tokens();
+        }
+        routingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        fullTokens.record(catalogueTokens);
+        routedTokens.record(tokens);
+        Log.debugf("Routed %d/%d tools (~%d of ~%d tokens): %s", selected.size(), tools.size(), tokens, catalogueTokens,
+                selected.stream().map(e -> e.spec().name()).collect(Collectors.joining(",")));
+        return result.build();
+    }
+
+    private Map<String, Entry> refreshIfStale() {
+        if (System.currentTimeMillis() < nextRefreshAt) {
+            return catalogue;
+        }
+        // finché il catalogo è vuoto non c'è niente da dare alle altre domande: leggono anche loro
+        boolean exclusive = !catalogue.isEmpty();
+        if (exclusive && !refreshing.compareAndSet(false, true)) {
+            return catalogue;
+        }
+        try {
+            List<ToolSpecification> specs;
+            try {
+                specs = mcpClient.listTools();
+            } catch (RuntimeException e) {
+                long backoff = backoffMillis == 0 ? INITIAL_BACKOFF_MILLIS : Math.min(backoffMillis * 2, refresh.toMillis());
+                backoffMillis = backoff;
+                nextRefreshAt = System.currentTimeMillis() + backoff;
+                Log.warnf("Cannot refresh the tool catalogue, keeping %d tools, next attempt in %d ms: %s",
+                        catalogue.size(), backoff, e.getMessage());
+                return catalogue;
+            }
+            return update(specs);
+        } finally {
+            if (exclusive) {
+                refreshing.set(false);
+            }
+        }
+    }
+
+    private Map<String, Entry> update(List<ToolSpecification> specs) {
+        Map<String, Entry> previous = catalogue;
+        Map<String, Entry> fresh = new HashMap<>();
+        int total = 0;
+        int embedded = 0;
+        for (ToolSpecification spec : specs) {
+            String text = spec.name() + ": " + spec.description();
+            Entry known = previous.get(spec.name());
+            Entry entry;
+            if (known != null && known.text().equals(text)) {
+                // descrizione invariata: riuso l'embedding, aggiorno lo schema
+                entry = new Entry(spec, text, known.vector(), estimateTokens(spec));
+            } else {
+                entry = new Entry(spec, text, embeddings.embed(text).content().vector(), estimateTokens(spec));
+                embedded++;
+            }
+            fresh.put(spec.name(), entry);
+            total += entry.tokens();
+        }
+        if (embedded > 0 || fresh.size() != previous.size()) {
+            Log.infof("Tool catalogue refreshed: %d tools, %d embedded", fresh.size(), embedded);
+        }
+        catalogue = fresh;
+        catalogueTokens = total;
+        backoffMillis = 0;
+        nextRefreshAt = System.currentTimeMillis() + refresh.toMillis();
+        return fresh;
+    }
+
+    /**
+     * Stima grezza dei token di input di una specifica (circa 4 caratteri per token).
+     */
+    private static int estimateTokens(ToolSpecification spec) {
+        return (spec.name().length() + String.valueOf(spec.description()).length()
+                + String.valueOf(spec.parameters()).length()) / 4;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB) + 1e-12);
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.drkube.queryserver.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.mcp.client.McpClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pattern del fast path ed estrazione degli argomenti contro un McpClient finto: nessun LLM,
+ * nessun contesto Quarkus.
+ */
+class FastPathTest {
+
+    private SimpleMeterRegistry registry;
+    private List<ToolExecutionRequest> executed;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executed = new ArrayList<>();
+    }
+
+    private FastPath fastPath(Function<ToolExecutionRequest, String> tools) {
+        FastPath fastPath = new FastPath();
+        fastPath.mcpClient = (McpClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{McpClient.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeTool" -> {
+                        ToolExecutionRequest request = (ToolExecutionRequest) args[0];
+                        executed.add(request);
+                        yield tools.apply(request);
+                    }
+                    case "toString" -> "stub-mcp-client";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        fastPath.registry = registry;
+        fastPath.enabled = true;
+        fastPath.init();
+        return fastPath;
+    }
+
+    private double requests(String outcome) {
+        Counter counter = registry.find("drkube.fastpath.requests").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void extractsTheNamespace() {
+        FastPath fastPath = fastPath(r -> "web-1 - Status: Running - Restarts: 0\nweb-2 - Status: Running - Restarts: 1");
+        Optional<String> answer = fastPath.answer("How many pods are there in namespace payments?");
+        assertEquals("There are 2 pods in namespace payments:\nweb-1 - Status: Running - Restarts: 0\n"
+                + "web-2 - Status: Running - Restarts: 1", answer.orElseThrow());
+        assertEquals("listPodsInNamespace", executed.get(0).name());
+        assertEquals("{\"namespace\":\"payments\"}", executed.get(0).arguments());
+
+        fastPath.answer("quanti pod ci sono nel namespace kube-system");
+        fastPath.answer("list the pods in the default namespace");
+        fastPath.answer("show me the pvcs in team-a.prod");
+        assertEquals(List.of("{\"namespace\":\"kube-system\"}", "{\"namespace\":\"default\"}", "{\"namespace\":\"team-a.prod\"}"),
+                executed.subList(1, 4).stream().map(ToolExecutionRequest::arguments).toList());
+        assertEquals("listPVCs", executed.get(3).name());
+    }
+
+    @Test
+    void extractsTheNodeName() {
+        FastPath fastPath = fastPath(r -> "Node worker-1 is Ready (KubeletReady)");
+        assertEquals("Node worker-1 is Ready (KubeletReady)", fastPath.answer("is node worker-1 ready?").orElseThrow());
+        fastPath.answer("quali pod girano sul nodo worker-2");
+        assertEquals(List.of("getNodeStatus", "listPodsOnNode"), executed.stream().map(ToolExecutionRequest::name).toList());
+        assertEquals("{\"nodeName\":\"worker-2\"}", executed.get(1).arguments());
+    }
+
+    @Test
+    void questionsWithoutArgumentsCallTheToolWithNoArguments() {
+        FastPath fastPath = fastPath(r -> "Warning BackOff pod/web-1");
+        assertTrue(fastPath.answer("show me the recent events").isPresent());
+        assertEquals("{}", executed.get(0).arguments());
+    }
+
+    @Test
+    void wordsStandingForTheWholeClusterAreNotNames() {
+        FastPath fastPath = fastPath(r -> "should not be called");
+        for (String question : List.of("how many pods are there in the cluster?", "list all pods in all namespaces",
+                "how many pods are running in every namespace", "quanti pod ci sono nel cluster",
+                "show the pods in my namespace", "list the pvcs in all namespaces")) {
+            assertTrue(fastPath.answer(question).isEmpty(), question);
+        }
+        assertEquals(List.of(), executed);
+        assertEquals(6, requests("miss"));
+    }
+
+    @Test
+    void emptyResultsFallBackToTheLlm() {
+        FastPath fastPath = fastPath(r -> switch (r.name()) {
+            case "listPodsInNamespace" -> "No pods found in namespace payments";
+            case "listPVCs" -> "No PVCs found in namespace 'payments'";
+            case "getNodeStatus" -> "Node worker-9 not found.";
+            default -> "No pods scheduled on node worker-9";
+        });
+        assertTrue(fastPath.answer("how many pods are there in payments").isEmpty());
+        assertTrue(fastPath.answer("list the pvcs in payments").isEmpty());
+        assertTrue(fastPath.answer("is node worker-9 ready").isEmpty());
+        assertTrue(fastPath.answer("which pods are running on node worker-9").isEmpty());
+        assertEquals(4, executed.size());
+        assertEquals(4, requests("miss"));
+        assertEquals(0, registry.find("drkube.fastpath.requests").tag("outcome", "hit").counters().size());
+    }
+
+    @Test
+    void toolErrorsFallBackToTheLlm() {
+        FastPath fastPath = fastPath(r -> {
+            throw new IllegalStateException("connection refused");
+        });
+        assertTrue(fastPath.answer("list the pods in default").isEmpty());
+        assertEquals(1, requests("fallback"));
+
+        FastPath failing = fastPath(r -> "Error: namespaces \"default\" is forbidden");
+        assertTrue(failing.answer("list the pods in default").isEmpty());
+        assertEquals(2, requests("fallback"));
+    }
+
+    @Test
+    void otherQuestionsAreMisses() {
+        FastPath fastPath = fastPath(r -> "should not be called");
+        assertTrue(fastPath.answer("why is the checkout deployment not ready").isEmpty());
+        assertTrue(fastPath.answer("list the pods in default that are failing").isEmpty());
+        assertEquals(List.of(), executed);
+    }
+}
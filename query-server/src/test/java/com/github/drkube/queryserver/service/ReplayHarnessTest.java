@@ -0,0 +1,131 @@
+package com.github.drkube.queryserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replay di un file di sessioni registrate (src/test/resources/replay) con lo StubModel contro un
+ * McpClient finto: verifica che i tool call registrati vengano rieseguiti nell'ordine e con gli
+ * argomenti originali e che rallentamenti ed errori diventino regressioni.
+ */
+class ReplayHarnessTest {
+
+    private static final List<String> TOOLS = List.of("listPodsInNamespace", "getNodeStatus", "getRecentClusterEvents");
+
+    @TempDir
+    Path dir;
+
+    private ReplayHarness harness;
+    private List<ToolExecutionRequest> executed;
+
+    @BeforeEach
+    void setUp() {
+        SessionRecorder recorder = new SessionRecorder();
+        recorder.mapper = new ObjectMapper();
+        harness = new ReplayHarness();
+        harness.recorder = recorder;
+        executed = new CopyOnWriteArrayList<>();
+        harness.mcpClient = mcpClient(request -> "ok: " + request.name());
+    }
+
+    /**
+     * McpClient finto: solo listTools ed executeTool, con un proxy per non dipendere dagli altri
+     * metodi dell'interfaccia.
+     */
+    private McpClient mcpClient(Function<ToolExecutionRequest, String> tools) {
+        List<ToolSpecification> catalogue = TOOLS.stream()
+                .map(name -> ToolSpecification.builder()
+                        .name(name)
+                        .description("Stub " + name)
+                        .parameters(JsonObjectSchema.builder().build())
+                        .build())
+                .toList();
+        return (McpClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{McpClient.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "listTools" -> catalogue;
+                    case "executeTool" -> {
+                        ToolExecutionRequest request = (ToolExecutionRequest) args[0];
+                        executed.add(request);
+                        yield tools.apply(request);
+                    }
+                    case "toString" -> "stub-mcp-client";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Path sessions() throws URISyntaxException {
+        return Path.of(ReplayHarnessTest.class.getResource("/replay/sessions.jsonl").toURI());
+    }
+
+    @Test
+    void replaysRecordedToolCallsInOrder() throws Exception {
+        Path output = dir.resolve("replay.jsonl");
+        ReplayHarness.Report report = harness.run(sessions(), null, output, 0.5, false);
+
+        assertEquals(List.of("listPodsInNamespace", "getNodeStatus", "getNodeStatus", "getRecentClusterEvents"),
+                executed.stream().map(ToolExecutionRequest::name).toList());
+        assertEquals("{\"namespace\":\"kube-system\"}", executed.get(0).arguments());
+        assertEquals("{\"nodeName\":\"worker-2\"}", executed.get(1).arguments());
+
+        assertEquals(2, report.replayed().size());
+        assertEquals(List.of(), report.regressions());
+        assertTrue(report.summary().startsWith("2 sessions replayed"), report.summary());
+        // la risposta finale è il testo dell'ultimo turno registrato, anche dopo l'escalation
+        assertEquals("There are 9 pods in kube-system.".getBytes(StandardCharsets.UTF_8).length,
+                report.replayed().get(0).answerBytes());
+        assertEquals("worker-2 is NotReady: its kubelet stopped posting status.".getBytes(StandardCharsets.UTF_8).length,
+                report.replayed().get(1).answerBytes());
+        assertEquals(3, report.replayed().get(1).tools().size());
+
+        // l'output si rilegge come una registrazione e può fare da baseline
+        List<SessionRecorder.Session> saved = harness.recorder.read(output);
+        assertEquals(2, saved.size());
+        assertEquals(report.replayed().get(1).tools().size(), saved.get(1).tools().size());
+        executed.clear();
+        assertEquals(List.of(), harness.run(sessions(), output, null, 10, false).regressions());
+    }
+
+    @Test
+    void reportsFailingAndSlowerTools() throws Exception {
+        Map<String, Function<ToolExecutionRequest, String>> behaviour = Map.of(
+                "getRecentClusterEvents", request -> "Error: events API unavailable",
+                "listPodsInNamespace", request -> {
+                    try {
+                        // registrato in 8 ms: 40 ms supera sia la tolleranza sia la soglia di rumore
+                        Thread.sleep(40);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "ok";
+                });
+        harness.mcpClient = mcpClient(request -> behaviour.getOrDefault(request.name(), r -> "ok").apply(request));
+
+        ReplayHarness.Report report = harness.run(sessions(), null, null, 0.5, false);
+
+        assertEquals(2, report.regressions().size(), report.regressions().toString());
+        assertTrue(report.regressions().get(0).startsWith("session 0 call 0 listPodsInNamespace:"), report.regressions().get(0));
+        assertEquals("session 1 call 2 getRecentClusterEvents: now fails", report.regressions().get(1));
+        assertTrue(report.replayed().get(1).tools().get(2).error());
+    }
+}
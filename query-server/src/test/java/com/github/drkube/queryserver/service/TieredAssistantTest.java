@@ -0,0 +1,136 @@
+package com.github.drkube.queryserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Routing tra modello piccolo e grande con modelli stub: nessun LLM, nessun contesto Quarkus.
+ */
+class TieredAssistantTest {
+
+    private SimpleMeterRegistry registry;
+    private List<String> smallCalls;
+    private List<String> largeCalls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        smallCalls = new ArrayList<>();
+        largeCalls = new ArrayList<>();
+    }
+
+    private TieredAssistant assistant(Function<String, String> small, boolean enabled) {
+        return new TieredAssistant(q -> {
+            smallCalls.add(q);
+            return small.apply(q);
+        }, q -> {
+            largeCalls.add(q);
+            return "large: " + q;
+        }, registry, enabled);
+    }
+
+    private double escalations(String reason) {
+        Counter counter = registry.find("drkube.tier.escalations").tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void classifiesShortLookupsAsSmall() {
+        TieredAssistant assistant = assistant(q -> "ok", true);
+        assertEquals(TieredAssistant.Tier.SMALL, assistant.classify("How many pods are running in default?"));
+        assertEquals(TieredAssistant.Tier.SMALL, assistant.classify("quanti nodi ci sono"));
+        assertEquals(TieredAssistant.Tier.SMALL, assistant.classify("list the deployments in kube-system"));
+        assertEquals(TieredAssistant.Tier.SMALL, assistant.classify("è pronto il nodo worker-1?"));
+        assertEquals(TieredAssistant.Tier.SMALL, assistant.classify("È pronto il nodo worker-1?"));
+    }
+
+    @Test
+    void classifiesDiagnosisHintsAsLarge() {
+        TieredAssistant assistant = assistant(q -> "ok", true);
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("why is my pod restarting"));
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("perché il deployment non parte"));
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("list the pods that are failing"));
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("is the ingress slow?"));
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("mostra i pod in crash"));
+    }
+
+    @Test
+    void classifiesLongOrOpenQuestionsAsLarge() {
+        TieredAssistant assistant = assistant(q -> "ok", true);
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify(
+                "list the pods in the payments namespace together with their owners, nodes, images and the age of each one"));
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("tell me about the cluster"));
+        assertEquals(TieredAssistant.Tier.LARGE, assistant.classify("esempio"));
+    }
+
+    @Test
+    void usesSmallAnswerWhenUsable() {
+        String answer = assistant(q -> "3 pods", true).chat("how many pods are there");
+        assertEquals("3 pods", answer);
+        assertEquals(1, smallCalls.size());
+        assertEquals(0, largeCalls.size());
+    }
+
+    @Test
+    void escalatesWhenSmallModelThrows() {
+        String answer = assistant(q -> {
+            throw new IllegalStateException("tool loop failed");
+        }, true).chat("how many pods are there");
+        assertEquals("large: how many pods are there", answer);
+        assertEquals(1, smallCalls.size());
+        assertEquals(1, largeCalls.size());
+        assertEquals(1, escalations("error"));
+    }
+
+    @Test
+    void escalatesOnBlankAnswer() {
+        TieredAssistant assistant = assistant(q -> "  \n", true);
+        assertEquals("large: list the namespaces", assistant.chat("list the namespaces"));
+        assertEquals(1, escalations("empty"));
+
+        TieredAssistant nullAnswer = assistant(q -> null, true);
+        assertEquals("large: list the namespaces", nullAnswer.chat("list the namespaces"));
+        assertEquals(2, escalations("empty"));
+    }
+
+    @Test
+    void escalatesOnCannotAnswer() {
+        String answer = assistant(q -> "CANNOT_ANSWER: needs a diagnosis", true).chat("show the nodes");
+        assertEquals("large: show the nodes", answer);
+        assertEquals(1, escalations("cannot-answer"));
+    }
+
+    @Test
+    void largeHintsSkipTheSmallModel() {
+        String answer = assistant(q -> "should not be used", true).chat("why are the pods of checkout crashing");
+        assertEquals("large: why are the pods of checkout crashing", answer);
+        assertEquals(0, smallCalls.size());
+        assertEquals(0, escalations("error") + escalations("empty") + escalations("cannot-answer"));
+    }
+
+    @Test
+    void disabledAlwaysUsesLarge() {
+        assertEquals("large: how many pods are there", assistant(q -> "3 pods", false).chat("how many pods are there"));
+        assertEquals(0, smallCalls.size());
+    }
+
+    @Test
+    void largeModelErrorsPropagate() {
+        TieredAssistant assistant = new TieredAssistant(q -> "CANNOT_ANSWER", q -> {
+            throw new IllegalStateException("model unavailable");
+        }, registry, true);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> assistant.chat("list the pods"));
+        assertEquals("model unavailable", e.getMessage());
+        assertNull(registry.find("drkube.tier.latency").tag("tier", "large").tag("outcome", "ok").timer());
+    }
+}
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Confronta tempo di avvio e RSS tra build JVM e nativa di un modulo.
+#
+#   ./scripts/startup-bench.sh mcp-server [runs]
+#   ./scripts/startup-bench.sh query-server [runs]
+#
+# Prerequisiti: mvn package (JVM) e mvn package -Dnative (nativa) già eseguiti nel modulo.
+# Il tempo misurato va dal lancio del processo alla prima risposta HTTP sulla porta del servizio.
+set -euo pipefail
+
+module=${1:?usage: $0 <mcp-server|query-server> [runs]}
+runs=${2:-5}
+root=$(cd "$(dirname "$0")/.." && pwd)
+target="$root/$module/target"
+
+case "$module" in
+  mcp-server)   port=8090 ;;
+  query-server) port=8091; export MCP_SERVER_URL=${MCP_SERVER_URL:-http://localhost:8090/mcp} OPENAI_API_KEY=${OPENAI_API_KEY:-dummy} ;;
+  *) echo "unknown module $module" >&2; exit 1 ;;
+esac
+
+now_ms() { date +%s%3N; }
+
+measure() {
+  local label=$1; shift
+  local total_ms=0 total_rss=0
+  for ((i = 1; i <= runs; i++)); do
+    local start pid
+    start=$(now_ms)
+    "$@" >/dev/null 2>&1 &
+    pid=$!
+    until curl -s -o /dev/null "http://localhost:$port/"; do
+      kill -0 "$pid" 2>/dev/null || { echo "$label: process exited before serving requests" >&2; return 1; }
+      sleep 0.01
+    done
+    local elapsed=$(( $(now_ms) - start ))
+    local rss
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    total_ms=$(( total_ms + elapsed ))
+    total_rss=$(( total_rss + rss ))
+    printf '%-7s run %d: startup %5d ms, RSS %7d KiB\n' "$label" "$i" "$elapsed" "$rss"
+  done
+  printf '%-7s avg  : startup %5d ms, RSS %7d KiB\n' "$label" $(( total_ms / runs )) $(( total_rss / runs ))
+}
+
+if [[ -f "$target/quarkus-app/quarkus-run.jar" ]]; then
+  measure jvm java -jar "$target/quarkus-app/quarkus-run.jar"
+else
+  echo "JVM build not found in $target/quarkus-app (run mvn package)" >&2
+fi
+
+runner=$(ls "$target"/*-runner 2>/dev/null | head -1 || true)
+if [[ -n "$runner" ]]; then
+  measure native "$runner"
+else
+  echo "native executable not found in $target (run mvn package -Dnative)" >&2
+fi